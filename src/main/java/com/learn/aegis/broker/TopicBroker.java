@@ -0,0 +1,612 @@
+package com.learn.aegis.broker;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.model.ConsumerGroupStats;
+import com.learn.aegis.model.PartitionStats;
+import com.learn.aegis.model.TopicRecord;
+import com.learn.aegis.model.TopicStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按主题和分区组织的消息代理
+ * 每个主题分为若干个分区，每个分区是一个有独立锁的有界环形日志，生产者按消息键的哈希选择分区，
+ * 不同分区的生产和消费互不争用同一把锁。
+ * 消费组内的成员按轮询方式分配分区，一个分区同一时刻只分配给组内的一个成员，因此同一个键的消息按顺序被消费；
+ * 成员加入、主动离开或超过会话超时没有拉取时重新分配。各消费组独立记录每个分区的消费偏移量，互不影响。
+ * 分区已满时淘汰最早的消息，落后于淘汰位置的消费组从保留的最早一条消息继续消费。
+ * 每个分区预先分配容量大小的数组，分区数不超过MAX_PARTITIONS；只有发布消息和创建主题会创建主题，拉取不存在的主题不会创建，
+ * 主题数量达到上限后创建新主题抛出SaturationRejectedException。
+ * 超过保留时长没有成员拉取的消费组连同它在各分区的偏移量一起移除，清理在拉取和查询统计时顺带进行。
+ */
+@Slf4j
+public class TopicBroker {
+
+    // 消费者超过该时长没有拉取消息时被移出消费组（毫秒）
+    private static final long SESSION_TIMEOUT_MILLIS = 30_000L;
+
+    /**
+     * 单个主题的分区数上限
+     */
+    public static final int MAX_PARTITIONS = 64;
+
+    /**
+     * 默认的消费组保留时长（毫秒）
+     */
+    public static final long DEFAULT_GROUP_RETENTION_MILLIS = 600_000L;
+
+    /**
+     * 默认的主题数量上限
+     */
+    public static final int DEFAULT_MAX_TOPICS = 1000;
+
+    // 自动创建主题时的分区数
+    private final int defaultPartitions;
+
+    // 每个分区最多保留的消息数
+    private final int partitionCapacity;
+
+    // 消费组超过该时长没有成员拉取时被移除（毫秒）
+    private final long groupRetentionMillis;
+
+    // 最多允许的主题数量
+    private final int maxTopics;
+
+    // 所有主题，按名称索引
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    // 已创建的主题数量，在创建主题前预留，保证并发创建时不超过上限
+    private final AtomicInteger topicCount = new AtomicInteger();
+
+    /**
+     * 构造方法，消费组使用默认的保留时长
+     *
+     * @param defaultPartitions 自动创建主题时的分区数
+     * @param partitionCapacity 每个分区最多保留的消息数
+     * @throws IllegalArgumentException 如果分区数或分区容量不为正数，或分区数超过上限
+     */
+    public TopicBroker(int defaultPartitions, int partitionCapacity) {
+        this(defaultPartitions, partitionCapacity, DEFAULT_GROUP_RETENTION_MILLIS);
+    }
+
+    /**
+     * 构造方法，使用默认的主题数量上限
+     *
+     * @param defaultPartitions 自动创建主题时的分区数
+     * @param partitionCapacity 每个分区最多保留的消息数
+     * @param groupRetentionMillis 消费组没有成员拉取后保留的时长（毫秒）
+     * @throws IllegalArgumentException 如果参数不为正数，或分区数超过上限
+     */
+    public TopicBroker(int defaultPartitions, int partitionCapacity, long groupRetentionMillis) {
+        this(defaultPartitions, partitionCapacity, groupRetentionMillis, DEFAULT_MAX_TOPICS);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param defaultPartitions 自动创建主题时的分区数
+     * @param partitionCapacity 每个分区最多保留的消息数
+     * @param groupRetentionMillis 消费组没有成员拉取后保留的时长（毫秒）
+     * @param maxTopics 最多允许的主题数量
+     * @throws IllegalArgumentException 如果参数不为正数，或分区数超过上限
+     */
+    public TopicBroker(int defaultPartitions, int partitionCapacity, long groupRetentionMillis, int maxTopics) {
+        validatePartitions(defaultPartitions);
+        if (partitionCapacity <= 0 || groupRetentionMillis <= 0 || maxTopics <= 0) {
+            throw new IllegalArgumentException("partitionCapacity, groupRetentionMillis and maxTopics must be positive");
+        }
+        this.defaultPartitions = defaultPartitions;
+        this.partitionCapacity = partitionCapacity;
+        this.groupRetentionMillis = groupRetentionMillis;
+        this.maxTopics = maxTopics;
+    }
+
+    /**
+     * 创建主题，主题已存在且分区数相同时直接返回
+     *
+     * @param name 主题名称
+     * @param partitions 分区数
+     * @return 主题的统计信息
+     * @throws IllegalArgumentException 如果分区数不为正数或超过上限，或主题已存在但分区数不同
+     * @throws SaturationRejectedException 如果主题不存在且主题数量已达上限
+     */
+    public TopicStats createTopic(String name, int partitions) {
+        validatePartitions(partitions);
+        Topic topic = topic(name, partitions);
+        if (topic.partitions.length != partitions) {
+            throw new IllegalArgumentException("Topic " + name + " already exists with " + topic.partitions.length + " partitions");
+        }
+        return topic.stats();
+    }
+
+    /**
+     * 向主题发布一条消息，主题不存在时按默认分区数创建
+     *
+     * @param topicName 主题名称
+     * @param key 消息键，相同键的消息进入同一个分区，为null时轮流进入各分区
+     * @param value 消息内容
+     * @return 消息所在的分区和偏移量
+     * @throws SaturationRejectedException 如果主题不存在且主题数量已达上限
+     */
+    public TopicRecord publish(String topicName, String key, String value) {
+        Objects.requireNonNull(value, "value");
+        Topic topic = topic(topicName, defaultPartitions);
+        int partition = key == null
+                ? Math.floorMod(topic.roundRobin.getAndIncrement(), topic.partitions.length)
+                : Math.floorMod(key.hashCode(), topic.partitions.length);
+        long offset = topic.partitions[partition].append(key, value);
+        topic.signalConsumers();
+        return TopicRecord.builder()
+                .partition(partition)
+                .offset(offset)
+                .key(key)
+                .value(value)
+                .build();
+    }
+
+    /**
+     * 以消费组成员的身份拉取消息，首次拉取时加入消费组
+     * 只读取分配给该成员的分区，读取的消息立即提交偏移量；没有消息时最多等待maxWait
+     *
+     * @param topicName 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @param maxItems 最多拉取的消息数
+     * @param maxWait 没有消息时的最长等待时间
+     * @param unit 时间单位
+     * @return 拉取到的消息，同一分区的消息按偏移量排列，等待超时时为空列表，主题不存在时返回null
+     * @throws InterruptedException 如果等待期间线程被中断
+     */
+    public List<TopicRecord> poll(String topicName, String group, String consumer, int maxItems, long maxWait, TimeUnit unit)
+            throws InterruptedException {
+        Topic topic = topics.get(topicName);
+        if (topic == null) {
+            return null;
+        }
+        if (maxItems <= 0) {
+            return Collections.emptyList();
+        }
+        topic.expireIdleGroups(groupRetentionMillis);
+        long deadline = System.nanoTime() + unit.toNanos(maxWait);
+        List<TopicRecord> records = new ArrayList<>();
+        while (true) {
+            int[] assigned = topic.join(group, consumer);
+            // 从随机的分区开始读取，避免maxItems较小时后面的分区一直读不到
+            int start = assigned.length == 0 ? 0 : ThreadLocalRandom.current().nextInt(assigned.length);
+            for (int i = 0; i < assigned.length && records.size() < maxItems; i++) {
+                int partition = assigned[(start + i) % assigned.length];
+                topic.partitions[partition].read(group, partition, maxItems - records.size(), records);
+            }
+            long remaining = deadline - System.nanoTime();
+            if (!records.isEmpty() || remaining <= 0) {
+                return records;
+            }
+            topic.awaitData(group, assigned, remaining);
+        }
+    }
+
+    /**
+     * 消费者主动离开消费组，其分区重新分配给组内的其他成员
+     *
+     * @param topicName 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @return 消费者原本在组内返回true
+     */
+    public boolean leave(String topicName, String group, String consumer) {
+        Topic topic = topics.get(topicName);
+        if (topic == null) {
+            return false;
+        }
+        Group existing = topic.groups.get(group);
+        return existing != null && existing.leave(consumer, topic.partitions.length);
+    }
+
+    /**
+     * 获取主题的分区深度和各消费组的消费延迟
+     *
+     * @param topicName 主题名称
+     * @return 主题的统计信息，主题不存在时返回null
+     */
+    public TopicStats stats(String topicName) {
+        Topic topic = topics.get(topicName);
+        if (topic == null) {
+            return null;
+        }
+        topic.expireIdleGroups(groupRetentionMillis);
+        return topic.stats();
+    }
+
+    /**
+     * 获取所有主题的名称
+     *
+     * @return 按名称排序的主题列表
+     */
+    public List<String> topicNames() {
+        List<String> names = new ArrayList<>(topics.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * 获取主题，不存在时按指定分区数创建，主题数量已达上限时拒绝创建
+     */
+    private Topic topic(String name, int partitions) {
+        Topic existing = topics.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        return topics.computeIfAbsent(name, key -> {
+            if (topicCount.incrementAndGet() > maxTopics) {
+                topicCount.decrementAndGet();
+                throw new SaturationRejectedException("Too many topics, limit is " + maxTopics);
+            }
+            return new Topic(key, partitions, partitionCapacity);
+        });
+    }
+
+    /**
+     * 校验分区数
+     */
+    private static void validatePartitions(int partitions) {
+        if (partitions <= 0 || partitions > MAX_PARTITIONS) {
+            throw new IllegalArgumentException("partitions must be between 1 and " + MAX_PARTITIONS + ": " + partitions);
+        }
+    }
+
+    /**
+     * 主题，包含固定数量的分区和订阅该主题的消费组
+     */
+    private static final class Topic {
+
+        private final String name;
+
+        private final Partition[] partitions;
+
+        private final int partitionCapacity;
+
+        private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+        // 没有消息键时轮流选择分区
+        private final AtomicInteger roundRobin = new AtomicInteger();
+
+        // 等待新消息的消费者在这把锁上等待，生产者只在有等待者时加锁唤醒
+        private final ReentrantLock waitLock = new ReentrantLock();
+
+        private final Condition dataAvailable = waitLock.newCondition();
+
+        // 等待中的消费者数量，只在持有waitLock时修改
+        private volatile int waiters;
+
+        // 下一次清理空闲消费组的时间（毫秒）
+        private final AtomicLong nextExpiry = new AtomicLong();
+
+        private Topic(String name, int partitionCount, int partitionCapacity) {
+            this.name = name;
+            this.partitionCapacity = partitionCapacity;
+            this.partitions = new Partition[partitionCount];
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = new Partition(partitionCapacity);
+            }
+        }
+
+        /**
+         * 以消费组成员的身份加入，消费组不存在或刚被移除时创建新的消费组
+         *
+         * @return 分配给该成员的分区
+         */
+        private int[] join(String group, String consumer) {
+            while (true) {
+                int[] assigned = groups.computeIfAbsent(group, Group::new).join(consumer, partitions.length);
+                if (assigned != null) {
+                    return assigned;
+                }
+            }
+        }
+
+        /**
+         * 移除超过保留时长没有成员拉取的消费组，以及各分区中不属于任何消费组的偏移量
+         * 每个保留时长的十分之一内最多清理一次
+         */
+        private void expireIdleGroups(long retentionMillis) {
+            long now = System.currentTimeMillis();
+            long next = nextExpiry.get();
+            if (now < next || !nextExpiry.compareAndSet(next, now + Math.max(1L, retentionMillis / 10))) {
+                return;
+            }
+            boolean removed = groups.values().removeIf(group -> group.expire(now, retentionMillis));
+            if (removed) {
+                for (Partition partition : partitions) {
+                    partition.retainOffsets(groups.keySet());
+                }
+            }
+        }
+
+        /**
+         * 发布消息后唤醒等待中的消费者，没有等待者时不加锁
+         */
+        private void signalConsumers() {
+            if (waiters == 0) {
+                return;
+            }
+            waitLock.lock();
+            try {
+                dataAvailable.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+
+        /**
+         * 等待分配给消费者的分区中出现未消费的消息
+         * 先登记等待者再检查分区，与生产者的先写入再检查等待者配合，不会漏掉唤醒
+         */
+        private void awaitData(String group, int[] assigned, long nanos) throws InterruptedException {
+            waitLock.lock();
+            try {
+                waiters++;
+                for (int partition : assigned) {
+                    if (partitions[partition].hasUnread(group)) {
+                        return;
+                    }
+                }
+                dataAvailable.awaitNanos(nanos);
+            } finally {
+                waiters--;
+                waitLock.unlock();
+            }
+        }
+
+        private TopicStats stats() {
+            List<PartitionStats> partitionStats = new ArrayList<>(partitions.length);
+            long depth = 0;
+            for (int i = 0; i < partitions.length; i++) {
+                PartitionStats stats = partitions[i].stats(i);
+                depth += stats.getDepth();
+                partitionStats.add(stats);
+            }
+            List<ConsumerGroupStats> groupStats = new ArrayList<>();
+            new TreeMap<>(groups).forEach((groupName, group) -> {
+                List<Long> partitionLag = new ArrayList<>(partitions.length);
+                long lag = 0;
+                for (Partition partition : partitions) {
+                    long partitionLagValue = partition.lag(groupName);
+                    lag += partitionLagValue;
+                    partitionLag.add(partitionLagValue);
+                }
+                groupStats.add(group.stats(partitionLag, lag));
+            });
+            return TopicStats.builder()
+                    .topic(name)
+                    .partitionCapacity(partitionCapacity)
+                    .depth(depth)
+                    .partitions(partitionStats)
+                    .groups(groupStats)
+                    .build();
+        }
+    }
+
+    /**
+     * 分区，一个有独立锁的有界环形日志，同时保存各消费组在该分区的消费偏移量
+     */
+    private static final class Partition {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final String[] keys;
+
+        private final String[] values;
+
+        // 下一条消息的偏移量
+        private long head;
+
+        // 保留的最早一条消息的偏移量
+        private long tail;
+
+        // 被淘汰的消息数
+        private long evicted;
+
+        // 各消费组下一条要消费的偏移量，首次消费的消费组从保留的最早一条消息开始
+        private final Map<String, Long> groupOffsets = new HashMap<>();
+
+        private Partition(int capacity) {
+            this.keys = new String[capacity];
+            this.values = new String[capacity];
+        }
+
+        private long append(String key, String value) {
+            lock.lock();
+            try {
+                if (head - tail == values.length) {
+                    // 分区已满，淘汰最早的消息
+                    tail++;
+                    evicted++;
+                }
+                int index = (int) (head % values.length);
+                keys[index] = key;
+                values[index] = value;
+                return head++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void read(String group, int partition, int maxItems, List<TopicRecord> out) {
+            lock.lock();
+            try {
+                long offset = Math.max(groupOffsets.getOrDefault(group, tail), tail);
+                long end = Math.min(head, offset + maxItems);
+                for (long next = offset; next < end; next++) {
+                    int index = (int) (next % values.length);
+                    out.add(TopicRecord.builder()
+                            .partition(partition)
+                            .offset(next)
+                            .key(keys[index])
+                            .value(values[index])
+                            .build());
+                }
+                groupOffsets.put(group, end);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hasUnread(String group) {
+            return lag(group) > 0;
+        }
+
+        private long lag(String group) {
+            lock.lock();
+            try {
+                return head - Math.max(groupOffsets.getOrDefault(group, tail), tail);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 移除已不存在的消费组的偏移量
+         */
+        private void retainOffsets(Set<String> liveGroups) {
+            lock.lock();
+            try {
+                groupOffsets.keySet().retainAll(liveGroups);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private PartitionStats stats(int partition) {
+            lock.lock();
+            try {
+                return PartitionStats.builder()
+                        .partition(partition)
+                        .depth(head - tail)
+                        .headOffset(head)
+                        .tailOffset(tail)
+                        .evicted(evicted)
+                        .build();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 消费组，记录成员最近一次拉取的时间，并在成员变化时按轮询方式重新分配分区
+     */
+    private static final class Group {
+
+        private final String name;
+
+        // 成员最近一次拉取的时间，按消费者标识排序，保证分配结果确定
+        private final TreeMap<String, Long> members = new TreeMap<>();
+
+        // 每个成员分配到的分区
+        private Map<String, int[]> assignment = new HashMap<>();
+
+        // 分配的代数
+        private long generation;
+
+        // 最近一次有成员拉取的时间
+        private long lastActivity = System.currentTimeMillis();
+
+        // 是否已因空闲被移除，移除后不再接受成员加入
+        private boolean expired;
+
+        private Group(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 记录成员的拉取，新成员加入或有成员超时时重新分配
+         *
+         * @return 分配给该成员的分区，消费组已被移除时返回null
+         */
+        private synchronized int[] join(String consumer, int partitionCount) {
+            if (expired) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            lastActivity = now;
+            boolean changed = members.put(consumer, now) == null;
+            changed |= members.values().removeIf(lastSeen -> now - lastSeen > SESSION_TIMEOUT_MILLIS);
+            if (changed) {
+                rebalance(partitionCount);
+            }
+            return assignment.get(consumer);
+        }
+
+        private synchronized boolean leave(String consumer, int partitionCount) {
+            if (members.remove(consumer) == null) {
+                return false;
+            }
+            rebalance(partitionCount);
+            return true;
+        }
+
+        /**
+         * 超过保留时长没有成员拉取时标记为已移除
+         *
+         * @return 需要移除时返回true
+         */
+        private synchronized boolean expire(long now, long retentionMillis) {
+            if (now - lastActivity > retentionMillis) {
+                expired = true;
+            }
+            return expired;
+        }
+
+        /**
+         * 第i个分区分配给第i % n个成员，成员多于分区时多出的成员分配不到分区
+         */
+        private void rebalance(int partitionCount) {
+            List<String> consumers = new ArrayList<>(members.keySet());
+            Map<String, List<Integer>> lists = new HashMap<>();
+            for (int partition = 0; partition < partitionCount && !consumers.isEmpty(); partition++) {
+                lists.computeIfAbsent(consumers.get(partition % consumers.size()), key -> new ArrayList<>()).add(partition);
+            }
+            Map<String, int[]> next = new HashMap<>();
+            for (String consumer : consumers) {
+                next.put(consumer, lists.getOrDefault(consumer, Collections.emptyList()).stream().mapToInt(Integer::intValue).toArray());
+            }
+            assignment = next;
+            generation++;
+            log.info("Rebalanced consumer group {} to generation {} with {} members", name, generation, consumers.size());
+        }
+
+        private synchronized ConsumerGroupStats stats(List<Long> partitionLag, long lag) {
+            Map<String, List<Integer>> assigned = new LinkedHashMap<>();
+            members.keySet().forEach(member -> {
+                List<Integer> partitions = new ArrayList<>();
+                for (int partition : assignment.get(member)) {
+                    partitions.add(partition);
+                }
+                assigned.put(member, partitions);
+            });
+            return ConsumerGroupStats.builder()
+                    .group(name)
+                    .generation(generation)
+                    .assignment(assigned)
+                    .partitionLag(partitionLag)
+                    .lag(lag)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.learn.aegis.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分层时间轮定时器
+ * ScheduledThreadPoolExecutor使用二叉堆（DelayedWorkQueue）保存定时任务，插入和取消都是O(log n)且需要加锁；
+ * 时间轮把定时任务按到期时间放入环形槽位，插入和取消都是O(1)，适合大量定时任务的场景。
+ * 共有LEVELS层，每层wheelSize个槽位：第0层每个槽位代表一个tick，第k层每个槽位代表wheelSize^k个tick。
+ * 任务放在与当前时间的高位相同的最低层中，当低层转完一圈时，把高一层当前槽位中的任务重新分配到低层（级联）。
+ * 调用线程只把新任务和取消请求放入无锁队列，所有时间轮结构都由单个tick线程维护，因此不需要加锁。
+ * 到期的任务交给构造时传入的执行器执行，tick线程本身不执行任务。
+ */
+@Slf4j
+public class HierarchicalTimingWheel {
+
+    // 时间轮层数
+    private static final int LEVELS = 4;
+
+    // 任务状态：等待到期
+    private static final int PENDING = 0;
+
+    // 任务状态：已取消
+    private static final int CANCELLED = 1;
+
+    // 任务状态：已到期
+    private static final int EXPIRED = 2;
+
+    // 每个tick的时长（纳秒）
+    private final long tickNanos;
+
+    // 每层槽位数量的位数
+    private final int bits;
+
+    // 每层槽位数量减一
+    private final int mask;
+
+    // 各层的槽位，每个槽位是一个双向链表的哨兵节点
+    private final Entry[][] wheels;
+
+    // 待加入时间轮的新任务
+    private final ConcurrentLinkedQueue<Entry> pendingAdds = new ConcurrentLinkedQueue<>();
+
+    // 待从时间轮移除的已取消任务
+    private final ConcurrentLinkedQueue<Entry> pendingCancels = new ConcurrentLinkedQueue<>();
+
+    // 执行到期任务的执行器
+    private final Executor dispatcher;
+
+    // 时间轮的起始时间
+    private final long startNanos;
+
+    // 维护时间轮的tick线程
+    private final Thread worker;
+
+    // 时间轮中尚未到期也未取消的任务数
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+
+    // 当前tick，只由tick线程读写
+    private long currentTick;
+
+    // tick线程已处理的新增和取消请求总数，只由tick线程写入，每批处理完成后发布一次
+    private volatile long drainedOperations;
+
+    // 是否已停止
+    private volatile boolean stopped;
+
+    /**
+     * 构造方法，创建后立即启动tick线程
+     *
+     * @param tickDuration 每个tick的时长
+     * @param unit 时间单位
+     * @param wheelSize 每层的槽位数量，会向上取整为2的幂
+     * @param dispatcher 执行到期任务的执行器
+     * @param threadName tick线程名称
+     */
+    public HierarchicalTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor dispatcher, String threadName) {
+        if (tickDuration <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickDuration must be positive and wheelSize at least 2");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.mask = (1 << bits) - 1;
+        this.wheels = new Entry[LEVELS][1 << bits];
+        for (Entry[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = Entry.sentinel();
+            }
+        }
+        this.dispatcher = dispatcher;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 提交一个定时任务
+     *
+     * @param task 到期后执行的任务
+     * @param delay 延迟时间
+     * @param unit 时间单位
+     * @return 定时任务句柄，可用于取消
+     * @throws RejectedExecutionException 如果时间轮已停止
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new RejectedExecutionException("Timing wheel has been stopped");
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        // toNanos在溢出时返回Long.MAX_VALUE，这里再限制相加的结果，并为向上取整留出一个tick，避免到期时间变为负数后立即执行
+        long maxDelayNanos = Long.MAX_VALUE - tickNanos - elapsedNanos;
+        long deadlineNanos = elapsedNanos + Math.min(Math.max(0L, unit.toNanos(delay)), maxDelayNanos);
+        // 向上取整到tick，保证任务不会早于指定时间执行
+        Entry entry = new Entry(this, task, (deadlineNanos + tickNanos - 1) / tickNanos);
+        pendingTimeouts.incrementAndGet();
+        pendingAdds.add(entry);
+        return entry;
+    }
+
+    /**
+     * 获取尚未到期也未取消的任务数
+     *
+     * @return 任务数
+     */
+    public int pendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * 获取tick线程已从队列中取出并处理的新增和取消请求总数
+     * schedule和cancel只把请求放入队列，调用方可以据此等待时间轮结构真正完成更新
+     *
+     * @return 已处理的请求总数
+     */
+    public long drainedOperations() {
+        return drainedOperations;
+    }
+
+    /**
+     * 停止时间轮，未到期的任务不再执行
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    /**
+     * tick线程主循环
+     */
+    private void run() {
+        while (!stopped) {
+            long nowTick = (System.nanoTime() - startNanos) / tickNanos;
+            long drained = processCancels() + processAdds();
+            if (drained > 0) {
+                drainedOperations = drainedOperations + drained;
+            }
+            while (currentTick < nowTick) {
+                advance();
+            }
+            long sleepNanos = (currentTick + 1) * tickNanos - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+        }
+    }
+
+    /**
+     * 推进一个tick：先自高向低级联转完一圈的层，再执行第0层当前槽位中的到期任务
+     */
+    private void advance() {
+        currentTick++;
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            long lowerBits = currentTick & ((1L << (bits * level)) - 1);
+            if (lowerBits == 0) {
+                cascade(level, (int) ((currentTick >>> (bits * level)) & mask));
+            }
+        }
+        Entry head = wheels[0][(int) (currentTick & mask)];
+        Entry entry = head.next;
+        while (entry != head) {
+            Entry next = entry.next;
+            entry.unlink();
+            if (entry.deadlineTick <= currentTick) {
+                expire(entry);
+            } else {
+                // 超出时间轮跨度的任务尚未真正到期，重新放入
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * 把高层槽位中的任务重新分配到低层
+     */
+    private void cascade(int level, int slot) {
+        Entry head = wheels[level][slot];
+        Entry entry = head.next;
+        while (entry != head) {
+            Entry next = entry.next;
+            entry.unlink();
+            place(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * 把任务放入与当前tick高位相同的最低层中
+     */
+    private void place(Entry entry) {
+        if (entry.state.get() != PENDING) {
+            return;
+        }
+        long deadline = entry.deadlineTick;
+        if (deadline <= currentTick) {
+            expire(entry);
+            return;
+        }
+        // 超出时间轮总跨度的任务先放在最高层最远的槽位，级联时再按真实到期时间重新分配
+        long span = 1L << (bits * LEVELS);
+        long placement = Math.min(deadline, currentTick + span - 1);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = bits * (level + 1);
+            if (level == LEVELS - 1 || (placement >>> shift) == (currentTick >>> shift)) {
+                int slot = (int) ((placement >>> (bits * level)) & mask);
+                wheels[level][slot].linkLast(entry);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 把新提交的任务放入时间轮
+     *
+     * @return 处理的任务数
+     */
+    private long processAdds() {
+        long processed = 0;
+        Entry entry;
+        while ((entry = pendingAdds.poll()) != null) {
+            place(entry);
+            processed++;
+        }
+        return processed;
+    }
+
+    /**
+     * 从时间轮中移除已取消的任务，释放内存
+     *
+     * @return 处理的任务数
+     */
+    private long processCancels() {
+        long processed = 0;
+        Entry entry;
+        while ((entry = pendingCancels.poll()) != null) {
+            entry.unlink();
+            processed++;
+        }
+        return processed;
+    }
+
+    /**
+     * 标记任务到期并交给执行器执行
+     */
+    private void expire(Entry entry) {
+        if (!entry.state.compareAndSet(PENDING, EXPIRED)) {
+            return;
+        }
+        pendingTimeouts.decrementAndGet();
+        try {
+            dispatcher.execute(entry.task);
+        } catch (Throwable e) {
+            // 执行器拒绝或直接执行时抛出的异常和错误都不能终止唯一的tick线程
+            log.error("Failed to dispatch expired timer task", e);
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public interface Timeout {
+
+        /**
+         * 取消定时任务
+         *
+         * @return 任务尚未到期且取消成功时返回true
+         */
+        boolean cancel();
+
+        /**
+         * 判断任务是否已取消
+         *
+         * @return 已取消时返回true
+         */
+        boolean isCancelled();
+
+        /**
+         * 判断任务是否已到期并交给执行器
+         *
+         * @return 已到期时返回true
+         */
+        boolean isExpired();
+
+        /**
+         * 获取任务到期的tick，从时间轮创建时开始计数，到期时间相同的任务在同一个tick中执行
+         *
+         * @return 到期的tick
+         */
+        long deadlineTick();
+    }
+
+    /**
+     * 时间轮中的定时任务，同时作为槽位双向链表的节点
+     */
+    private static final class Entry implements Timeout {
+        private final HierarchicalTimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private Entry prev;
+        private Entry next;
+
+        private Entry(HierarchicalTimingWheel wheel, Runnable task, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        private static Entry sentinel() {
+            Entry sentinel = new Entry(null, null, 0L);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void linkLast(Entry entry) {
+            entry.prev = prev;
+            entry.next = this;
+            prev.next = entry;
+            prev = entry;
+        }
+
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.pendingTimeouts.decrementAndGet();
+            wheel.pendingCancels.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        @Override
+        public long deadlineTick() {
+            return deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.learn.aegis.concurrent;
+
+import com.learn.aegis.constant.LockType;
+import com.learn.aegis.model.LockContentionStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 统计竞争情况的锁
+ * 以回调的形式执行临界区，记录获取次数、需要等待的次数、累计和最长等待时间，以及持有时间的直方图。
+ * ReentrantLock和StampedLock先尝试一次非阻塞获取，失败才算作竞争并计时等待；
+ * synchronized无法尝试加锁，进入前读取一个在临界区内设置的标志，标志已设置即算作竞争，这是一个近似值。
+ * 记录只使用LongAdder和无分配的直方图，不在临界区内执行，不会延长持锁时间。
+ */
+public abstract class InstrumentedLock {
+
+    // 锁的名称
+    private final String name;
+
+    // 锁的实现类型
+    private final LockType type;
+
+    // 获取锁的总次数
+    private final LongAdder acquisitions = new LongAdder();
+
+    // 需要等待的次数
+    private final LongAdder contended = new LongAdder();
+
+    // 累计等待时间（纳秒）
+    private final LongAdder waitNanos = new LongAdder();
+
+    // 单次最长等待时间（纳秒）
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    // 持有时间（纳秒）的直方图
+    private final LatencyHistogram holdNanos = new LatencyHistogram();
+
+    protected InstrumentedLock(String name, LockType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * 按类型创建锁
+     *
+     * @param name 锁的名称，用于区分统计结果
+     * @param type 锁的实现类型
+     * @return 锁实例
+     */
+    public static InstrumentedLock create(String name, LockType type) {
+        switch (type) {
+            case SYNCHRONIZED:
+                return new MonitorLock(name);
+            case REENTRANT:
+                return new ReentrantInstrumentedLock(name, type, new ReentrantLock());
+            case FAIR:
+                return new ReentrantInstrumentedLock(name, type, new ReentrantLock(true));
+            case STAMPED:
+                return new StampedInstrumentedLock(name);
+            default:
+                throw new IllegalArgumentException("Unsupported lock type: " + type);
+        }
+    }
+
+    /**
+     * 获取锁的名称
+     *
+     * @return 锁的名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取锁的实现类型
+     *
+     * @return 锁的实现类型
+     */
+    public LockType getType() {
+        return type;
+    }
+
+    /**
+     * 在持有锁时执行临界区
+     *
+     * @param action 临界区
+     * @param <T> 结果类型
+     * @return 临界区的结果
+     */
+    public abstract <T> T execute(Supplier<T> action);
+
+    /**
+     * 在持有锁时执行返回int的临界区，结果不装箱
+     *
+     * @param action 临界区
+     * @return 临界区的结果
+     */
+    public abstract int executeAsInt(IntSupplier action);
+
+    /**
+     * 获取锁的竞争情况
+     *
+     * @return 竞争统计
+     */
+    public LockContentionStats stats() {
+        long total = acquisitions.sum();
+        long waited = contended.sum();
+        return LockContentionStats.builder()
+                .name(name)
+                .type(type)
+                .acquisitions(total)
+                .contended(waited)
+                .contentionRatio(total == 0 ? 0.0 : (double) waited / total)
+                .totalWaitNanos(waitNanos.sum())
+                .maxWaitNanos(maxWaitNanos.get())
+                .holdP50Nanos(holdNanos.getValueAtPercentile(50.0))
+                .holdP99Nanos(holdNanos.getValueAtPercentile(99.0))
+                .holdP999Nanos(holdNanos.getValueAtPercentile(99.9))
+                .holdMaxNanos(holdNanos.getMaxValue())
+                .build();
+    }
+
+    /**
+     * 记录一次获取，在释放锁之后调用
+     *
+     * @param wasContended 获取时是否需要等待
+     * @param waited 等待时间（纳秒），不需要等待时忽略
+     * @param held 持有时间（纳秒）
+     */
+    protected void record(boolean wasContended, long waited, long held) {
+        acquisitions.increment();
+        if (wasContended) {
+            contended.increment();
+            waitNanos.add(waited);
+            long currentMax;
+            while (waited > (currentMax = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(currentMax, waited)) {
+                // 其他线程同时更新了最大值，重试
+            }
+        }
+        holdNanos.record(held);
+    }
+
+    /**
+     * 基于对象内置监视器锁的实现
+     */
+    private static final class MonitorLock extends InstrumentedLock {
+
+        // 监视器对象
+        private final Object monitor = new Object();
+
+        // 是否有线程持有监视器，用于近似判断竞争
+        private volatile boolean busy;
+
+        private MonitorLock(String name) {
+            super(name, LockType.SYNCHRONIZED);
+        }
+
+        @Override
+        public <T> T execute(Supplier<T> action) {
+            boolean wasContended = busy;
+            long start = System.nanoTime();
+            long acquired = start;
+            long released = start;
+            try {
+                synchronized (monitor) {
+                    acquired = System.nanoTime();
+                    busy = true;
+                    try {
+                        return action.get();
+                    } finally {
+                        busy = false;
+                        released = System.nanoTime();
+                    }
+                }
+            } finally {
+                record(wasContended, acquired - start, released - acquired);
+            }
+        }
+
+        @Override
+        public int executeAsInt(IntSupplier action) {
+            boolean wasContended = busy;
+            long start = System.nanoTime();
+            long acquired = start;
+            long released = start;
+            try {
+                synchronized (monitor) {
+                    acquired = System.nanoTime();
+                    busy = true;
+                    try {
+                        return action.getAsInt();
+                    } finally {
+                        busy = false;
+                        released = System.nanoTime();
+                    }
+                }
+            } finally {
+                record(wasContended, acquired - start, released - acquired);
+            }
+        }
+    }
+
+    /**
+     * 基于显式加锁和解锁的实现的公共部分
+     */
+    private abstract static class ExplicitLock extends InstrumentedLock {
+
+        private ExplicitLock(String name, LockType type) {
+            super(name, type);
+        }
+
+        /**
+         * 尝试不等待地获取锁
+         *
+         * @return 获取成功返回非0的凭证，锁已被持有时返回0
+         */
+        protected abstract long tryAcquire();
+
+        /**
+         * 获取锁，必要时等待
+         *
+         * @return 非0的凭证
+         */
+        protected abstract long acquire();
+
+        /**
+         * 释放锁
+         *
+         * @param stamp 获取时得到的凭证
+         */
+        protected abstract void release(long stamp);
+
+        @Override
+        public <T> T execute(Supplier<T> action) {
+            long start = System.nanoTime();
+            long stamp = tryAcquire();
+            boolean wasContended = stamp == 0L;
+            if (wasContended) {
+                stamp = acquire();
+            }
+            long acquired = System.nanoTime();
+            try {
+                return action.get();
+            } finally {
+                long released = System.nanoTime();
+                release(stamp);
+                record(wasContended, acquired - start, released - acquired);
+            }
+        }
+
+        @Override
+        public int executeAsInt(IntSupplier action) {
+            long start = System.nanoTime();
+            long stamp = tryAcquire();
+            boolean wasContended = stamp == 0L;
+            if (wasContended) {
+                stamp = acquire();
+            }
+            long acquired = System.nanoTime();
+            try {
+                return action.getAsInt();
+            } finally {
+                long released = System.nanoTime();
+                release(stamp);
+                record(wasContended, acquired - start, released - acquired);
+            }
+        }
+    }
+
+    /**
+     * 基于ReentrantLock的实现，公平与否由传入的锁决定
+     */
+    private static final class ReentrantInstrumentedLock extends ExplicitLock {
+
+        private final ReentrantLock lock;
+
+        private ReentrantInstrumentedLock(String name, LockType type, ReentrantLock lock) {
+            super(name, type);
+            this.lock = lock;
+        }
+
+        @Override
+        protected long tryAcquire() {
+            // 公平锁的tryLock()会插队，这里用带0超时的tryLock保持公平
+            try {
+                return lock.tryLock(0L, TimeUnit.NANOSECONDS) ? 1L : 0L;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0L;
+            }
+        }
+
+        @Override
+        protected long acquire() {
+            lock.lock();
+            return 1L;
+        }
+
+        @Override
+        protected void release(long stamp) {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 基于StampedLock写锁的实现
+     */
+    private static final class StampedInstrumentedLock extends ExplicitLock {
+
+        private final StampedLock lock = new StampedLock();
+
+        private StampedInstrumentedLock(String name) {
+            super(name, LockType.STAMPED);
+        }
+
+        @Override
+        protected long tryAcquire() {
+            return lock.tryWriteLock();
+        }
+
+        @Override
+        protected long acquire() {
+            return lock.writeLock();
+        }
+
+        @Override
+        protected void release(long stamp) {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
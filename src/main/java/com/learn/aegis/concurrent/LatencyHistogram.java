@@ -0,0 +1,119 @@
+package com.learn.aegis.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无分配的并发延迟直方图
+ * 采用与HdrHistogram相同的对数-线性分桶：数值按2的幂分段，每段再线性划分为固定数量的子桶，
+ * 相对误差不超过1/SUB_BUCKET_HALF（约1.6%）。记录只做一次数组下标计算和一次原子加，不产生任何对象分配，
+ * 适合在任务执行的热路径上使用。超过上限的数值按上限记录。
+ */
+public class LatencyHistogram {
+
+    // 子桶数量的位数，每个2的幂区间划分为2^(SUB_BUCKET_BITS-1)个子桶
+    private static final int SUB_BUCKET_BITS = 7;
+
+    // 每个2的幂区间内的子桶数量
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+
+    // 可记录的最大值（纳秒），约18分钟
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    // 最大值对应的分段指数
+    private static final int MAX_EXPONENT = 63 - Long.numberOfLeadingZeros(MAX_VALUE) - (SUB_BUCKET_BITS - 1);
+
+    // 各桶的计数
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT + 2) * SUB_BUCKET_HALF);
+
+    // 记录的总次数
+    private final AtomicLong totalCount = new AtomicLong();
+
+    // 记录过的最大值
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * 记录一个数值
+     *
+     * @param value 数值，负数按0记录，超过上限按上限记录
+     */
+    public void record(long value) {
+        long v = Math.min(Math.max(value, 0L), MAX_VALUE);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.incrementAndGet();
+        long currentMax;
+        while (v > (currentMax = maxValue.get()) && !maxValue.compareAndSet(currentMax, v)) {
+            // 其他线程同时更新了最大值，重试
+        }
+    }
+
+    /**
+     * 获取记录的总次数
+     *
+     * @return 总次数
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 获取记录过的最大值
+     *
+     * @return 最大值
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * 获取指定百分位的数值
+     * 返回的是该百分位所在桶的上界，与HdrHistogram的highestEquivalentValue一致
+     *
+     * @param percentile 百分位，取值范围(0, 100]
+     * @return 该百分位对应的数值，没有任何记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * 计算数值所在桶的下标
+     *
+     * @param value 非负数值
+     * @return 桶下标
+     */
+    private static int indexOf(long value) {
+        if (value < 2L * SUB_BUCKET_HALF) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return exponent * SUB_BUCKET_HALF + (int) (value >>> exponent);
+    }
+
+    /**
+     * 计算桶内可表示的最大数值
+     *
+     * @param index 桶下标
+     * @return 桶的上界
+     */
+    private static long highestValueAt(int index) {
+        if (index < 2 * SUB_BUCKET_HALF) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index - (long) exponent * SUB_BUCKET_HALF;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,262 @@
+package com.learn.aegis.concurrent;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁的有界多生产者多消费者环形缓冲区
+ * 采用Dmitry Vyukov的有界MPMC队列算法：每个槽位带有一个序号，生产者和消费者各自通过CAS推进写序号和读序号，
+ * 再根据槽位序号判断槽位是否可写或可读，整个过程不加锁。
+ * 写序号和读序号存放在同一个AtomicLongArray中并相隔128字节，避免生产者与消费者之间的伪共享。
+ * 阻塞操作（put、take及带超时的offer、poll）通过自旋加逐步延长的park实现。
+ * 迭代器只提供弱一致的快照，不支持remove操作。
+ *
+ * @param <E> 队列元素类型
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    // 读写序号之间的间隔（以long为单位），16个long即128字节
+    private static final int PADDING = 16;
+
+    // 写序号在counters中的下标
+    private static final int TAIL = PADDING;
+
+    // 读序号在counters中的下标
+    private static final int HEAD = PADDING * 2;
+
+    // 阻塞操作在park之前的自旋次数
+    private static final int SPIN_TRIES = 64;
+
+    // 阻塞操作park的最长时间（纳秒）
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 读写序号
+    private final AtomicLongArray counters = new AtomicLongArray(PADDING * 3);
+
+    // 每个槽位的序号，用于判断槽位是否可写或可读
+    private final AtomicLongArray sequences;
+
+    // 存放元素的槽位，槽位的可见性由sequences的volatile读写保证
+    private final Object[] buffer;
+
+    // 容量减一，用于快速取模
+    private final int mask;
+
+    /**
+     * 构造方法
+     *
+     * @param capacity 期望容量，会向上取整为2的幂
+     * @throws IllegalArgumentException 如果容量不大于0
+     */
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 获取实际容量
+     *
+     * @return 实际容量（2的幂）
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long pos = counters.get(TAIL);
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                // 槽位可写，尝试占有该写序号
+                if (counters.compareAndSet(TAIL, pos, pos + 1)) {
+                    buffer[index] = e;
+                    // 发布元素：更新槽位序号，消费者读到该序号后即可看到元素
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = counters.get(TAIL);
+            } else if (diff < 0) {
+                // 槽位中的上一轮元素还未被消费，队列已满
+                return false;
+            } else {
+                // 其他生产者已经占有该序号，重新读取写序号
+                pos = counters.get(TAIL);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = counters.get(HEAD);
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                // 槽位可读，尝试占有该读序号
+                if (counters.compareAndSet(HEAD, pos, pos + 1)) {
+                    E e = (E) buffer[index];
+                    buffer[index] = null;
+                    // 释放槽位给下一轮的生产者
+                    sequences.set(index, pos + mask + 1);
+                    return e;
+                }
+                pos = counters.get(HEAD);
+            } else if (diff < 0) {
+                // 槽位还没有被写入，队列为空
+                return null;
+            } else {
+                pos = counters.get(HEAD);
+            }
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        int idle = 0;
+        while (!offer(e)) {
+            idle = backOff(idle);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idle = 0;
+        while (!offer(e)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            idle = backOff(idle);
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        int idle = 0;
+        E e;
+        while ((e = poll()) == null) {
+            idle = backOff(idle);
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idle = 0;
+        E e;
+        while ((e = poll()) == null) {
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            idle = backOff(idle);
+        }
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long pos = counters.get(HEAD);
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        // 并发消费时读到的元素可能已经被取走，仅作参考
+        return (E) buffer[index];
+    }
+
+    @Override
+    public int size() {
+        // 先读读序号再读写序号，保证结果不为负
+        long head = counters.get(HEAD);
+        long tail = counters.get(TAIL);
+        return (int) Math.max(0L, Math.min(tail - head, capacity()));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return counters.get(TAIL) == counters.get(HEAD);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 返回弱一致的快照迭代器，不支持remove
+     *
+     * @return 迭代器
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        long head = counters.get(HEAD);
+        long tail = counters.get(TAIL);
+        for (long pos = head; pos < tail; pos++) {
+            int index = (int) (pos & mask);
+            Object e = buffer[index];
+            if (sequences.get(index) == pos + 1 && e != null) {
+                snapshot.add((E) e);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * 阻塞操作失败后的退避：先自旋，再逐步延长park时间
+     *
+     * @param idle 已连续失败的次数
+     * @return 新的失败次数
+     * @throws InterruptedException 如果线程被中断
+     */
+    private static int backOff(int idle) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1_000L << Math.min(10, idle - SPIN_TRIES)));
+        }
+        return idle + 1;
+    }
+}
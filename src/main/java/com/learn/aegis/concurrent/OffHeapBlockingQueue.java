@@ -0,0 +1,241 @@
+package com.learn.aegis.concurrent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 消息存放在堆外字节环形缓冲区中的有界阻塞队列
+ * 字符串入队时按UTF-8编码写入OffHeapByteRing，出队时再解码，队列中积压的消息不占用堆内存；
+ * 同时提供按字节读写的方法，调用方可以直接写入和取出消息的字节，不经过字符串的编码和解码。
+ * 容量以字节计算，能容纳的消息数取决于消息的长度。
+ * 阻塞操作（put、take及带超时的offer、poll）通过自旋加逐步延长的park实现。
+ * 迭代器只提供弱一致的快照，不支持remove操作。
+ */
+public class OffHeapBlockingQueue extends AbstractQueue<String> implements BlockingQueue<String> {
+
+    // 最短记录的字节数（4字节长度头加对齐后的内容），用于估算剩余容量
+    private static final int MIN_RECORD_BYTES = 8;
+
+    // 阻塞操作在park之前的自旋次数
+    private static final int SPIN_TRIES = 64;
+
+    // 阻塞操作park的最长时间（纳秒）
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 存放消息的堆外环形缓冲区
+    private final OffHeapByteRing ring;
+
+    /**
+     * 构造方法
+     *
+     * @param capacityBytes 缓冲区字节数，会向上取整为2的幂
+     * @throws IllegalArgumentException 如果容量不为正数或超过1GB
+     */
+    public OffHeapBlockingQueue(int capacityBytes) {
+        this.ring = new OffHeapByteRing(capacityBytes);
+    }
+
+    /**
+     * 获取缓冲区的字节数
+     *
+     * @return 缓冲区字节数
+     */
+    public int capacityBytes() {
+        return ring.capacity();
+    }
+
+    /**
+     * 写入一条消息的字节，不会阻塞
+     *
+     * @param payload 消息内容，复制position到limit之间的字节，不改变position
+     * @return 写入成功返回true，剩余空间不足时返回false
+     * @throws IllegalArgumentException 如果消息超过单条记录的最大字节数
+     */
+    public boolean offerBytes(ByteBuffer payload) {
+        return ring.offer(payload);
+    }
+
+    /**
+     * 写入一条消息的字节，剩余空间不足时阻塞等待
+     *
+     * @param payload 消息内容，复制position到limit之间的字节，不改变position
+     * @throws InterruptedException 如果等待时线程被中断
+     * @throws IllegalArgumentException 如果消息超过单条记录的最大字节数
+     */
+    public void putBytes(ByteBuffer payload) throws InterruptedException {
+        int idle = 0;
+        while (!ring.offer(payload)) {
+            idle = backOff(idle);
+        }
+    }
+
+    /**
+     * 写入一条消息的字节，必要时等待可用空间
+     *
+     * @param payload 消息内容，复制position到limit之间的字节，不改变position
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 写入成功返回true，超时返回false
+     * @throws InterruptedException 如果等待时线程被中断
+     * @throws IllegalArgumentException 如果消息超过单条记录的最大字节数
+     */
+    public boolean offerBytes(ByteBuffer payload, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idle = 0;
+        while (!ring.offer(payload)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            idle = backOff(idle);
+        }
+        return true;
+    }
+
+    /**
+     * 取出一条消息的字节，必要时等待
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 消息内容，超时返回null
+     * @throws InterruptedException 如果等待时线程被中断
+     */
+    public byte[] pollBytes(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idle = 0;
+        byte[] payload;
+        while ((payload = ring.poll()) == null) {
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            idle = backOff(idle);
+        }
+        return payload;
+    }
+
+    /**
+     * 取出一条消息的字节并复制到调用方提供的缓冲区中，不分配任何对象，不会阻塞
+     *
+     * @param target 目标缓冲区，从position开始写入并推进position
+     * @return 消息的字节数，队列为空时返回-1
+     * @throws IllegalArgumentException 如果目标缓冲区放不下下一条消息
+     */
+    public int pollBytes(ByteBuffer target) {
+        return ring.poll(target);
+    }
+
+    @Override
+    public boolean offer(String e) {
+        return ring.offer(ByteBuffer.wrap(e.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public String poll() {
+        return decode(ring.poll());
+    }
+
+    @Override
+    public void put(String e) throws InterruptedException {
+        putBytes(ByteBuffer.wrap(e.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public boolean offer(String e, long timeout, TimeUnit unit) throws InterruptedException {
+        return offerBytes(ByteBuffer.wrap(e.getBytes(StandardCharsets.UTF_8)), timeout, unit);
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        int idle = 0;
+        byte[] payload;
+        while ((payload = ring.poll()) == null) {
+            idle = backOff(idle);
+        }
+        return decode(payload);
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return decode(pollBytes(timeout, unit));
+    }
+
+    @Override
+    public String peek() {
+        return decode(ring.peek());
+    }
+
+    @Override
+    public int size() {
+        return ring.size();
+    }
+
+    /**
+     * 按最短记录估算还能写入的消息数
+     *
+     * @return 估算的剩余容量
+     */
+    @Override
+    public int remainingCapacity() {
+        return ring.remainingBytes() / MIN_RECORD_BYTES;
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        String e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 返回弱一致的快照迭代器，不支持remove
+     *
+     * @return 迭代器
+     */
+    @Override
+    public Iterator<String> iterator() {
+        List<String> snapshot = new ArrayList<>();
+        for (byte[] payload : ring.snapshot()) {
+            snapshot.add(decode(payload));
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private static String decode(byte[] payload) {
+        return payload == null ? null : new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 阻塞操作失败后的退避：先自旋，再逐步延长park时间
+     *
+     * @param idle 已连续失败的次数
+     * @return 新的失败次数
+     * @throws InterruptedException 如果线程被中断
+     */
+    private static int backOff(int idle) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1_000L << Math.min(10, idle - SPIN_TRIES)));
+        }
+        return idle + 1;
+    }
+}
@@ -0,0 +1,294 @@
+package com.learn.aegis.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外的多生产者字节环形缓冲区
+ * 消息以“长度头+内容”的记录形式存放在预先分配的直接内存ByteBuffer中，不在堆上保留任何对象，
+ * 大量或较大的消息积压时不会增加垃圾回收需要扫描和复制的堆内存。
+ * 生产者通过CAS推进写位置来认领一段连续空间，写入内容后以release语义写入长度头发布记录，整个过程不加锁；
+ * 记录放不下缓冲区末尾的剩余空间时，先写入一条填充记录再从开头认领。
+ * 消费者持有一把消费锁，以acquire语义读取长度头，长度头为0表示下一条记录尚未发布；
+ * 读取后把这段空间清零再推进读位置，生产者据此判断剩余空间。
+ * 记录按4字节对齐，长度头为正数时表示头和内容的总字节数，为负数时表示填充的字节数。
+ * 单条记录最多占缓冲区的一半：填充总是短于紧随其后的记录，两者之和不超过容量，缓冲区清空后任何合法记录都一定能写入。
+ */
+public class OffHeapByteRing {
+
+    // 长度头的字节数
+    private static final int HEADER = Integer.BYTES;
+
+    // 记录对齐的字节数，保证长度头可以原子读写
+    private static final int ALIGNMENT = Integer.BYTES;
+
+    // 以int视图原子读写直接内存中的长度头
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    // 用于清零已读取空间的全零数组
+    private static final byte[] ZEROS = new byte[4096];
+
+    // 存放记录的直接内存
+    private final ByteBuffer buffer;
+
+    // 缓冲区容量减一，用于快速取模
+    private final int mask;
+
+    // 已被生产者认领的字节位置，单调递增
+    private final AtomicLong claimPosition = new AtomicLong();
+
+    // 消费者已读取并清零的字节位置，单调递增，只在持有消费锁时写入
+    private volatile long consumerPosition;
+
+    // 已发布尚未读取的记录数
+    private final AtomicInteger count = new AtomicInteger();
+
+    // 消费锁，同一时刻只有一个线程读取记录
+    private final ReentrantLock consumerLock = new ReentrantLock();
+
+    /**
+     * 构造方法
+     *
+     * @param capacityBytes 期望的缓冲区字节数，会向上取整为2的幂，至少为64
+     * @throws IllegalArgumentException 如果容量不为正数或超过1GB
+     */
+    public OffHeapByteRing(int capacityBytes) {
+        if (capacityBytes <= 0 || capacityBytes > (1 << 30)) {
+            throw new IllegalArgumentException("Ring capacity must be between 1 byte and 1 GB: " + capacityBytes);
+        }
+        int size = Math.max(64, Integer.highestOneBit(capacityBytes - 1) << 1);
+        this.buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        this.mask = size - 1;
+    }
+
+    /**
+     * 获取缓冲区的字节数
+     *
+     * @return 缓冲区字节数
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 获取单条记录内容的最大字节数，即缓冲区的一半减去长度头
+     * 更长的记录在写位置不为0时加上填充会超过容量，永远无法写入
+     *
+     * @return 最大字节数
+     */
+    public int maxPayloadLength() {
+        return capacity() / 2 - HEADER;
+    }
+
+    /**
+     * 写入一条记录，不会阻塞
+     * 复制payload从position到limit之间的内容，不改变payload的position
+     *
+     * @param payload 记录内容
+     * @return 写入成功返回true，剩余空间不足时返回false
+     * @throws IllegalArgumentException 如果内容超过单条记录的最大字节数
+     */
+    public boolean offer(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length > maxPayloadLength()) {
+            throw new IllegalArgumentException("Payload of " + length + " bytes exceeds the ring limit of " + maxPayloadLength());
+        }
+        int recordLength = align(HEADER + length);
+        int capacity = capacity();
+        while (true) {
+            long claim = claimPosition.get();
+            int offset = (int) (claim & mask);
+            // 末尾放不下整条记录时用填充记录占满末尾，记录从缓冲区开头写入
+            int padding = recordLength > capacity - offset ? capacity - offset : 0;
+            long next = claim + padding + recordLength;
+            if (next - consumerPosition > capacity) {
+                return false;
+            }
+            if (claimPosition.compareAndSet(claim, next)) {
+                if (padding > 0) {
+                    INT_VIEW.setRelease(buffer, offset, -padding);
+                    offset = 0;
+                }
+                buffer.put(offset + HEADER, payload, payload.position(), length);
+                // 内容写完后才发布长度头，消费者读到长度头时一定能看到完整的内容
+                INT_VIEW.setRelease(buffer, offset, HEADER + length);
+                count.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 读取一条记录并复制到新的字节数组中，不会阻塞
+     *
+     * @return 记录内容，没有已发布的记录时返回null
+     */
+    public byte[] poll() {
+        consumerLock.lock();
+        try {
+            int offset = nextRecordOffset();
+            if (offset < 0) {
+                return null;
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            byte[] payload = new byte[header - HEADER];
+            buffer.get(offset + HEADER, payload);
+            release(offset, header);
+            return payload;
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * 读取一条记录并复制到调用方提供的缓冲区中，不分配任何对象，不会阻塞
+     *
+     * @param target 目标缓冲区，从position开始写入并推进position
+     * @return 记录内容的字节数，没有已发布的记录时返回-1
+     * @throws IllegalArgumentException 如果目标缓冲区的剩余空间放不下下一条记录，此时记录保留在缓冲区中
+     */
+    public int poll(ByteBuffer target) {
+        consumerLock.lock();
+        try {
+            int offset = nextRecordOffset();
+            if (offset < 0) {
+                return -1;
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            int length = header - HEADER;
+            if (length > target.remaining()) {
+                throw new IllegalArgumentException("Target buffer has " + target.remaining() + " bytes, record needs " + length);
+            }
+            target.put(target.position(), buffer, offset + HEADER, length);
+            target.position(target.position() + length);
+            release(offset, header);
+            return length;
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * 复制下一条记录的内容但不读取它
+     *
+     * @return 记录内容，没有已发布的记录时返回null
+     */
+    public byte[] peek() {
+        consumerLock.lock();
+        try {
+            int offset = nextRecordOffset();
+            if (offset < 0) {
+                return null;
+            }
+            int header = (int) INT_VIEW.getAcquire(buffer, offset);
+            byte[] payload = new byte[header - HEADER];
+            buffer.get(offset + HEADER, payload);
+            return payload;
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * 复制所有已发布且尚未读取的记录，不读取它们
+     *
+     * @return 按写入顺序排列的记录内容
+     */
+    public List<byte[]> snapshot() {
+        List<byte[]> records = new ArrayList<>();
+        consumerLock.lock();
+        try {
+            long position = consumerPosition;
+            long claim = claimPosition.get();
+            while (position < claim) {
+                int offset = (int) (position & mask);
+                int header = (int) INT_VIEW.getAcquire(buffer, offset);
+                if (header == 0) {
+                    break;
+                }
+                if (header > 0) {
+                    byte[] payload = new byte[header - HEADER];
+                    buffer.get(offset + HEADER, payload);
+                    records.add(payload);
+                    position += align(header);
+                } else {
+                    position -= header;
+                }
+            }
+        } finally {
+            consumerLock.unlock();
+        }
+        return records;
+    }
+
+    /**
+     * 获取已发布尚未读取的记录数
+     *
+     * @return 记录数
+     */
+    public int size() {
+        return Math.max(0, count.get());
+    }
+
+    /**
+     * 获取剩余的字节数，包括生产者已认领但尚未发布的空间之外的全部空闲空间
+     *
+     * @return 剩余字节数
+     */
+    public int remainingBytes() {
+        long consumed = consumerPosition;
+        return (int) Math.max(0L, capacity() - (claimPosition.get() - consumed));
+    }
+
+    /**
+     * 跳过读位置处的填充记录，返回下一条已发布记录的偏移量，调用方必须持有消费锁
+     *
+     * @return 记录的偏移量，下一条记录尚未发布时返回-1
+     */
+    private int nextRecordOffset() {
+        int offset = (int) (consumerPosition & mask);
+        int header = (int) INT_VIEW.getAcquire(buffer, offset);
+        if (header < 0) {
+            clear(offset, -header);
+            consumerPosition = consumerPosition - header;
+            offset = 0;
+            header = (int) INT_VIEW.getAcquire(buffer, offset);
+        }
+        return header == 0 ? -1 : offset;
+    }
+
+    /**
+     * 清零已读取的记录并推进读位置，调用方必须持有消费锁
+     */
+    private void release(int offset, int header) {
+        int recordLength = align(header);
+        clear(offset, recordLength);
+        count.decrementAndGet();
+        // volatile写保证生产者看到推进后的读位置时，这段空间已经清零
+        consumerPosition = consumerPosition + recordLength;
+    }
+
+    /**
+     * 把一段空间清零，长度头最后清零
+     */
+    private void clear(int offset, int length) {
+        for (int cleared = HEADER; cleared < length; cleared += ZEROS.length) {
+            buffer.put(offset + cleared, ZEROS, 0, Math.min(ZEROS.length, length - cleared));
+        }
+        INT_VIEW.setRelease(buffer, offset, 0);
+    }
+
+    /**
+     * 按4字节向上对齐
+     */
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
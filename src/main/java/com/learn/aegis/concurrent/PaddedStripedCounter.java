@@ -0,0 +1,81 @@
+package com.learn.aegis.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按处理器数量分片、并做缓存行填充的计数器
+ * 每个线程根据线程ID散列到一个计数单元上做CAS累加，读取时汇总所有单元。
+ * 单元之间在AtomicLongArray中相隔PADDING个long（128字节），保证不同单元不会落在同一缓存行或相邻预取行上，避免伪共享。
+ */
+public class PaddedStripedCounter {
+
+    // 相邻计数单元之间的间隔（以long为单位），16个long即128字节
+    private static final int PADDING = 16;
+
+    // 计数单元数组，只有下标为PADDING整数倍的位置被使用
+    private final AtomicLongArray cells;
+
+    // 计数单元数量减一，单元数量为2的幂，用于快速取模
+    private final int mask;
+
+    /**
+     * 构造方法，计数单元数量取不小于可用处理器数的最小2的幂
+     */
+    public PaddedStripedCounter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param stripes 期望的计数单元数量，会向上取整为2的幂
+     */
+    public PaddedStripedCounter(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.mask = size - 1;
+        // 首尾各多留出一段填充，避免与数组头或相邻对象共享缓存行
+        this.cells = new AtomicLongArray((size + 1) * PADDING);
+    }
+
+    /**
+     * 当前线程对应的计数单元加一
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * 当前线程对应的计数单元加上指定值
+     *
+     * @param delta 增量
+     */
+    public void add(long delta) {
+        cells.getAndAdd(indexOf(Thread.currentThread().getId()), delta);
+    }
+
+    /**
+     * 汇总所有计数单元
+     * 并发更新时返回的值不是一个原子快照，但在没有并发更新时是精确值
+     *
+     * @return 计数总和
+     */
+    public long sum() {
+        long sum = 0L;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get((i + 1) * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * 计算线程对应的计数单元在数组中的下标
+     *
+     * @param threadId 线程ID
+     * @return 数组下标
+     */
+    private int indexOf(long threadId) {
+        // 使用黄金分割常数打散连续的线程ID
+        int hash = (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32);
+        return ((hash & mask) + 1) * PADDING;
+    }
+}
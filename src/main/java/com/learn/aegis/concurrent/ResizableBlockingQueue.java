@@ -0,0 +1,342 @@
+package com.learn.aegis.concurrent;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 容量可在运行时调整的有界阻塞队列
+ * JDK自带的有界队列容量在构造后不可修改，ThreadPoolTaskExecutor调整队列容量时只能重新创建线程池，
+ * 本队列允许在不替换线程池的前提下原子地修改容量：
+ * 扩容后立即唤醒等待空间的生产者；缩容时已在队列中的元素全部保留，只是在元素数量降到新容量以下之前拒绝新的入队。
+ *
+ * @param <E> 队列元素类型
+ */
+public class ResizableBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    // 保护队列所有状态的锁
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 队列非空条件，消费者在此等待
+    private final Condition notEmpty = lock.newCondition();
+
+    // 队列未满条件，生产者在此等待
+    private final Condition notFull = lock.newCondition();
+
+    // 存放元素的双端队列
+    private final ArrayDeque<E> items = new ArrayDeque<>();
+
+    // 队列容量，只在持有锁时修改，volatile保证remainingCapacity等无锁读取的可见性
+    private volatile int capacity;
+
+    /**
+     * 构造方法
+     *
+     * @param capacity 初始容量
+     * @throws IllegalArgumentException 如果容量不大于0
+     */
+    public ResizableBlockingQueue(int capacity) {
+        checkCapacity(capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * 获取当前容量
+     *
+     * @return 当前容量
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 原子地修改队列容量
+     *
+     * @param newCapacity 新容量
+     * @throws IllegalArgumentException 如果容量不大于0
+     */
+    public void setCapacity(int newCapacity) {
+        checkCapacity(newCapacity);
+        lock.lock();
+        try {
+            int oldCapacity = capacity;
+            capacity = newCapacity;
+            // 扩容后唤醒所有等待空间的生产者
+            if (newCapacity > oldCapacity) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        lock.lock();
+        try {
+            if (items.size() >= capacity) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (items.size() >= capacity) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        lock.lockInterruptibly();
+        try {
+            while (items.size() >= capacity) {
+                notFull.await();
+            }
+            enqueue(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (items.isEmpty()) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (items.isEmpty()) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return items.isEmpty() ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        lock.lock();
+        try {
+            return items.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return items.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return Math.max(0, capacity - items.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            boolean removed = items.removeFirstOccurrence(o);
+            if (removed) {
+                notFull.signal();
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return items.contains(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            items.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        lock.lock();
+        try {
+            return items.toArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        lock.lock();
+        try {
+            return items.toArray(a);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && !items.isEmpty()) {
+                c.add(items.pollFirst());
+                n++;
+            }
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 返回基于当前元素快照的迭代器
+     * 迭代器的remove操作会从队列中移除对应元素，ThreadPoolExecutor的purge和remove依赖这一行为
+     *
+     * @return 迭代器
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Object[] snapshot = toArray();
+        return new Iterator<>() {
+            private int cursor;
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < snapshot.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (cursor >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor;
+                return (E) snapshot[cursor++];
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                ResizableBlockingQueue.this.remove(snapshot[lastReturned]);
+                lastReturned = -1;
+            }
+        };
+    }
+
+    /**
+     * 入队并唤醒一个消费者，调用方必须持有锁
+     */
+    private void enqueue(E e) {
+        items.addLast(e);
+        notEmpty.signal();
+    }
+
+    /**
+     * 出队并唤醒一个生产者，调用方必须持有锁
+     */
+    private E dequeue() {
+        E e = items.pollFirst();
+        notFull.signal();
+        return e;
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+    }
+}
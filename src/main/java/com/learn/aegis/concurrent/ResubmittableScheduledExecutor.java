@@ -0,0 +1,111 @@
+package com.learn.aegis.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * shutdownNow后可以把未执行的任务交给其他线程池的定时调度线程池
+ * ScheduledThreadPoolExecutor.shutdownNow返回的是绑定在原线程池上的ScheduledFutureTask，
+ * 它运行前会检查原线程池的运行状态，原线程池已停止时直接取消自己，提交到新线程池后也不会执行。
+ * 这里在任务进入延迟队列时记住提交的原始Runnable，shutdownNowForResubmission返回这些原始任务。
+ */
+public class ResubmittableScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+    /**
+     * 构造方法
+     *
+     * @param corePoolSize 核心线程数
+     */
+    public ResubmittableScheduledExecutor(int corePoolSize) {
+        super(corePoolSize);
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        return new SourceTrackingTask<>(runnable, task);
+    }
+
+    /**
+     * 立即关闭线程池，返回尚未执行的原始任务
+     * 周期性任务和以Callable提交的任务无法脱离原来的Future重新提交，不包含在结果中；
+     * 一次性的延迟任务失去剩余的延迟，重新提交后立即执行
+     *
+     * @return 可以提交到其他线程池的原始任务
+     */
+    public List<Runnable> shutdownNowForResubmission() {
+        List<Runnable> pending = shutdownNow();
+        List<Runnable> sources = new ArrayList<>(pending.size());
+        for (Runnable task : pending) {
+            if (task instanceof SourceTrackingTask<?> tracked && !tracked.isPeriodic()) {
+                sources.add(tracked.source);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 记住原始任务的ScheduledFuture，其余行为全部委托给线程池创建的任务
+     */
+    private static final class SourceTrackingTask<V> implements RunnableScheduledFuture<V> {
+
+        // 提交到线程池的原始任务
+        private final Runnable source;
+
+        // 线程池创建的ScheduledFutureTask
+        private final RunnableScheduledFuture<V> delegate;
+
+        private SourceTrackingTask(Runnable source, RunnableScheduledFuture<V> delegate) {
+            this.source = source;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return delegate.isPeriodic();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return delegate.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof SourceTrackingTask<?> tracked) {
+                return delegate.compareTo(tracked.delegate);
+            }
+            return delegate.compareTo(other);
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return delegate.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return delegate.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return delegate.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            return delegate.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.learn.aegis.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 因容量饱和而拒绝任务时抛出的异常
+ * 队列已满、配额用完或超出速率属于暂时的过载，调用方稍后重试可能成功；
+ * 直接抛出RejectedExecutionException表示线程池已关闭等不可用的情况，重试不会成功。
+ */
+public class SaturationRejectedException extends RejectedExecutionException {
+
+    /**
+     * 构造方法
+     *
+     * @param message 拒绝原因
+     */
+    public SaturationRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * 判断异常或它的任意一层原因是否为饱和拒绝
+     * Spring的ThreadPoolTaskExecutor会把拒绝策略抛出的异常包装为TaskRejectedException，需要沿原因链查找
+     *
+     * @param e 异常
+     * @return 是饱和拒绝时返回true
+     */
+    public static boolean isSaturation(Throwable e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (current instanceof SaturationRejectedException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+}
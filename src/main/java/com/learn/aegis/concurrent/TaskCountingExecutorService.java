@@ -0,0 +1,99 @@
+package com.learn.aegis.concurrent;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计任务数量的执行器包装类
+ * 每个任务一个线程的执行器（如虚拟线程执行器）不是ThreadPoolExecutor，没有线程数和已完成任务数等指标，
+ * 本类在任务开始和结束时计数，提供已开始、正在运行和已完成的任务数。
+ */
+public class TaskCountingExecutorService extends AbstractExecutorService {
+
+    // 被包装的执行器
+    private final ExecutorService delegate;
+
+    // 已开始执行的任务数
+    private final LongAdder startedTasks = new LongAdder();
+
+    // 已执行完成的任务数（包括异常结束的任务）
+    private final LongAdder completedTasks = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param delegate 被包装的执行器
+     */
+    public TaskCountingExecutorService(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 获取已开始执行的任务数
+     *
+     * @return 已开始执行的任务数
+     */
+    public long getStartedTaskCount() {
+        return startedTasks.sum();
+    }
+
+    /**
+     * 获取已执行完成的任务数
+     *
+     * @return 已执行完成的任务数
+     */
+    public long getCompletedTaskCount() {
+        return completedTasks.sum();
+    }
+
+    /**
+     * 获取正在运行的任务数
+     * 两个计数器分别读取，并发时结果为近似值
+     *
+     * @return 正在运行的任务数
+     */
+    public long getLiveTaskCount() {
+        long completed = completedTasks.sum();
+        return Math.max(0L, startedTasks.sum() - completed);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> {
+            startedTasks.increment();
+            try {
+                command.run();
+            } finally {
+                completedTasks.increment();
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
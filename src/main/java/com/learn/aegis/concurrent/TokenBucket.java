@@ -0,0 +1,58 @@
+package com.learn.aegis.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁的令牌桶限流器
+ * 以通用信元速率算法（GCRA）实现：只保存下一个令牌的理论到达时间，
+ * 每次获取令牌时用一次CAS把它向后推进一个令牌间隔，推进后超出突发容量则拒绝。
+ * 与按时间补充令牌的实现等价，但不需要定时任务，也不需要加锁。
+ */
+public class TokenBucket {
+
+    // 每个令牌的生成间隔（纳秒）
+    private final long intervalNanos;
+
+    // 允许预支的最长时间（纳秒），等于突发容量乘以令牌间隔
+    private final long burstNanos;
+
+    // 下一个令牌的理论到达时间（System.nanoTime）
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * 构造方法，令牌桶初始为满
+     *
+     * @param permitsPerSecond 每秒生成的令牌数
+     * @param burst 突发容量，即令牌桶最多能积攒的令牌数
+     * @throws IllegalArgumentException 如果速率或突发容量不为正数
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * 尝试获取一个令牌，不会阻塞
+     *
+     * @return 获取成功返回true，令牌桶为空返回false
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            // 令牌桶已满时理论到达时间不早于now减去突发容量，多余的空闲时间不能积攒
+            long next = Math.max(arrival, now - burstNanos) + intervalNanos;
+            if (next - now > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.learn.aegis.config;
+
+import com.learn.aegis.broker.TopicBroker;
+import com.learn.aegis.concurrent.MpmcArrayBlockingQueue;
+import com.learn.aegis.concurrent.OffHeapBlockingQueue;
+import com.learn.aegis.constant.ChannelBackend;
+import com.learn.aegis.stream.StreamingChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+
+/**
+ * 通信通道配置类
+ * 根据application.properties中的配置创建CommunicationService使用的消息队列
+ */
+@Slf4j
+@Configuration
+public class CommunicationChannelConfig {
+
+    // OFF_HEAP类型默认的缓冲区字节数
+    public static final int DEFAULT_OFF_HEAP_BYTES = 1 << 20;
+
+    /**
+     * 配置并创建通信通道使用的消息队列
+     *
+     * @param backend 后端队列类型，对应配置项communication.channel.backend，默认为ARRAY
+     * @param capacity 队列容量，对应配置项communication.channel.capacity，默认为10
+     * @param offHeapBytes OFF_HEAP类型的缓冲区字节数，对应配置项communication.channel.off-heap-bytes，默认为1MB
+     * @return 消息队列实例
+     */
+    @Bean
+    public BlockingQueue<String> communicationQueue(@Value("${communication.channel.backend:ARRAY}") ChannelBackend backend,
+                                                    @Value("${communication.channel.capacity:10}") int capacity,
+                                                    @Value("${communication.channel.off-heap-bytes:1048576}") int offHeapBytes) {
+        log.info("Communication channel backend: {}, capacity: {}", backend.getDescription(),
+                backend == ChannelBackend.OFF_HEAP ? offHeapBytes + " bytes" : capacity);
+        return createQueue(backend, capacity, offHeapBytes);
+    }
+
+    /**
+     * 配置并创建按订阅者需求推送消息的流式通道
+     *
+     * @param bufferCapacity 每个订阅者的缓冲区容量，对应配置项communication.stream.buffer-capacity，默认为256
+     * @return 流式通道实例
+     */
+    @Bean(destroyMethod = "close")
+    public StreamingChannel streamingChannel(@Value("${communication.stream.buffer-capacity:256}") int bufferCapacity) {
+        return new StreamingChannel(bufferCapacity);
+    }
+
+    /**
+     * 配置并创建按主题和分区组织的消息代理
+     *
+     * @param defaultPartitions 自动创建主题时的分区数，对应配置项communication.topic.default-partitions，默认为4
+     * @param partitionCapacity 每个分区最多保留的消息数，对应配置项communication.topic.partition-capacity，默认为1024
+     * @param groupRetentionMillis 消费组没有成员拉取后保留的时长（毫秒），对应配置项communication.topic.group-retention-millis，默认为10分钟
+     * @param maxTopics 最多允许的主题数量，对应配置项communication.topic.max-topics，默认为1000
+     * @return 消息代理实例
+     */
+    @Bean
+    public TopicBroker topicBroker(@Value("${communication.topic.default-partitions:4}") int defaultPartitions,
+                                   @Value("${communication.topic.partition-capacity:1024}") int partitionCapacity,
+                                   @Value("${communication.topic.group-retention-millis:600000}") long groupRetentionMillis,
+                                   @Value("${communication.topic.max-topics:1000}") int maxTopics) {
+        return new TopicBroker(defaultPartitions, partitionCapacity, groupRetentionMillis, maxTopics);
+    }
+
+    /**
+     * 按照后端类型创建消息队列，OFF_HEAP类型使用默认的1MB缓冲区
+     *
+     * @param backend 后端队列类型
+     * @param capacity 队列容量，TRANSFER和OFF_HEAP类型忽略该参数
+     * @param <E> 队列元素类型
+     * @return 消息队列实例
+     */
+    public static <E> BlockingQueue<E> createQueue(ChannelBackend backend, int capacity) {
+        return createQueue(backend, capacity, DEFAULT_OFF_HEAP_BYTES);
+    }
+
+    /**
+     * 按照后端类型创建消息队列
+     *
+     * @param backend 后端队列类型
+     * @param capacity 队列容量，TRANSFER和OFF_HEAP类型忽略该参数
+     * @param offHeapBytes OFF_HEAP类型的缓冲区字节数，其他类型忽略该参数
+     * @param <E> 队列元素类型，OFF_HEAP类型只能存放字符串
+     * @return 消息队列实例
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> BlockingQueue<E> createQueue(ChannelBackend backend, int capacity, int offHeapBytes) {
+        switch (backend) {
+            case ARRAY:
+                // 入队出队共用一把锁的数组队列
+                return new ArrayBlockingQueue<>(capacity);
+            case LINKED:
+                // 入队出队分离锁的链表队列
+                return new LinkedBlockingQueue<>(capacity);
+            case TRANSFER:
+                // 无锁的无界传输队列
+                return new LinkedTransferQueue<>();
+            case RING:
+                // 无锁的有界MPMC环形缓冲区
+                return new MpmcArrayBlockingQueue<>(capacity);
+            case OFF_HEAP:
+                // 消息编码为字节存放在堆外直接内存中
+                return (BlockingQueue<E>) new OffHeapBlockingQueue(offHeapBytes);
+            default:
+                throw new IllegalArgumentException("Unsupported channel backend: " + backend);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.learn.aegis.config;
+
+import com.learn.aegis.journal.TaskJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 预写日志配置类
+ * 开启后线程池提交的任务描述和通信通道中的消息会先写入日志，重启时恢复未完成的条目
+ */
+@Slf4j
+@Configuration
+public class JournalConfig {
+
+    /**
+     * 配置并创建预写日志，未开启时返回不写文件的空实现
+     *
+     * @param enabled 是否开启，对应配置项journal.enabled，默认为false
+     * @param directory 段文件目录，对应配置项journal.directory
+     * @param segmentBytes 每个段文件的大小，对应配置项journal.segment-bytes
+     * @param fsyncIntervalMillis 批量刷盘的间隔（毫秒），0表示每次追加都刷盘，对应配置项journal.fsync-interval-millis
+     * @return 预写日志实例
+     * @throws IOException 如果打开日志目录失败
+     */
+    @Bean(destroyMethod = "close")
+    public TaskJournal taskJournal(@Value("${journal.enabled:false}") boolean enabled,
+                                   @Value("${journal.directory:journal}") String directory,
+                                   @Value("${journal.segment-bytes:16777216}") int segmentBytes,
+                                   @Value("${journal.fsync-interval-millis:10}") long fsyncIntervalMillis) throws IOException {
+        if (!enabled) {
+            return TaskJournal.disabled();
+        }
+        log.info("Task journal enabled at {}, segment size {} bytes, fsync interval {} ms", directory, segmentBytes, fsyncIntervalMillis);
+        return TaskJournal.open(Path.of(directory), segmentBytes, fsyncIntervalMillis);
+    }
+}
@@ -1,24 +1,50 @@
 package com.learn.aegis.config;
 
+import com.learn.aegis.concurrent.ResizableBlockingQueue;
+import com.learn.aegis.constant.RejectionPolicyType;
+import com.learn.aegis.metrics.ExecutorMetrics;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.threadpool.SwitchableRejectionHandler;
+import com.learn.aegis.threadpool.TenantBulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * 线程池配置类
  */
 @Configuration
 public class ThreadPoolConfig {
+
+    /**
+     * ThreadPoolTaskExecutor在指标中的线程池名称
+     */
+    public static final String TASK_EXECUTOR_POOL_NAME = "taskExecutor";
+
     /**
      * 配置并创建一个ThreadPoolTaskExecutor bean
      * 用于处理异步任务执行，提供线程池的配置属性
+     * 工作队列使用容量可调整的ResizableBlockingQueue，运行时修改队列容量无需重新创建线程池
+     * 任务的等待时间、执行时间、拒绝次数以及线程池状态指标通过Micrometer发布
      *
+     * @param executorMetricsRegistry 线程池指标注册中心
+     * @param rejectionHandler 可在运行时切换的拒绝策略
      * @return ThreadPoolTaskExecutor实例，配置好线程池属性后初始化
      */
     @Bean
-    public ThreadPoolTaskExecutor threadPoolTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    public ThreadPoolTaskExecutor threadPoolTaskExecutor(ExecutorMetricsRegistry executorMetricsRegistry,
+                                                         SwitchableRejectionHandler rejectionHandler) {
+        ExecutorMetrics metrics = executorMetricsRegistry.forPool(TASK_EXECUTOR_POOL_NAME);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+                // 使用容量可在运行时调整的队列替代默认的LinkedBlockingQueue
+                return new ResizableBlockingQueue<>(queueCapacity);
+            }
+        };
         // 设置核心线程池大小
         executor.setCorePoolSize(10);
         // 设置最大线程池大小
@@ -29,13 +55,55 @@ public class ThreadPoolConfig {
         executor.setThreadNamePrefix("CustomThreadPool-");
         // 设置线程存活时间（秒），当线程池大于核心线程池时，此参数表示空闲线程在终止前等待新任务的秒数
         executor.setKeepAliveSeconds(60);
-        // 设置拒绝执行任务的策略为调用者运行，即由调用线程自己执行该任务
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 设置拒绝执行任务的策略，具体策略由配置决定并可在运行时切换
+        executor.setRejectedExecutionHandler(metrics.countRejections(rejectionHandler));
+        // 设置任务装饰器，记录任务的队列等待时间和执行时间
+        executor.setTaskDecorator(metrics);
         // 设置线程池关闭时等待所有任务完成再关闭
         executor.setWaitForTasksToCompleteOnShutdown(true);
         // 初始化线程池
         executor.initialize();
+        // 注册线程池状态指标
+        executorMetricsRegistry.bindGauges(TASK_EXECUTOR_POOL_NAME, executor::getThreadPoolExecutor);
         return executor;
     }
-}
 
+    /**
+     * 配置并创建ThreadPoolTaskExecutor使用的拒绝策略
+     * 默认与原先一样由调用者执行，可配置为快速失败、丢弃最早任务、有限等待重试或溢出队列
+     *
+     * @param meterRegistry Micrometer指标注册表
+     * @param policy 初始的拒绝策略
+     * @param retryWaitMillis BOUNDED_WAIT_RETRY策略的最长等待时间（毫秒）
+     * @param spillCapacity SPILL_QUEUE策略的溢出队列容量
+     * @return SwitchableRejectionHandler实例
+     */
+    @Bean
+    public SwitchableRejectionHandler rejectionHandler(MeterRegistry meterRegistry,
+                                                       @Value("${threadpool.rejection.policy:CALLER_RUNS}") RejectionPolicyType policy,
+                                                       @Value("${threadpool.rejection.retry-wait-millis:100}") long retryWaitMillis,
+                                                       @Value("${threadpool.rejection.spill-capacity:200}") int spillCapacity) {
+        return new SwitchableRejectionHandler(TASK_EXECUTOR_POOL_NAME, meterRegistry, policy, retryWaitMillis, spillCapacity);
+    }
+
+    /**
+     * 配置并创建按租户隔离的舱壁层，任务最终提交到ThreadPoolTaskExecutor执行
+     * 同时提交到线程池的任务总数不超过核心线程数，线程池调整大小后自动跟随
+     *
+     * @param threadPoolTaskExecutor 底层线程池
+     * @param defaultConcurrency 新租户默认的并发上限
+     * @param defaultQueueQuota 新租户默认的排队配额
+     * @param defaultWeight 新租户默认的权重
+     * @param maxTenants 最多允许的租户数量
+     * @return TenantBulkhead实例
+     */
+    @Bean
+    public TenantBulkhead tenantBulkhead(ThreadPoolTaskExecutor threadPoolTaskExecutor,
+                                        @Value("${threadpool.bulkhead.default-concurrency:4}") int defaultConcurrency,
+                                        @Value("${threadpool.bulkhead.default-queue-quota:20}") int defaultQueueQuota,
+                                        @Value("${threadpool.bulkhead.default-weight:1}") int defaultWeight,
+                                        @Value("${threadpool.bulkhead.max-tenants:1000}") int maxTenants) {
+        return new TenantBulkhead(threadPoolTaskExecutor, threadPoolTaskExecutor::getCorePoolSize,
+                defaultConcurrency, defaultQueueQuota, defaultWeight, maxTenants);
+    }
+}
@@ -0,0 +1,41 @@
+package com.learn.aegis.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 通信通道后端队列类型的枚举类
+ * 通过application.properties中的communication.channel.backend选择CommunicationService使用的消息队列实现
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ChannelBackend {
+    /**
+     * 基于数组的有界阻塞队列
+     * 入队和出队共用一把锁，实现简单、内存占用固定
+     */
+    ARRAY("ArrayBlockingQueue"),
+    /**
+     * 基于链表的有界阻塞队列
+     * 入队和出队分别使用独立的锁，生产者和消费者之间互不阻塞
+     */
+    LINKED("LinkedBlockingQueue"),
+    /**
+     * 无锁的无界传输队列
+     * 消费者等待时生产者可以直接把元素交给消费者；该队列无界，配置的容量不生效
+     */
+    TRANSFER("LinkedTransferQueue"),
+    /**
+     * 无锁的有界多生产者多消费者环形缓冲区
+     * 通过CAS推进填充过的读写序号，容量向上取整为2的幂
+     */
+    RING("MpmcArrayBlockingQueue"),
+    /**
+     * 消息存放在堆外直接内存中的字节环形缓冲区
+     * 消息编码为带长度头的记录，积压的消息不占用堆内存；容量按字节计算，由communication.channel.off-heap-bytes配置
+     */
+    OFF_HEAP("OffHeapBlockingQueue");
+
+    // 后端队列的描述
+    private final String description;
+}
@@ -0,0 +1,36 @@
+package com.learn.aegis.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 可统计竞争情况的锁的实现类型枚举类
+ * 同一段临界区可以换用不同的锁实现，通过/sync/contention对比各自的竞争和等待情况
+ */
+@Getter
+@RequiredArgsConstructor
+public enum LockType {
+    /**
+     * 对象的内置监视器锁
+     * 竞争不激烈时开销最小，但无法尝试加锁，等待的线程不能被中断
+     */
+    SYNCHRONIZED("synchronized"),
+    /**
+     * 非公平的可重入锁
+     * 释放锁时刚到达的线程可以插队获取，吞吐量高但等待时间的尾部较长
+     */
+    REENTRANT("ReentrantLock"),
+    /**
+     * 公平的可重入锁
+     * 按等待顺序依次获取，等待时间更均匀，但每次交接都需要唤醒等待的线程，吞吐量较低
+     */
+    FAIR("Fair ReentrantLock"),
+    /**
+     * StampedLock的写锁
+     * 不可重入，获取和释放只需一次CAS，适合临界区很短的场景
+     */
+    STAMPED("StampedLock");
+
+    // 锁实现的描述
+    private final String description;
+}
@@ -0,0 +1,37 @@
+package com.learn.aegis.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 线程池拒绝策略类型的枚举类
+ * 通过application.properties中的threadpool.rejection.policy选择，运行时可通过ThreadPoolController切换
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RejectionPolicyType {
+    /**
+     * 由提交任务的线程执行任务
+     * 过载时会占用Tomcat请求线程，使所有接口的延迟一起升高
+     */
+    CALLER_RUNS("Caller Runs"),
+    /**
+     * 立即抛出SaturationRejectedException，接口返回429，由调用方决定是否重试
+     */
+    FAST_FAIL("Fast Fail"),
+    /**
+     * 丢弃队列中最早的任务后重新提交，被丢弃的Future任务会被取消
+     */
+    DROP_OLDEST("Drop Oldest"),
+    /**
+     * 在有限时间内等待队列出现空位，超时后抛出RejectedExecutionException
+     */
+    BOUNDED_WAIT_RETRY("Bounded Wait Retry"),
+    /**
+     * 放入有界的溢出队列，由后台线程在主队列出现空位时转移回去，溢出队列也满时抛出RejectedExecutionException
+     */
+    SPILL_QUEUE("Spill Queue");
+
+    // 拒绝策略的描述
+    private final String description;
+}
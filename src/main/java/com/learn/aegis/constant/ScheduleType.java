@@ -0,0 +1,27 @@
+package com.learn.aegis.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 定时任务调度方式的枚举类
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ScheduleType {
+    /**
+     * 延迟指定时间后执行一次
+     */
+    DELAYED("One-shot Delayed Job"),
+    /**
+     * 固定频率执行，下一次的计划时间由上一次的计划时间加周期得到，与任务执行耗时无关
+     */
+    FIXED_RATE("Fixed Rate Periodic Job"),
+    /**
+     * 固定间隔执行，下一次在上一次执行结束后再等待一个周期
+     */
+    FIXED_DELAY("Fixed Delay Periodic Job");
+
+    // 调度方式的描述
+    private final String description;
+}
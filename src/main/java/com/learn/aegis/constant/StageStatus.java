@@ -0,0 +1,31 @@
+package com.learn.aegis.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 任务图中阶段执行结果的枚举类
+ */
+@Getter
+@RequiredArgsConstructor
+public enum StageStatus {
+    /**
+     * 阶段正常完成
+     */
+    COMPLETED("Stage Completed"),
+    /**
+     * 阶段抛出异常或被线程池拒绝
+     */
+    FAILED("Stage Failed"),
+    /**
+     * 阶段从依赖就绪起超过了超时时间仍未完成
+     */
+    TIMED_OUT("Stage Timed Out"),
+    /**
+     * 依赖的阶段没有正常完成，阶段没有执行
+     */
+    SKIPPED("Stage Skipped");
+
+    // 阶段执行结果的描述
+    private final String description;
+}
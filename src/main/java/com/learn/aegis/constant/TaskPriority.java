@@ -0,0 +1,33 @@
+package com.learn.aegis.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 任务优先级的枚举类
+ * 每个优先级对应一个最长等待时间：任务的有效截止时间取调用方指定的截止时间与“提交时间+最长等待时间”中较早的一个，
+ * 线程池按有效截止时间从早到晚执行任务。低优先级任务等待越久，其有效截止时间越靠前，因此不会被高优先级任务无限期饿死。
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TaskPriority {
+    /**
+     * 延迟敏感的关键任务
+     */
+    CRITICAL(10L),
+    /**
+     * 高优先级任务
+     */
+    HIGH(100L),
+    /**
+     * 普通任务
+     */
+    NORMAL(1_000L),
+    /**
+     * 可以延后执行的后台任务
+     */
+    LOW(10_000L);
+
+    // 最长等待时间（毫秒）
+    private final long maxWaitMillis;
+}
@@ -14,9 +14,9 @@ public enum ThreadPoolStatus {
     RUNNING("Running"),
     // 线程池已关闭的状态，此时线程池已停止接受新任务，但仍在处理未完成的任务
     SHUTDOWN("Shutdown"),
-    // 线程池已停止的状态，此时所有任务处理已完成，线程池正在释放资源
+    // 线程池已停止的状态，此时调用过shutdownNow，不再处理队列中的任务，并中断正在执行的任务
     STOP("Stop"),
-    // 线程池正在整理的状态，此时线程池已停止，正在等待所有任务完全终止
+    // 线程池正在整理的状态，此时所有任务已结束、工作线程数为0，即将进入终止状态
     TIDYING("Tidying"),
     // 线程池已终止的状态，此时所有任务已终止，资源已释放
     TERMINATED("Terminated");
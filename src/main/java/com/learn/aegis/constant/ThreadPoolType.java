@@ -36,7 +36,12 @@ public enum ThreadPoolType {
      * 工作窃取线程池
      * 适合用于多核处理器的任务，可以提高CPU利用率
      */
-    WORK_STEALING("Work Stealing Pool");
+    WORK_STEALING("Work Stealing Pool"),
+    /**
+     * 虚拟线程执行器
+     * 每个任务一个虚拟线程，适合大量阻塞等待（休眠、I/O）的任务，需要Java 21及以上版本运行
+     */
+    VIRTUAL("Virtual Thread Per Task Executor");
 
     // 线程池类型的描述
     private final String description;
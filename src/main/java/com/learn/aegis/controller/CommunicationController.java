@@ -1,8 +1,27 @@
 package com.learn.aegis.controller;
 
+import com.learn.aegis.model.StreamStats;
+import com.learn.aegis.model.TopicRecord;
+import com.learn.aegis.model.TopicStats;
 import com.learn.aegis.service.CommunicationService;
+import com.learn.aegis.stream.SseSubscriber;
+import com.learn.aegis.stream.StreamingChannel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * CommunicationController 类负责处理与通信相关的 RESTful API 请求
@@ -12,12 +31,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 @RequestMapping("/api/communication")
 public class CommunicationController {
 
+    // 长轮询的最长等待时间（毫秒），需小于spring.mvc.async.request-timeout
+    private static final long MAX_LONG_POLL_MILLIS = 55_000;
+
+    // 批量消费的最长等待时间（毫秒），批量消费会占用Servlet线程，因此上限较短
+    private static final long MAX_BATCH_WAIT_MILLIS = 5_000;
+
     /**
      * 自动注入 CommunicationService 实例，用于处理通信相关的业务逻辑
      */
     @Autowired
     private CommunicationService communicationService;
 
+    // 自动注入按订阅者需求推送消息的流式通道
+    @Autowired
+    private StreamingChannel streamingChannel;
+
     /**
      * 处理 produce 请求，生成信息
      *
@@ -39,4 +68,211 @@ public class CommunicationController {
     public String consume() throws InterruptedException {
         return communicationService.consume();
     }
+
+    /**
+     * 处理异步 produce 请求，非阻塞地生成信息
+     * 有等待中的异步消费者时消息直接交给等待最久的消费者，队列已满时返回503
+     *
+     * @return 生成结果
+     */
+    @GetMapping("/produceAsync")
+    public CompletableFuture<ResponseEntity<String>> produceAsync() {
+        return communicationService.produceAsync()
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(ex -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Queue is full"));
+    }
+
+    /**
+     * 处理异步 consume 请求，以长轮询方式消费信息
+     * 等待期间请求处于异步模式，不占用Servlet线程；超时未消费到信息时返回204
+     *
+     * @param timeoutMillis 最长等待时间（毫秒），超过上限时按上限处理
+     * @return 消费的信息字符串
+     */
+    @GetMapping("/consumeAsync")
+    public CompletableFuture<ResponseEntity<String>> consumeAsync(@RequestParam(defaultValue = "30000") long timeoutMillis) {
+        long timeout = Math.max(0, Math.min(timeoutMillis, MAX_LONG_POLL_MILLIS));
+        return communicationService.consumeAsync(timeout, TimeUnit.MILLISECONDS)
+                .thenApply(item -> ResponseEntity.ok("Consumed an item: " + item))
+                .exceptionally(ex -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * 处理批量 produce 请求，按顺序生成一批信息
+     *
+     * @param items 信息数组
+     * @return 生成的信息数量
+     * @throws InterruptedException 如果在生成信息时发生中断异常
+     */
+    @PostMapping("/produceBatch")
+    public int produceBatch(@RequestBody List<String> items) throws InterruptedException {
+        return communicationService.produceBatch(items);
+    }
+
+    /**
+     * 处理批量 consume 请求，一次消费多条信息
+     *
+     * @param maxItems 最多消费的信息数量
+     * @param maxWaitMillis 队列为空时的最长等待时间（毫秒），超过上限时按上限处理
+     * @return 消费的信息数组，等待超时时为空数组
+     * @throws InterruptedException 如果在消费信息时发生中断异常
+     */
+    @GetMapping("/consumeBatch")
+    public List<String> consumeBatch(@RequestParam(defaultValue = "16") int maxItems,
+                                     @RequestParam(defaultValue = "1000") long maxWaitMillis) throws InterruptedException {
+        long maxWait = Math.max(0, Math.min(maxWaitMillis, MAX_BATCH_WAIT_MILLIS));
+        return communicationService.consumeBatch(maxItems, maxWait, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 以字节形式生产一条信息，请求体的全部字节是一条信息
+     * 通道使用OFF_HEAP后端时，请求体的字节直接复制到堆外缓冲区，不解码为字符串
+     *
+     * @param payload 请求体的字节
+     * @return 生产的信息字节数
+     * @throws InterruptedException 如果在生成信息时发生中断异常
+     */
+    @PostMapping(value = "/bytes/produce", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public String produceBytes(@RequestBody byte[] payload) throws InterruptedException {
+        return "Produced " + communicationService.produceBytes(ByteBuffer.wrap(payload)) + " bytes";
+    }
+
+    /**
+     * 以字节形式消费一条信息，响应体是信息的原始字节
+     * 通道使用OFF_HEAP后端时，字节从堆外缓冲区复制后直接写出，不经过字符串
+     *
+     * @param maxWaitMillis 队列为空时的最长等待时间（毫秒），超过上限时按上限处理
+     * @return 信息的字节，等待超时时返回204
+     * @throws InterruptedException 如果在消费信息时发生中断异常
+     */
+    @GetMapping(value = "/bytes/consume", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> consumeBytes(@RequestParam(defaultValue = "1000") long maxWaitMillis)
+            throws InterruptedException {
+        long maxWait = Math.max(0, Math.min(maxWaitMillis, MAX_BATCH_WAIT_MILLIS));
+        byte[] payload = communicationService.consumeBytes(maxWait, TimeUnit.MILLISECONDS);
+        return payload == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(payload);
+    }
+
+    /**
+     * 以SSE方式订阅流式通道，只接收订阅之后发布的消息
+     * 订阅者按prefetch声明需求，客户端读取较慢时消息积压在该订阅者自己的有界缓冲区中
+     *
+     * @param prefetch 每次向通道请求的消息数
+     * @param limit 最多接收的消息数，达到后结束连接，0表示不限
+     * @return 推送消息的SSE连接
+     */
+    @GetMapping(value = "/stream/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(defaultValue = "16") int prefetch,
+                                @RequestParam(defaultValue = "0") long limit) {
+        SseEmitter emitter = new SseEmitter(0L);
+        streamingChannel.subscribe(new SseSubscriber(emitter, prefetch, limit));
+        return emitter;
+    }
+
+    /**
+     * 向流式通道发布消息，请求体的每一个非空行是一条消息（纯文本或NDJSON）
+     * 请求体按行边读边发布，不需要整体读入内存
+     *
+     * @param body 请求体
+     * @return 发布的消息数和丢弃的投递次数
+     * @throws IOException 如果读取请求体失败
+     */
+    @PostMapping(value = "/stream/publish", consumes = {MediaType.TEXT_PLAIN_VALUE, "application/x-ndjson"})
+    public String publish(InputStream body) throws IOException {
+        long published = 0;
+        long dropped = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                dropped += streamingChannel.publish(line);
+                published++;
+            }
+        }
+        return "Published " + published + " items, dropped " + dropped + " deliveries";
+    }
+
+    /**
+     * 获取流式通道的订阅和投递情况
+     *
+     * @return 流式通道统计信息
+     */
+    @GetMapping("/stream/stats")
+    public StreamStats streamStats() {
+        return streamingChannel.stats();
+    }
+
+    /**
+     * 创建分区主题
+     *
+     * @param topic 主题名称
+     * @param partitions 分区数，不能超过64
+     * @return 主题的统计信息，主题数量达到上限时返回429
+     */
+    @PostMapping("/topics/{topic}")
+    public TopicStats createTopic(@PathVariable String topic, @RequestParam(defaultValue = "4") int partitions) {
+        return communicationService.createTopic(topic, partitions);
+    }
+
+    /**
+     * 向主题发布一条消息，相同键的消息进入同一个分区并保持顺序
+     *
+     * @param topic 主题名称，不存在时按默认分区数创建，主题数量达到上限时返回429
+     * @param key 消息键，不指定时轮流进入各分区
+     * @param value 消息内容
+     * @return 消息所在的分区和偏移量
+     */
+    @PostMapping("/topics/{topic}/publish")
+    public TopicRecord publishToTopic(@PathVariable String topic, @RequestParam(required = false) String key,
+                                      @RequestBody String value) {
+        return communicationService.publish(topic, key, value);
+    }
+
+    /**
+     * 以消费组成员的身份从主题拉取消息，只返回分配给该成员的分区中的消息
+     *
+     * @param topic 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @param maxItems 最多拉取的消息数
+     * @param maxWaitMillis 没有消息时的最长等待时间（毫秒），超过上限时按上限处理
+     * @return 拉取到的消息，等待超时时为空数组，主题不存在时返回404
+     * @throws InterruptedException 如果在等待消息时发生中断异常
+     */
+    @GetMapping("/topics/{topic}/poll")
+    public ResponseEntity<List<TopicRecord>> pollTopic(@PathVariable String topic, @RequestParam String group,
+                                                       @RequestParam String consumer,
+                                                       @RequestParam(defaultValue = "16") int maxItems,
+                                                       @RequestParam(defaultValue = "1000") long maxWaitMillis) throws InterruptedException {
+        long maxWait = Math.max(0, Math.min(maxWaitMillis, MAX_BATCH_WAIT_MILLIS));
+        List<TopicRecord> records = communicationService.poll(topic, group, consumer, maxItems, maxWait, TimeUnit.MILLISECONDS);
+        return records == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(records);
+    }
+
+    /**
+     * 消费者离开消费组
+     *
+     * @param topic 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @return 离开成功返回204，消费者不在组内时返回404
+     */
+    @DeleteMapping("/topics/{topic}/groups/{group}/consumers/{consumer}")
+    public ResponseEntity<Void> leaveGroup(@PathVariable String topic, @PathVariable String group, @PathVariable String consumer) {
+        return communicationService.leaveGroup(topic, group, consumer)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 获取主题各分区的深度和各消费组的消费延迟
+     *
+     * @param topic 主题名称
+     * @return 主题的统计信息，主题不存在时返回404
+     */
+    @GetMapping("/topics/{topic}")
+    public ResponseEntity<TopicStats> topicStats(@PathVariable String topic) {
+        TopicStats stats = communicationService.topicStats(topic);
+        return stats == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(stats);
+    }
 }
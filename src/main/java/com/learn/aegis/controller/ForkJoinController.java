@@ -0,0 +1,69 @@
+package com.learn.aegis.controller;
+
+import com.learn.aegis.model.ForkJoinResult;
+import com.learn.aegis.service.ForkJoinComputationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * ForkJoinController类提供在工作窃取线程池中执行分治并行计算的接口
+ * 数组长度超过按最大堆内存计算的上限时按上限处理
+ */
+@RestController
+@RequestMapping("/forkjoin")
+public class ForkJoinController {
+
+    // 自动注入分治并行计算服务
+    @Autowired
+    private ForkJoinComputationService forkJoinComputationService;
+
+    /**
+     * 并行求和
+     *
+     * @param size 数组长度，超过上限时按上限处理
+     * @param threshold 拆分阈值
+     * @param seed 随机数种子
+     * @return 返回求和结果和线程池状态
+     */
+    @GetMapping("/sum")
+    public ForkJoinResult sum(@RequestParam(defaultValue = "10000000") int size,
+                              @RequestParam(defaultValue = "10000") int threshold,
+                              @RequestParam(defaultValue = "42") long seed) {
+        return forkJoinComputationService.sum(Math.min(size, forkJoinComputationService.getMaxSize()), threshold, seed);
+    }
+
+    /**
+     * 并行直方图统计
+     *
+     * @param size 数组长度，超过上限时按上限处理
+     * @param buckets 桶数量
+     * @param threshold 拆分阈值，不能小于桶数量
+     * @param seed 随机数种子
+     * @return 返回各桶计数和线程池状态
+     */
+    @GetMapping("/histogram")
+    public ForkJoinResult histogram(@RequestParam(defaultValue = "10000000") int size,
+                                    @RequestParam(defaultValue = "10") int buckets,
+                                    @RequestParam(defaultValue = "10000") int threshold,
+                                    @RequestParam(defaultValue = "42") long seed) {
+        return forkJoinComputationService.histogram(Math.min(size, forkJoinComputationService.getMaxSize()), buckets, threshold, seed);
+    }
+
+    /**
+     * 并行归并排序
+     *
+     * @param size 数组长度，超过上限时按上限处理
+     * @param threshold 拆分阈值
+     * @param seed 随机数种子
+     * @return 返回排序是否正确和线程池状态
+     */
+    @GetMapping("/sort")
+    public ForkJoinResult sort(@RequestParam(defaultValue = "1000000") int size,
+                               @RequestParam(defaultValue = "10000") int threshold,
+                               @RequestParam(defaultValue = "42") long seed) {
+        return forkJoinComputationService.sort(Math.min(size, forkJoinComputationService.getMaxSize()), threshold, seed);
+    }
+}
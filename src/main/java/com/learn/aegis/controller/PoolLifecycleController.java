@@ -0,0 +1,80 @@
+package com.learn.aegis.controller;
+
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.model.ThreadPoolMonitor;
+import com.learn.aegis.service.ThreadPoolLifecycleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * PoolLifecycleController类提供共享线程池的生命周期管理接口，包括提交任务、关闭、立即关闭和重启
+ */
+@RestController
+@RequestMapping("/pool")
+public class PoolLifecycleController {
+
+    // 自动注入线程池生命周期管理服务
+    @Autowired
+    private ThreadPoolLifecycleService threadPoolLifecycleService;
+
+    /**
+     * 获取线程池的当前状态
+     *
+     * @param type 线程池类型
+     * @return 线程池监控对象
+     */
+    @GetMapping("/{type}")
+    public ThreadPoolMonitor snapshot(@PathVariable ThreadPoolType type) {
+        return threadPoolLifecycleService.snapshot(type);
+    }
+
+    /**
+     * 向线程池提交一个模拟任务
+     *
+     * @param type 线程池类型
+     * @return 线程池监控对象
+     */
+    @PostMapping("/{type}/execute")
+    public ThreadPoolMonitor executeTask(@PathVariable ThreadPoolType type) {
+        return threadPoolLifecycleService.executeTask(type);
+    }
+
+    /**
+     * 平滑关闭线程池，已接受的任务继续执行
+     *
+     * @param type 线程池类型
+     * @return 线程池监控对象
+     */
+    @PostMapping("/{type}/shutdown")
+    public ThreadPoolMonitor shutdown(@PathVariable ThreadPoolType type) {
+        return threadPoolLifecycleService.shutdownPool(type);
+    }
+
+    /**
+     * 立即关闭线程池，未执行的任务暂存到重启时重新提交
+     *
+     * @param type 线程池类型
+     * @return 线程池监控对象
+     */
+    @PostMapping("/{type}/shutdownNow")
+    public ThreadPoolMonitor shutdownNow(@PathVariable ThreadPoolType type) {
+        return threadPoolLifecycleService.shutdownNowPool(type);
+    }
+
+    /**
+     * 重启线程池，旧线程池在后台排空
+     *
+     * @param type 线程池类型
+     * @param drainMillis 旧线程池的排空期限（毫秒）
+     * @return 新线程池的监控对象
+     */
+    @PostMapping("/{type}/restart")
+    public ThreadPoolMonitor restart(@PathVariable ThreadPoolType type, @RequestParam(defaultValue = "5000") long drainMillis) {
+        return threadPoolLifecycleService.restartPool(type, drainMillis);
+    }
+}
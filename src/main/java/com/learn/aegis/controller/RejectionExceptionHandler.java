@@ -0,0 +1,34 @@
+package com.learn.aegis.controller;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 全局的任务拒绝异常处理
+ * 线程池或舱壁层因饱和拒绝任务时返回429，提示调用方稍后重试，而不是返回500或占用请求线程执行任务；
+ * 线程池已关闭等其他原因的拒绝返回503，表示服务暂时不可用，重试前需要等待线程池恢复
+ */
+@Slf4j
+@RestControllerAdvice
+public class RejectionExceptionHandler {
+
+    /**
+     * 把任务拒绝异常映射为429或503
+     *
+     * @param e 任务拒绝异常
+     * @return 饱和拒绝返回429，其他拒绝返回503，响应体为拒绝原因
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TaskRejectedException.class})
+    public ResponseEntity<String> handleRejection(RuntimeException e) {
+        HttpStatus status = SaturationRejectedException.isSaturation(e) ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("Request rejected with {}: {}", status.value(), e.getMessage());
+        return ResponseEntity.status(status).body(e.getMessage());
+    }
+}
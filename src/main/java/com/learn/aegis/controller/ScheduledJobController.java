@@ -0,0 +1,69 @@
+package com.learn.aegis.controller;
+
+import com.learn.aegis.constant.ScheduleType;
+import com.learn.aegis.model.ScheduledJobInfo;
+import com.learn.aegis.service.ScheduledJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * ScheduledJobController类提供定时任务的注册、查询和取消接口
+ */
+@RestController
+@RequestMapping("/schedule")
+public class ScheduledJobController {
+
+    // 自动注入定时任务服务
+    @Autowired
+    private ScheduledJobService scheduledJobService;
+
+    /**
+     * 注册一个定时任务
+     *
+     * @param type 调度方式：DELAYED、FIXED_RATE或FIXED_DELAY
+     * @param name 任务名称，可选
+     * @param delayMillis 首次执行前的延迟（毫秒）
+     * @param periodMillis 周期（毫秒），周期性任务必填
+     * @param workMillis 每次执行模拟的工作时长（毫秒）
+     * @return 返回定时任务的当前状态
+     */
+    @PostMapping("/jobs")
+    public ScheduledJobInfo scheduleJob(@RequestParam ScheduleType type,
+                                        @RequestParam(required = false) String name,
+                                        @RequestParam(defaultValue = "0") long delayMillis,
+                                        @RequestParam(defaultValue = "0") long periodMillis,
+                                        @RequestParam(defaultValue = "0") long workMillis) {
+        return scheduledJobService.schedule(name, type, delayMillis, periodMillis, workMillis);
+    }
+
+    /**
+     * 获取所有定时任务
+     *
+     * @return 定时任务列表
+     */
+    @GetMapping("/jobs")
+    public List<ScheduledJobInfo> listJobs() {
+        return scheduledJobService.listJobs();
+    }
+
+    /**
+     * 取消并移除一个定时任务
+     *
+     * @param id 定时任务编号
+     * @return 返回取消后的任务状态，任务不存在或已结束时返回404
+     */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<ScheduledJobInfo> cancelJob(@PathVariable long id) {
+        ScheduledJobInfo info = scheduledJobService.cancel(id);
+        return info == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(info);
+    }
+}
@@ -1,11 +1,16 @@
 package com.learn.aegis.controller;
 
+import com.learn.aegis.constant.LockType;
+import com.learn.aegis.model.LockContentionStats;
 import com.learn.aegis.service.SynchronizationService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+
 // 控制器类，处理与同步相关的请求
 @RestController
 @RequestMapping("/sync")
@@ -34,4 +39,74 @@ public class SynchronizationController {
     public int increaseCountWithLock() {
         return synchronizationService.increaseCountWithLock();
     }
+
+    /**
+     * 使用AtomicLong的CAS操作增加计数器的值
+     * 此方法无参数
+     * 返回值: 增加后的计数器值
+     */
+    @GetMapping("/increaseWithAtomic")
+    public long increaseCountWithAtomic() {
+        return synchronizationService.increaseCountWithAtomic();
+    }
+
+    /**
+     * 使用LongAdder分段累加增加计数器的值，只累加不汇总
+     * 此方法无参数
+     * 返回值: 无，汇总值通过/sync/adderCount读取
+     */
+    @GetMapping("/increaseWithAdder")
+    public void increaseCountWithAdder() {
+        synchronizationService.increaseCountWithAdder();
+    }
+
+    /**
+     * 读取LongAdder汇总得到的计数器值
+     * 此方法无参数
+     * 返回值: 汇总得到的计数器值
+     */
+    @GetMapping("/adderCount")
+    public long adderCount() {
+        return synchronizationService.getAdderCount();
+    }
+
+    /**
+     * 使用按处理器分片并做缓存行填充的计数器增加计数器的值，只累加不汇总
+     * 此方法无参数
+     * 返回值: 无，汇总值通过/sync/stripedCount读取
+     */
+    @GetMapping("/increaseWithStripedCounter")
+    public void increaseCountWithStripedCounter() {
+        synchronizationService.increaseCountWithStripedCounter();
+    }
+
+    /**
+     * 读取分片计数器汇总得到的计数器值
+     * 此方法无参数
+     * 返回值: 汇总得到的计数器值
+     */
+    @GetMapping("/stripedCount")
+    public long stripedCount() {
+        return synchronizationService.getStripedCount();
+    }
+
+    /**
+     * 使用指定类型的锁增加计数器的值，每种锁类型有各自的计数器
+     * 参数: lock 锁的实现类型（SYNCHRONIZED、REENTRANT、FAIR、STAMPED）
+     * 返回值: 增加后该类型的计数器值
+     */
+    @GetMapping("/increaseWith")
+    public int increaseCountWith(@RequestParam(defaultValue = "REENTRANT") LockType lock) {
+        return synchronizationService.increaseCountWith(lock);
+    }
+
+    /**
+     * 获取各个锁的竞争情况
+     * 此方法无参数
+     * 返回值: 每把锁的获取次数、竞争次数、等待时间和持有时间分布（纳秒）
+     */
+    @GetMapping("/contention")
+    public List<LockContentionStats> contention() {
+        return synchronizationService.getContentionStats();
+    }
 }
@@ -1,5 +1,7 @@
 package com.learn.aegis.controller;
 
+import com.learn.aegis.model.ThreadStateCounts;
+import com.learn.aegis.model.TrackedThreadInfo;
 import com.learn.aegis.service.ThreadLifecycleService;
 import com.learn.aegis.service.ThreadPoolManagementService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +10,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
 /**
  * 控制线程生命周期和线程池管理的控制器类
  */
@@ -24,13 +29,36 @@ public class ThreadLifecycleController {
     private ThreadPoolManagementService threadPoolManagementService;
 
     /**
-     * 启动线程
+     * 启动一个登记线程，超出线程创建速率或存活线程数上限时返回429
      *
+     * @param virtual 是否使用虚拟线程
+     * @param sleepMillis 线程睡眠的时长（毫秒）
      * @return 线程启动的结果信息
      */
     @GetMapping("/start")
-    public String startThread() {
-        return threadLifecycleService.startThread();
+    public String startThread(@RequestParam(defaultValue = "false") boolean virtual,
+                              @RequestParam(defaultValue = "1000") long sleepMillis) {
+        return "Thread started: " + threadLifecycleService.startThread(virtual, sleepMillis).getName();
+    }
+
+    /**
+     * 获取线程登记表，包括尚未结束的线程和最近结束的线程
+     *
+     * @return 按编号排序的线程记录
+     */
+    @GetMapping("/registry")
+    public List<TrackedThreadInfo> getRegistry() {
+        return threadLifecycleService.getRegistry();
+    }
+
+    /**
+     * 获取登记线程在各生命周期状态的数量
+     *
+     * @return 各状态的线程数和累计创建情况
+     */
+    @GetMapping("/states")
+    public ThreadStateCounts getStateCounts() {
+        return threadLifecycleService.getStateCounts();
     }
 
     /**
@@ -46,16 +74,6 @@ public class ThreadLifecycleController {
         return "ThreadPool resized to CorePoolSize: " + corePoolSize + ", MaxPoolSize: " + maxPoolSize;
     }
 
-    /**
-     * 获取线程池状态
-     *
-     * @return 线程池当前的状态信息
-     */
-    @GetMapping("/getThreadPoolStatus")
-    public String getThreadPoolStatus() {
-        return threadPoolManagementService.getThreadPoolStatus();
-    }
-
     /**
      * 更新线程池配置
      *
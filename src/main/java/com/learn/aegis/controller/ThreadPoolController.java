@@ -1,12 +1,34 @@
 package com.learn.aegis.controller;
 
+import com.learn.aegis.config.ThreadPoolConfig;
+import com.learn.aegis.constant.RejectionPolicyType;
+import com.learn.aegis.constant.TaskPriority;
+import com.learn.aegis.model.BulkheadStats;
+import com.learn.aegis.model.RejectionPolicyInfo;
+import com.learn.aegis.model.TaskGraphResult;
+import com.learn.aegis.model.ThreadPoolLatency;
+import com.learn.aegis.model.ThreadPoolMonitor;
+import com.learn.aegis.pipeline.TaskGraph;
+import com.learn.aegis.service.PoolSnapshotService;
+import com.learn.aegis.service.TaskExecutionService;
 import com.learn.aegis.service.ThreadPoolManagementService;
+import com.learn.aegis.threadpool.TenantBulkhead;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ThreadPoolController类用于管理线程池的动态配置和状态监控
@@ -15,10 +37,28 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/threadpool")
 public class ThreadPoolController {
 
+    // 标识租户的请求头
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    // 任务图中并行fetch阶段数量的上限，每个阶段都会创建一个CompletableFuture并占用一次线程池提交
+    private static final int MAX_PIPELINE_FAN_OUT = 64;
+
     // 自动注入线程池管理服务
     @Autowired
     private ThreadPoolManagementService threadPoolManagementService;
 
+    // 自动注入任务执行服务，用于按优先级提交任务
+    @Autowired
+    private TaskExecutionService taskExecutionService;
+
+    // 自动注入线程池快照服务
+    @Autowired
+    private PoolSnapshotService poolSnapshotService;
+
+    // 自动注入按租户隔离的舱壁层
+    @Autowired
+    private TenantBulkhead tenantBulkhead;
+
     /**
      * 调整线程池的大小
      *
@@ -42,6 +82,38 @@ public class ThreadPoolController {
         return threadPoolManagementService.getThreadPoolStatus();
     }
 
+    /**
+     * 获取所有线程池的结构化快照
+     *
+     * @return 返回按线程池名称排序的快照列表
+     */
+    @GetMapping("/snapshot")
+    public List<ThreadPoolMonitor> getSnapshot() {
+        return poolSnapshotService.snapshot();
+    }
+
+    /**
+     * 订阅所有线程池的快照推送
+     * 连接建立后的第一个周期收到完整快照（snapshot事件），之后只收到发生变化的字段（delta事件）
+     *
+     * @return 返回推送快照的SSE连接
+     */
+    @GetMapping(value = "/snapshot/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSnapshots() {
+        return poolSnapshotService.subscribe();
+    }
+
+    /**
+     * 获取各线程池任务的队列等待时间和执行时间分布
+     * 等待时间高说明应增加线程数或减小队列，执行时间高说明任务本身较慢
+     *
+     * @return 返回每个线程池的p50、p99、p999延迟（微秒）
+     */
+    @GetMapping("/latency")
+    public List<ThreadPoolLatency> getThreadPoolLatency() {
+        return threadPoolManagementService.getThreadPoolLatency();
+    }
+
     /**
      * 更新线程池的配置
      *
@@ -56,4 +128,139 @@ public class ThreadPoolController {
         threadPoolManagementService.updateThreadPoolConfig(corePoolSize, maxPoolSize, queueCapacity, keepAliveSeconds);
         return "ThreadPool configuration updated.";
     }
+
+    /**
+     * 向线程池提交一个模拟任务，线程池饱和时按当前拒绝策略处理，FAST_FAIL等策略拒绝时返回429
+     *
+     * @param workMillis 任务模拟的工作时长（毫秒）
+     * @return 返回任务已提交的信息
+     */
+    @PostMapping("/submit")
+    public String submitTask(@RequestParam(defaultValue = "100") long workMillis) {
+        threadPoolManagementService.submitTask(workMillis);
+        return "Task submitted.";
+    }
+
+    /**
+     * 切换线程池的拒绝策略
+     *
+     * @param policy 拒绝策略：CALLER_RUNS、FAST_FAIL、DROP_OLDEST、BOUNDED_WAIT_RETRY或SPILL_QUEUE
+     * @return 返回切换后的拒绝策略信息
+     */
+    @PostMapping("/rejectionPolicy")
+    public RejectionPolicyInfo setRejectionPolicy(@RequestParam RejectionPolicyType policy) {
+        return threadPoolManagementService.setRejectionPolicy(policy);
+    }
+
+    /**
+     * 获取线程池当前的拒绝策略和各策略的处理次数
+     *
+     * @return 拒绝策略信息
+     */
+    @GetMapping("/rejectionPolicy")
+    public RejectionPolicyInfo getRejectionPolicy() {
+        return threadPoolManagementService.getRejectionPolicy();
+    }
+
+    /**
+     * 以请求头中的租户身份提交一个模拟任务，任务经过舱壁层排队后在线程池中执行
+     *
+     * @param tenant 租户标识，缺省时归入anonymous
+     * @param workMillis 任务模拟的工作时长（毫秒）
+     * @return 接受时返回202，超出该租户的排队配额或线程池饱和时返回429，线程池已关闭时返回503
+     */
+    @PostMapping("/bulkhead/submit")
+    public ResponseEntity<String> submitToBulkhead(@RequestHeader(name = TENANT_HEADER, defaultValue = "anonymous") String tenant,
+                                                   @RequestParam(defaultValue = "100") long workMillis) {
+        // 拒绝异常由RejectionExceptionHandler按原因映射为429或503
+        tenantBulkhead.submit(tenant, () -> {
+            try {
+                Thread.sleep(workMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("Task accepted for tenant " + tenant);
+    }
+
+    /**
+     * 设置租户的并发上限、排队配额和权重
+     *
+     * @param tenant 租户标识
+     * @param concurrency 并发上限
+     * @param queueQuota 排队配额
+     * @param weight 公平调度的权重
+     * @return 返回租户的当前状态
+     */
+    @PostMapping("/bulkhead/config")
+    public BulkheadStats configureBulkhead(@RequestParam String tenant, @RequestParam int concurrency,
+                                           @RequestParam int queueQuota, @RequestParam(defaultValue = "1") int weight) {
+        return tenantBulkhead.configure(tenant, concurrency, queueQuota, weight);
+    }
+
+    /**
+     * 获取各租户的并发和排队饱和度
+     *
+     * @return 返回每个租户的配置、计数和饱和度
+     */
+    @GetMapping("/bulkhead")
+    public List<BulkheadStats> getBulkheadStats() {
+        return tenantBulkhead.stats();
+    }
+
+    /**
+     * 按优先级和截止时间提交一个模拟任务，任务完成后返回其排队等待时间
+     *
+     * @param priority 任务优先级：CRITICAL、HIGH、NORMAL或LOW
+     * @param deadlineMillis 距离截止时间的毫秒数，可选
+     * @param workMillis 任务模拟的工作时长（毫秒）
+     * @return 返回任务的排队等待时间
+     */
+    @PostMapping("/priority/submit")
+    public CompletableFuture<String> submitWithPriority(@RequestParam(defaultValue = "NORMAL") TaskPriority priority,
+                                                        @RequestParam(required = false) Long deadlineMillis,
+                                                        @RequestParam(defaultValue = "100") long workMillis) {
+        long submittedAt = System.nanoTime();
+        Instant deadline = deadlineMillis == null ? null : Instant.now().plusMillis(deadlineMillis);
+        return taskExecutionService.submit(() -> {
+            long waitedMicros = (System.nanoTime() - submittedAt) / 1_000;
+            Thread.sleep(workMillis);
+            return priority + " task waited " + waitedMicros + " us in queue";
+        }, priority, deadline);
+    }
+
+    /**
+     * 以任务图执行一次模拟的多步骤请求处理：
+     * load阶段加载请求，扇出为fanOut个并行的fetch阶段，aggregate阶段汇总所有fetch的结果，
+     * respond阶段合并load和aggregate的结果；等待依赖期间不占用任何线程
+     *
+     * @param executor 执行各阶段的线程池名称，如taskExecutor、fixed、cached、forkjoin
+     * @param fanOut 并行的fetch阶段数量，范围为1到64，超出范围时按边界处理
+     * @param workMillis 每个fetch阶段模拟的工作时长（毫秒）
+     * @param timeoutMillis 每个fetch阶段的超时时间（毫秒），0表示不超时
+     * @return 返回各阶段的结果和耗时
+     */
+    @PostMapping("/pipeline")
+    public CompletableFuture<TaskGraphResult> runPipeline(@RequestParam(defaultValue = ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME) String executor,
+                                                          @RequestParam(defaultValue = "3") int fanOut,
+                                                          @RequestParam(defaultValue = "50") long workMillis,
+                                                          @RequestParam(defaultValue = "1000") long timeoutMillis) {
+        int stages = Math.max(1, Math.min(fanOut, MAX_PIPELINE_FAN_OUT));
+        TaskGraph graph = new TaskGraph().stage("load", executor, System::currentTimeMillis);
+        List<String> fetches = new ArrayList<>();
+        for (int i = 0; i < stages; i++) {
+            int index = i;
+            String name = "fetch-" + i;
+            graph.stage(name, executor, timeoutMillis, List.of("load"), inputs -> {
+                Thread.sleep(workMillis);
+                return index;
+            });
+            fetches.add(name);
+        }
+        graph.stage("aggregate", executor, 0L, fetches,
+                inputs -> inputs.values().stream().mapToInt(value -> (Integer) value).sum());
+        graph.stage("respond", executor, 0L, List.of("load", "aggregate"),
+                inputs -> "loaded at " + inputs.get("load") + ", aggregate " + inputs.get("aggregate"));
+        return taskExecutionService.execute(graph);
+    }
 }
@@ -0,0 +1,75 @@
+package com.learn.aegis.forkjoin;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并行直方图任务
+ * 每个叶子任务在自己的局部数组中计数，合并时逐桶相加，避免多个线程竞争同一个共享计数数组。
+ * 每个叶子都分配一个桶数量长度的数组，拆分阈值应不小于桶数量，否则计数数组的总大小会远超待统计的数组。
+ */
+public class ParallelHistogramTask extends RecursiveTask<long[]> {
+
+    // 待统计的数组，取值范围为[0, bound)
+    private final int[] values;
+
+    // 区间起点（包含）
+    private final int from;
+
+    // 区间终点（不包含）
+    private final int to;
+
+    // 取值上界（不包含）
+    private final int bound;
+
+    // 桶数量
+    private final int buckets;
+
+    // 拆分阈值，区间长度不超过该值时顺序计算
+    private final int threshold;
+
+    // 拆分出的子任务计数
+    private final LongAdder forkedTasks;
+
+    /**
+     * 构造方法
+     *
+     * @param values 待统计的数组
+     * @param from 区间起点（包含）
+     * @param to 区间终点（不包含）
+     * @param bound 取值上界（不包含）
+     * @param buckets 桶数量
+     * @param threshold 拆分阈值
+     * @param forkedTasks 拆分出的子任务计数
+     */
+    public ParallelHistogramTask(int[] values, int from, int to, int bound, int buckets, int threshold, LongAdder forkedTasks) {
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        this.bound = bound;
+        this.buckets = buckets;
+        this.threshold = threshold;
+        this.forkedTasks = forkedTasks;
+    }
+
+    @Override
+    protected long[] compute() {
+        if (to - from <= threshold) {
+            long[] counts = new long[buckets];
+            for (int i = from; i < to; i++) {
+                counts[(int) ((long) values[i] * buckets / bound)]++;
+            }
+            return counts;
+        }
+        int mid = (from + to) >>> 1;
+        ParallelHistogramTask left = new ParallelHistogramTask(values, from, mid, bound, buckets, threshold, forkedTasks);
+        left.fork();
+        forkedTasks.increment();
+        long[] counts = new ParallelHistogramTask(values, mid, to, bound, buckets, threshold, forkedTasks).compute();
+        long[] leftCounts = left.join();
+        for (int i = 0; i < buckets; i++) {
+            counts[i] += leftCounts[i];
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,79 @@
+package com.learn.aegis.forkjoin;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并行归并排序任务
+ * 区间长度不超过阈值时直接调用Arrays.sort，否则并行排序左右两半，再借助与原数组等长的缓冲区归并。
+ * 排序结果写回原数组，因此使用没有返回值的RecursiveAction。
+ */
+public class ParallelMergeSortTask extends RecursiveAction {
+
+    // 待排序的数组
+    private final int[] values;
+
+    // 归并使用的缓冲区，与待排序数组等长
+    private final int[] buffer;
+
+    // 区间起点（包含）
+    private final int from;
+
+    // 区间终点（不包含）
+    private final int to;
+
+    // 拆分阈值，区间长度不超过该值时顺序排序
+    private final int threshold;
+
+    // 拆分出的子任务计数
+    private final LongAdder forkedTasks;
+
+    /**
+     * 构造方法
+     *
+     * @param values 待排序的数组
+     * @param buffer 归并使用的缓冲区，与待排序数组等长
+     * @param from 区间起点（包含）
+     * @param to 区间终点（不包含）
+     * @param threshold 拆分阈值
+     * @param forkedTasks 拆分出的子任务计数
+     */
+    public ParallelMergeSortTask(int[] values, int[] buffer, int from, int to, int threshold, LongAdder forkedTasks) {
+        this.values = values;
+        this.buffer = buffer;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+        this.forkedTasks = forkedTasks;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            Arrays.sort(values, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        forkedTasks.add(2);
+        invokeAll(new ParallelMergeSortTask(values, buffer, from, mid, threshold, forkedTasks),
+                new ParallelMergeSortTask(values, buffer, mid, to, threshold, forkedTasks));
+        // 左右两半已经有序且左半最大值不超过右半最小值时无需归并
+        if (values[mid - 1] <= values[mid]) {
+            return;
+        }
+        System.arraycopy(values, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        int k = from;
+        while (i < mid && j < to) {
+            values[k++] = buffer[i] <= buffer[j] ? buffer[i++] : buffer[j++];
+        }
+        while (i < mid) {
+            values[k++] = buffer[i++];
+        }
+        while (j < to) {
+            values[k++] = buffer[j++];
+        }
+    }
+}
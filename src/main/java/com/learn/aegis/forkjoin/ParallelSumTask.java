@@ -0,0 +1,61 @@
+package com.learn.aegis.forkjoin;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并行求和任务
+ * 区间长度超过阈值时一分为二：左半部分fork到工作队列中等待被窃取，右半部分由当前线程直接计算，
+ * 最后join左半部分的结果，这样当前线程不会空等，同时给空闲线程留出可窃取的任务。
+ */
+public class ParallelSumTask extends RecursiveTask<Long> {
+
+    // 待求和的数组
+    private final int[] values;
+
+    // 区间起点（包含）
+    private final int from;
+
+    // 区间终点（不包含）
+    private final int to;
+
+    // 拆分阈值，区间长度不超过该值时顺序计算
+    private final int threshold;
+
+    // 拆分出的子任务计数
+    private final LongAdder forkedTasks;
+
+    /**
+     * 构造方法
+     *
+     * @param values 待求和的数组
+     * @param from 区间起点（包含）
+     * @param to 区间终点（不包含）
+     * @param threshold 拆分阈值
+     * @param forkedTasks 拆分出的子任务计数
+     */
+    public ParallelSumTask(int[] values, int from, int to, int threshold, LongAdder forkedTasks) {
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+        this.forkedTasks = forkedTasks;
+    }
+
+    @Override
+    protected Long compute() {
+        if (to - from <= threshold) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+        int mid = (from + to) >>> 1;
+        ParallelSumTask left = new ParallelSumTask(values, from, mid, threshold, forkedTasks);
+        left.fork();
+        forkedTasks.increment();
+        long right = new ParallelSumTask(values, mid, to, threshold, forkedTasks).compute();
+        return right + left.join();
+    }
+}
@@ -0,0 +1,455 @@
+package com.learn.aegis.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 基于内存映射文件的预写日志
+ * 任务描述或通道消息在进入内存队列之前先追加一条APPEND记录，处理完成后追加一条COMMIT记录；
+ * 启动时扫描所有段文件，有APPEND但没有COMMIT的条目就是上次退出时未完成的工作，由各服务取出后重新提交。
+ *
+ * 记录格式为：长度(int) + CRC32(int) + 类型(byte) + 编号(long) + 流名称长度(short) + 流名称 + 内容，
+ * 进程崩溃时写了一半的记录通过CRC校验识别并丢弃。
+ * 写入只是对映射内存的拷贝，进程崩溃后数据仍在操作系统页缓存中；fsync决定的是机器掉电时的持久性：
+ * fsyncIntervalMillis为0时每次追加都等待刷盘，并发的追加者共享同一次force（组提交）；
+ * 大于0时由后台线程按间隔批量刷盘，追加不等待，掉电时最多丢失一个间隔内的记录。
+ * COMMIT记录不等待刷盘，丢失时条目在重启后会被再执行一次，即至少执行一次的语义。
+ * 段文件写满后滚动到新段，只有当某个段及其之前所有段中的条目都已完成时才删除，
+ * 保证删除的段中的COMMIT记录不会让更早段中的条目在重放时复活。
+ */
+@Slf4j
+public class TaskJournal implements Closeable {
+
+    // 记录类型：追加条目
+    private static final byte APPEND = 1;
+
+    // 记录类型：完成条目
+    private static final byte COMMIT = 2;
+
+    // 记录头的长度：长度和CRC32各一个int
+    private static final int HEADER_BYTES = 8;
+
+    // 记录体中除流名称和内容以外的固定长度：类型、编号、流名称长度
+    private static final int FIXED_BODY_BYTES = 1 + 8 + 2;
+
+    // 段文件名前缀
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    // 段文件名后缀
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // 是否启用，关闭时所有方法都是空操作
+    private final boolean enabled;
+
+    // 段文件所在目录
+    private final Path directory;
+
+    // 每个段文件的大小
+    private final int segmentBytes;
+
+    // 批量刷盘的间隔（毫秒），0表示每次追加都刷盘
+    private final long fsyncIntervalMillis;
+
+    // 保护写入位置、段切换和条目索引的锁
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // 串行化刷盘的锁
+    private final Object flushLock = new Object();
+
+    // 各段中尚未完成的条目数，按段编号排序
+    private final TreeMap<Long, Integer> liveBySegment = new TreeMap<>();
+
+    // 尚未完成的条目所在的段
+    private final Map<Long, Long> segmentOfEntry = new HashMap<>();
+
+    // 启动时恢复的未完成条目，按流名称分组，取出后移除
+    private final Map<String, List<Entry>> recovered = new ConcurrentHashMap<>();
+
+    // 计算记录校验和，只在持有appendLock时使用
+    private final CRC32 crc = new CRC32();
+
+    // 当前段编号
+    private long segmentIndex;
+
+    // 当前段的文件通道
+    private FileChannel channel;
+
+    // 当前段的内存映射
+    private volatile MappedByteBuffer segment;
+
+    // 当前段中的写入偏移
+    private int writeOffset;
+
+    // 下一个条目编号
+    private long nextId;
+
+    // 已写入的逻辑位置，等于段编号乘以段大小再加上段内偏移
+    private volatile long writtenPosition;
+
+    // 已刷盘的逻辑位置，只在持有flushLock时修改
+    private long flushedPosition;
+
+    // 批量刷盘的后台线程
+    private ScheduledExecutorService flusher;
+
+    private TaskJournal(boolean enabled, Path directory, int segmentBytes, long fsyncIntervalMillis) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    /**
+     * 创建一个不写任何文件的日志
+     *
+     * @return 关闭状态的日志
+     */
+    public static TaskJournal disabled() {
+        return new TaskJournal(false, null, 0, 0L);
+    }
+
+    /**
+     * 打开日志目录，恢复未完成的条目并压缩为一个新的段
+     *
+     * @param directory 段文件所在目录，不存在时创建
+     * @param segmentBytes 每个段文件的大小
+     * @param fsyncIntervalMillis 批量刷盘的间隔（毫秒），0表示每次追加都刷盘
+     * @return 已打开的日志
+     * @throws IOException 如果读写段文件失败
+     */
+    public static TaskJournal open(Path directory, int segmentBytes, long fsyncIntervalMillis) throws IOException {
+        if (segmentBytes < 1024 || fsyncIntervalMillis < 0) {
+            throw new IllegalArgumentException("segmentBytes must be at least 1024 and fsyncIntervalMillis must not be negative");
+        }
+        TaskJournal journal = new TaskJournal(true, directory, segmentBytes, fsyncIntervalMillis);
+        journal.recover();
+        if (fsyncIntervalMillis > 0) {
+            journal.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            journal.flusher.scheduleWithFixedDelay(() -> journal.flush(journal.writtenPosition),
+                    fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    /**
+     * 判断日志是否启用
+     *
+     * @return 启用时返回true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一个条目
+     *
+     * @param stream 流名称，用于区分不同来源的条目
+     * @param payload 条目内容
+     * @return 条目编号，日志关闭时返回-1
+     * @throws UncheckedIOException 如果滚动段文件失败
+     */
+    public long append(String stream, String payload) {
+        if (!enabled) {
+            return -1L;
+        }
+        long id;
+        long end;
+        byte[] streamBytes = stream.getBytes(StandardCharsets.UTF_8);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        appendLock.lock();
+        try {
+            id = nextId++;
+            write(APPEND, id, streamBytes, payloadBytes);
+            segmentOfEntry.put(id, segmentIndex);
+            liveBySegment.merge(segmentIndex, 1, Integer::sum);
+            end = writtenPosition;
+        } finally {
+            appendLock.unlock();
+        }
+        if (fsyncIntervalMillis == 0) {
+            flush(end);
+        }
+        return id;
+    }
+
+    /**
+     * 标记条目已完成，重启后不再恢复
+     *
+     * @param id 条目编号，负数时忽略
+     */
+    public void commit(long id) {
+        if (!enabled || id < 0) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            Long entrySegment = segmentOfEntry.remove(id);
+            if (entrySegment == null) {
+                return;
+            }
+            write(COMMIT, id, new byte[0], new byte[0]);
+            liveBySegment.merge(entrySegment, -1, Integer::sum);
+            deleteDrainedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 取出启动时恢复的指定流的未完成条目，每个流只能取出一次
+     * 条目仍处于未完成状态，调用方重新处理完成后需要调用commit
+     *
+     * @param stream 流名称
+     * @return 按追加顺序排列的未完成条目
+     */
+    public List<Entry> takeRecovered(String stream) {
+        List<Entry> entries = recovered.remove(stream);
+        return entries == null ? Collections.emptyList() : entries;
+    }
+
+    /**
+     * 获取尚未完成的条目数
+     *
+     * @return 条目数
+     */
+    public int getLiveEntryCount() {
+        appendLock.lock();
+        try {
+            return segmentOfEntry.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 刷盘并关闭当前段
+     */
+    @Override
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        appendLock.lock();
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment {}", segmentIndex, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 把已写入的记录刷盘，已被其他线程的刷盘覆盖时直接返回
+     *
+     * @param position 需要持久化到的逻辑位置
+     */
+    private void flush(long position) {
+        synchronized (flushLock) {
+            if (flushedPosition >= position) {
+                return;
+            }
+            // 先读写入位置再读当前段：如果其间发生了段切换，旧段在切换时已经刷盘
+            long target = writtenPosition;
+            segment.force();
+            flushedPosition = target;
+        }
+    }
+
+    /**
+     * 写入一条记录，当前段空间不足时滚动到新段，调用方必须持有appendLock
+     */
+    private void write(byte type, long id, byte[] streamBytes, byte[] payloadBytes) {
+        int bodyBytes = FIXED_BODY_BYTES + streamBytes.length + payloadBytes.length;
+        int recordBytes = HEADER_BYTES + bodyBytes;
+        // 段末尾至少保留4字节的0作为结束标记
+        if (recordBytes + 4 > segmentBytes) {
+            throw new IllegalArgumentException("Journal record of " + recordBytes + " bytes exceeds the segment size");
+        }
+        if (writeOffset + recordBytes + 4 > segmentBytes) {
+            try {
+                rollSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to roll journal segment", e);
+            }
+        }
+        MappedByteBuffer buffer = segment;
+        int bodyOffset = writeOffset + HEADER_BYTES;
+        buffer.put(bodyOffset, type);
+        buffer.putLong(bodyOffset + 1, id);
+        buffer.putShort(bodyOffset + 9, (short) streamBytes.length);
+        buffer.put(bodyOffset + FIXED_BODY_BYTES, streamBytes);
+        buffer.put(bodyOffset + FIXED_BODY_BYTES + streamBytes.length, payloadBytes);
+        crc.reset();
+        crc.update(buffer.slice(bodyOffset, bodyBytes));
+        buffer.putInt(writeOffset + 4, (int) crc.getValue());
+        // 长度最后写入，扫描时遇到长度为0即认为到达末尾
+        buffer.putInt(writeOffset, bodyBytes);
+        writeOffset += recordBytes;
+        writtenPosition = segmentIndex * segmentBytes + writeOffset;
+    }
+
+    /**
+     * 刷盘并关闭当前段，创建下一个段，调用方必须持有appendLock
+     */
+    private void rollSegment() throws IOException {
+        if (segment != null) {
+            synchronized (flushLock) {
+                segment.force();
+                flushedPosition = writtenPosition;
+            }
+            channel.close();
+        }
+        segmentIndex++;
+        channel = FileChannel.open(segmentPath(segmentIndex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        writeOffset = 0;
+        liveBySegment.putIfAbsent(segmentIndex, 0);
+        writtenPosition = segmentIndex * segmentBytes;
+        deleteDrainedSegments();
+    }
+
+    /**
+     * 从最早的段开始删除条目已全部完成的段，遇到仍有未完成条目的段即停止，调用方必须持有appendLock
+     */
+    private void deleteDrainedSegments() {
+        Map.Entry<Long, Integer> oldest;
+        while ((oldest = liveBySegment.firstEntry()) != null && oldest.getKey() < segmentIndex && oldest.getValue() == 0) {
+            liveBySegment.pollFirstEntry();
+            try {
+                Files.deleteIfExists(segmentPath(oldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete drained journal segment {}", oldest.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 扫描已有的段文件，恢复未完成的条目，写入新段后删除旧段
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> indexes.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        Collections.sort(indexes);
+        LinkedHashMap<Long, Entry> live = new LinkedHashMap<>();
+        long maxId = -1L;
+        for (long index : indexes) {
+            maxId = Math.max(maxId, scan(segmentPath(index), live));
+        }
+        segmentIndex = indexes.isEmpty() ? -1L : indexes.get(indexes.size() - 1);
+        nextId = maxId + 1;
+        appendLock.lock();
+        try {
+            rollSegment();
+            for (Entry entry : live.values()) {
+                write(APPEND, entry.id(), entry.stream().getBytes(StandardCharsets.UTF_8), entry.payload().getBytes(StandardCharsets.UTF_8));
+                segmentOfEntry.put(entry.id(), segmentIndex);
+                liveBySegment.merge(segmentIndex, 1, Integer::sum);
+                recovered.computeIfAbsent(entry.stream(), key -> new ArrayList<>()).add(entry);
+            }
+            segment.force();
+        } finally {
+            appendLock.unlock();
+        }
+        for (long index : indexes) {
+            Files.deleteIfExists(segmentPath(index));
+        }
+        log.info("Journal opened at {}, recovered {} unfinished entries from {} segments", directory, live.size(), indexes.size());
+    }
+
+    /**
+     * 扫描一个段文件，把APPEND记录加入live，COMMIT记录从live中移除
+     *
+     * @return 段中出现的最大条目编号
+     */
+    private long scan(Path path, Map<Long, Entry> live) throws IOException {
+        long maxId = -1L;
+        try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            CRC32 checksum = new CRC32();
+            int offset = 0;
+            while (offset + HEADER_BYTES <= buffer.limit()) {
+                int bodyBytes = buffer.getInt(offset);
+                if (bodyBytes < FIXED_BODY_BYTES || offset + HEADER_BYTES + bodyBytes > buffer.limit()) {
+                    break;
+                }
+                int bodyOffset = offset + HEADER_BYTES;
+                checksum.reset();
+                checksum.update(buffer.slice(bodyOffset, bodyBytes));
+                if ((int) checksum.getValue() != buffer.getInt(offset + 4)) {
+                    log.warn("Journal segment {} has a torn record at offset {}, ignoring the rest", path.getFileName(), offset);
+                    break;
+                }
+                byte type = buffer.get(bodyOffset);
+                long id = buffer.getLong(bodyOffset + 1);
+                int streamLength = buffer.getShort(bodyOffset + 9);
+                maxId = Math.max(maxId, id);
+                if (type == APPEND) {
+                    byte[] streamBytes = new byte[streamLength];
+                    buffer.get(bodyOffset + FIXED_BODY_BYTES, streamBytes);
+                    byte[] payloadBytes = new byte[bodyBytes - FIXED_BODY_BYTES - streamLength];
+                    buffer.get(bodyOffset + FIXED_BODY_BYTES + streamLength, payloadBytes);
+                    live.put(id, new Entry(id, new String(streamBytes, StandardCharsets.UTF_8), new String(payloadBytes, StandardCharsets.UTF_8)));
+                } else if (type == COMMIT) {
+                    live.remove(id);
+                }
+                offset += HEADER_BYTES + bodyBytes;
+            }
+        }
+        return maxId;
+    }
+
+    /**
+     * 获取段文件路径
+     */
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 日志条目
+     *
+     * @param id 条目编号
+     * @param stream 流名称
+     * @param payload 条目内容
+     */
+    public record Entry(long id, String stream, String payload) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.learn.aegis.metrics;
+
+import com.learn.aegis.concurrent.LatencyHistogram;
+import com.learn.aegis.model.LatencyPercentiles;
+import com.learn.aegis.model.ThreadPoolLatency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个线程池的任务级指标
+ * 作为TaskDecorator包装提交的任务，记录任务在队列中的等待时间和执行时间，并统计被拒绝的任务数
+ * 等待时间和执行时间除了发布为Micrometer计时器，还记录到无分配的LatencyHistogram中，用于计算p50、p99和p999
+ */
+public class ExecutorMetrics implements TaskDecorator {
+
+    // 线程池名称
+    private final String poolName;
+
+    // 任务从提交到开始执行的等待时间
+    private final Timer queueWait;
+
+    // 任务的执行时间
+    private final Timer execution;
+
+    // 被拒绝的任务数
+    private final Counter rejected;
+
+    // 队列等待时间直方图（纳秒）
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+
+    // 执行时间直方图（纳秒）
+    private final LatencyHistogram executionHistogram = new LatencyHistogram();
+
+    // 已执行完成的任务数，与执行时间总和一起用于计算任意时间窗口内的平均执行时间
+    private final LongAdder executedTasks = new LongAdder();
+
+    // 执行时间总和（纳秒）
+    private final LongAdder totalExecutionNanos = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param registry 指标注册表
+     * @param poolName 线程池名称，作为指标的pool标签
+     */
+    public ExecutorMetrics(MeterRegistry registry, String poolName) {
+        this.poolName = poolName;
+        this.queueWait = Timer.builder("threadpool.queue.wait")
+                .description("Time tasks spend waiting in the queue before execution")
+                .tag("pool", poolName)
+                .register(registry);
+        this.execution = Timer.builder("threadpool.execution")
+                .description("Task execution time")
+                .tag("pool", poolName)
+                .register(registry);
+        this.rejected = Counter.builder("threadpool.rejected")
+                .description("Number of tasks rejected by the pool")
+                .tag("pool", poolName)
+                .register(registry);
+    }
+
+    /**
+     * 获取线程池名称
+     *
+     * @return 线程池名称
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * 包装任务，在提交时记录时间戳，执行时记录等待时间和执行时间
+     *
+     * @param runnable 原始任务
+     * @return 包装后的任务
+     */
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        long submittedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            long waitNanos = startedAt - submittedAt;
+            queueWait.record(waitNanos, TimeUnit.NANOSECONDS);
+            queueWaitHistogram.record(waitNanos);
+            try {
+                runnable.run();
+            } finally {
+                long executionNanos = System.nanoTime() - startedAt;
+                execution.record(executionNanos, TimeUnit.NANOSECONDS);
+                executionHistogram.record(executionNanos);
+                executedTasks.increment();
+                totalExecutionNanos.add(executionNanos);
+            }
+        };
+    }
+
+    /**
+     * 获取经过本装饰器执行完成的任务数
+     *
+     * @return 已执行完成的任务数
+     */
+    public long getExecutedTaskCount() {
+        return executedTasks.sum();
+    }
+
+    /**
+     * 获取经过本装饰器执行的任务的执行时间总和
+     *
+     * @return 执行时间总和（纳秒）
+     */
+    public long getTotalExecutionNanos() {
+        return totalExecutionNanos.sum();
+    }
+
+    /**
+     * 获取任务等待时间和执行时间的分位数统计
+     *
+     * @return 线程池的延迟分布
+     */
+    public ThreadPoolLatency latencySnapshot() {
+        return ThreadPoolLatency.builder()
+                .poolName(poolName)
+                .queueWait(percentiles(queueWaitHistogram))
+                .execution(percentiles(executionHistogram))
+                .build();
+    }
+
+    /**
+     * 记录一次任务拒绝
+     */
+    public void recordRejection() {
+        rejected.increment();
+    }
+
+    /**
+     * 包装拒绝策略，在执行原有策略之前记录拒绝次数
+     *
+     * @param delegate 原有的拒绝策略
+     * @return 带计数的拒绝策略
+     */
+    public RejectedExecutionHandler countRejections(RejectedExecutionHandler delegate) {
+        return (task, executor) -> {
+            recordRejection();
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    /**
+     * 从直方图计算分位数，单位由纳秒换算为微秒
+     */
+    private static LatencyPercentiles percentiles(LatencyHistogram histogram) {
+        return LatencyPercentiles.builder()
+                .count(histogram.getTotalCount())
+                .p50(TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(50.0)))
+                .p99(TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99.0)))
+                .p999(TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99.9)))
+                .max(TimeUnit.NANOSECONDS.toMicros(histogram.getMaxValue()))
+                .build();
+    }
+}
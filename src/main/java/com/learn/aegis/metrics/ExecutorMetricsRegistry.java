@@ -0,0 +1,155 @@
+package com.learn.aegis.metrics;
+
+import com.learn.aegis.concurrent.TaskCountingExecutorService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 线程池指标注册中心
+ * 为应用管理的每个线程池发布Micrometer指标：
+ * 线程池大小、活动线程数、队列长度、队列剩余容量、已完成任务数（通过bindGauges注册），
+ * 以及拒绝次数、队列等待时间和执行时间（通过forPool获取的ExecutorMetrics记录）。
+ * 所有指标都带有pool标签，可以在/actuator/metrics中按线程池查看。
+ */
+@Component
+public class ExecutorMetricsRegistry {
+
+    // Micrometer指标注册表
+    private final MeterRegistry meterRegistry;
+
+    // 按线程池名称缓存的任务级指标
+    private final ConcurrentHashMap<String, ExecutorMetrics> metricsByPool = new ConcurrentHashMap<>();
+
+    // 已注册的线程池实例提供者，FunctionCounter只弱引用其数据源，需要在这里保持强引用
+    // 按线程池名称排序，供快照采样按固定顺序遍历所有线程池
+    private final ConcurrentSkipListMap<String, Supplier<? extends Executor>> boundSources = new ConcurrentSkipListMap<>();
+
+    /**
+     * 构造方法
+     *
+     * @param meterRegistry Micrometer指标注册表
+     */
+    public ExecutorMetricsRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取指定线程池的任务级指标，不存在时创建
+     *
+     * @param poolName 线程池名称
+     * @return 任务级指标
+     */
+    public ExecutorMetrics forPool(String poolName) {
+        return metricsByPool.computeIfAbsent(poolName, name -> new ExecutorMetrics(meterRegistry, name));
+    }
+
+    /**
+     * 获取所有线程池的任务级指标
+     *
+     * @return 任务级指标集合
+     */
+    public Collection<ExecutorMetrics> getAll() {
+        return metricsByPool.values();
+    }
+
+    /**
+     * 获取所有注册过仪表指标的线程池，键为线程池名称
+     *
+     * @return 线程池名称到线程池实例提供者的只读视图
+     */
+    public Map<String, Supplier<? extends Executor>> getBoundSources() {
+        return Collections.unmodifiableMap(boundSources);
+    }
+
+    /**
+     * 注册线程池状态相关的仪表指标
+     * 每次采集时都通过source重新获取线程池实例，线程池被替换后指标自动指向新的实例
+     *
+     * @param poolName 线程池名称
+     * @param source 线程池实例的提供者，支持ThreadPoolExecutor、ForkJoinPool和TaskCountingExecutorService
+     */
+    public void bindGauges(String poolName, Supplier<? extends Executor> source) {
+        boundSources.put(poolName, source);
+        gauge("threadpool.pool.size", "Current number of threads in the pool", poolName, source, executor -> {
+            if (executor instanceof ThreadPoolExecutor pool) {
+                return pool.getPoolSize();
+            }
+            if (executor instanceof ForkJoinPool pool) {
+                return pool.getPoolSize();
+            }
+            if (executor instanceof TaskCountingExecutorService counting) {
+                return counting.getLiveTaskCount();
+            }
+            return Double.NaN;
+        });
+        gauge("threadpool.active", "Number of threads actively executing tasks", poolName, source, executor -> {
+            if (executor instanceof ThreadPoolExecutor pool) {
+                return pool.getActiveCount();
+            }
+            if (executor instanceof ForkJoinPool pool) {
+                return pool.getActiveThreadCount();
+            }
+            if (executor instanceof TaskCountingExecutorService counting) {
+                return counting.getLiveTaskCount();
+            }
+            return Double.NaN;
+        });
+        gauge("threadpool.queue.size", "Number of tasks waiting in the queue", poolName, source, executor -> {
+            if (executor instanceof ThreadPoolExecutor pool) {
+                return pool.getQueue().size();
+            }
+            if (executor instanceof ForkJoinPool pool) {
+                return pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+            }
+            return executor instanceof TaskCountingExecutorService ? 0 : Double.NaN;
+        });
+        gauge("threadpool.queue.remaining", "Remaining capacity of the queue", poolName, source, executor -> {
+            if (executor instanceof ThreadPoolExecutor pool) {
+                return pool.getQueue().remainingCapacity();
+            }
+            return Double.NaN;
+        });
+        FunctionCounter.builder("threadpool.completed", source, s -> {
+                    Executor executor = s.get();
+                    if (executor instanceof ThreadPoolExecutor pool) {
+                        return pool.getCompletedTaskCount();
+                    }
+                    if (executor instanceof TaskCountingExecutorService counting) {
+                        return counting.getCompletedTaskCount();
+                    }
+                    return Double.NaN;
+                })
+                .description("Number of tasks completed by the pool")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册一个从线程池实例计算取值的仪表
+     */
+    private void gauge(String name, String description, String poolName, Supplier<? extends Executor> source,
+                       ToDoubleFunction<Executor> value) {
+        Gauge.builder(name, source, s -> {
+                    Executor executor = s.get();
+                    return executor == null ? Double.NaN : value.applyAsDouble(executor);
+                })
+                .description(description)
+                .tag("pool", poolName)
+                // 提供者通常是lambda，没有其他强引用，必须由仪表持有以免被回收
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,66 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * BulkheadStats 类表示某个租户在舱壁隔离层中的配置和饱和情况。
+ */
+@Data
+@Builder
+public class BulkheadStats {
+    /**
+     * 租户标识。
+     */
+    private String tenant;
+
+    /**
+     * 该租户同时执行的任务数上限。
+     */
+    private int concurrencyLimit;
+
+    /**
+     * 该租户可排队等待的任务数上限。
+     */
+    private int queueQuota;
+
+    /**
+     * 公平调度的权重，权重越大每轮可出队的任务越多。
+     */
+    private int weight;
+
+    /**
+     * 正在执行的任务数。
+     */
+    private int running;
+
+    /**
+     * 排队等待的任务数。
+     */
+    private int queued;
+
+    /**
+     * 已接受的任务总数。
+     */
+    private long accepted;
+
+    /**
+     * 已完成的任务总数。
+     */
+    private long completed;
+
+    /**
+     * 被拒绝的任务总数，包括超出排队配额和被底层线程池拒绝的任务。
+     */
+    private long rejected;
+
+    /**
+     * 并发饱和度，即正在执行的任务数与并发上限之比。
+     */
+    private double concurrencySaturation;
+
+    /**
+     * 队列饱和度，即排队任务数与排队配额之比。
+     */
+    private double queueSaturation;
+}
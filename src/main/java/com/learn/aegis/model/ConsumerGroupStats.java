@@ -0,0 +1,39 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConsumerGroupStats 类表示一个消费组在主题上的成员、分区分配和消费延迟。
+ */
+@Data
+@Builder
+public class ConsumerGroupStats {
+    /**
+     * 消费组名称。
+     */
+    private String group;
+
+    /**
+     * 分配的代数，每次成员变化重新分配分区时加一。
+     */
+    private long generation;
+
+    /**
+     * 每个成员分配到的分区，键为消费者标识。
+     */
+    private Map<String, List<Integer>> assignment;
+
+    /**
+     * 每个分区尚未消费的消息数，按分区编号排列。
+     */
+    private List<Long> partitionLag;
+
+    /**
+     * 所有分区尚未消费的消息总数。
+     */
+    private long lag;
+}
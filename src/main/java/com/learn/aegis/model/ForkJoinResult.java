@@ -0,0 +1,56 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * ForkJoinResult 类表示一次分治并行计算的结果和工作窃取线程池的状态。
+ */
+@Data
+@Builder
+public class ForkJoinResult {
+    /**
+     * 计算类型：SUM、HISTOGRAM或SORT。
+     */
+    private String operation;
+
+    /**
+     * 输入数组的长度。
+     */
+    private int size;
+
+    /**
+     * 拆分阈值，区间长度不超过该值时顺序计算。
+     */
+    private int threshold;
+
+    /**
+     * 拆分出的子任务数量。
+     */
+    private long forkedTasks;
+
+    /**
+     * 计算耗时（微秒），不包含生成输入数组的时间。
+     */
+    private long elapsedMicros;
+
+    /**
+     * 求和结果，仅SUM计算填充。
+     */
+    private long sum;
+
+    /**
+     * 各桶的计数，仅HISTOGRAM计算填充。
+     */
+    private long[] histogram;
+
+    /**
+     * 排序结果是否有序，仅SORT计算填充。
+     */
+    private boolean sorted;
+
+    /**
+     * 计算完成后工作窃取线程池的状态。
+     */
+    private ThreadPoolMonitor pool;
+}
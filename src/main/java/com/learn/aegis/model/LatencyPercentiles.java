@@ -0,0 +1,36 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * LatencyPercentiles 类表示一组延迟样本的分位数统计，所有时间单位均为微秒。
+ */
+@Data
+@Builder
+public class LatencyPercentiles {
+    /**
+     * 样本数量。
+     */
+    private long count;
+
+    /**
+     * 中位数（p50）。
+     */
+    private long p50;
+
+    /**
+     * 99分位数（p99）。
+     */
+    private long p99;
+
+    /**
+     * 99.9分位数（p999）。
+     */
+    private long p999;
+
+    /**
+     * 最大值。
+     */
+    private long max;
+}
@@ -0,0 +1,68 @@
+package com.learn.aegis.model;
+
+import com.learn.aegis.constant.LockType;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * LockContentionStats 类表示一把锁的竞争情况，时间单位均为纳秒。
+ * 临界区通常只有几十到几百纳秒，按微秒统计会全部显示为0。
+ */
+@Data
+@Builder
+public class LockContentionStats {
+    /**
+     * 锁的名称。
+     */
+    private String name;
+
+    /**
+     * 锁的实现类型。
+     */
+    private LockType type;
+
+    /**
+     * 获取锁的总次数。
+     */
+    private long acquisitions;
+
+    /**
+     * 获取时锁已被其他线程持有、需要等待的次数。
+     */
+    private long contended;
+
+    /**
+     * 需要等待的获取占总次数的比例。
+     */
+    private double contentionRatio;
+
+    /**
+     * 所有等待的累计时间。
+     */
+    private long totalWaitNanos;
+
+    /**
+     * 单次等待的最长时间。
+     */
+    private long maxWaitNanos;
+
+    /**
+     * 持有时间的中位数（p50）。
+     */
+    private long holdP50Nanos;
+
+    /**
+     * 持有时间的99分位数（p99）。
+     */
+    private long holdP99Nanos;
+
+    /**
+     * 持有时间的99.9分位数（p999）。
+     */
+    private long holdP999Nanos;
+
+    /**
+     * 持有时间的最大值。
+     */
+    private long holdMaxNanos;
+}
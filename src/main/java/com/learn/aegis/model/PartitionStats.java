@@ -0,0 +1,36 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * PartitionStats 类表示主题中一个分区的深度和偏移量范围。
+ */
+@Data
+@Builder
+public class PartitionStats {
+    /**
+     * 分区编号。
+     */
+    private int partition;
+
+    /**
+     * 分区中保留的消息数。
+     */
+    private long depth;
+
+    /**
+     * 下一条消息的偏移量。
+     */
+    private long headOffset;
+
+    /**
+     * 保留的最早一条消息的偏移量。
+     */
+    private long tailOffset;
+
+    /**
+     * 分区已满时被淘汰的消息总数。
+     */
+    private long evicted;
+}
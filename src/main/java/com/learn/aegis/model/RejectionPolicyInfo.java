@@ -0,0 +1,39 @@
+package com.learn.aegis.model;
+
+import com.learn.aegis.constant.RejectionPolicyType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * RejectionPolicyInfo 类表示线程池当前使用的拒绝策略和各策略的处理次数。
+ */
+@Data
+@Builder
+public class RejectionPolicyInfo {
+    /**
+     * 当前使用的拒绝策略。
+     */
+    private RejectionPolicyType policy;
+
+    /**
+     * BOUNDED_WAIT_RETRY策略的最长等待时间（毫秒）。
+     */
+    private long retryWaitMillis;
+
+    /**
+     * SPILL_QUEUE策略的溢出队列中等待转移的任务数。
+     */
+    private int spillQueueSize;
+
+    /**
+     * SPILL_QUEUE策略的溢出队列容量。
+     */
+    private int spillCapacity;
+
+    /**
+     * 各策略各处理结果的次数，键为“策略:结果”。
+     */
+    private Map<String, Long> handled;
+}
@@ -0,0 +1,57 @@
+package com.learn.aegis.model;
+
+import com.learn.aegis.constant.ScheduleType;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * ScheduledJobInfo 类表示一个定时任务的当前状态。
+ */
+@Data
+@Builder
+public class ScheduledJobInfo {
+    /**
+     * 定时任务编号。
+     */
+    private long id;
+
+    /**
+     * 定时任务名称。
+     */
+    private String name;
+
+    /**
+     * 调度方式。
+     */
+    private ScheduleType type;
+
+    /**
+     * 首次执行前的延迟（毫秒）。
+     */
+    private long delayMillis;
+
+    /**
+     * 周期（毫秒），一次性任务为0。
+     */
+    private long periodMillis;
+
+    /**
+     * 已执行次数。
+     */
+    private long executions;
+
+    /**
+     * 下一次计划执行的时间（毫秒时间戳），没有后续执行时为0。
+     */
+    private long nextFireTime;
+
+    /**
+     * 任务状态：SCHEDULED、COMPLETED、CANCELLED或FAILED。
+     */
+    private String state;
+
+    /**
+     * 失败原因，只在状态为FAILED时有值。
+     */
+    private String failure;
+}
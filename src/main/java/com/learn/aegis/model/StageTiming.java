@@ -0,0 +1,42 @@
+package com.learn.aegis.model;
+
+import com.learn.aegis.constant.StageStatus;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * StageTiming 类表示任务图中一个阶段的执行结果和耗时。
+ */
+@Data
+@Builder
+public class StageTiming {
+    /**
+     * 阶段名称。
+     */
+    private String stage;
+
+    /**
+     * 执行该阶段的线程池名称。
+     */
+    private String executor;
+
+    /**
+     * 阶段的执行结果。
+     */
+    private StageStatus status;
+
+    /**
+     * 从依赖全部完成到开始执行的等待时间（微秒），没有执行时为0。
+     */
+    private long queuedMicros;
+
+    /**
+     * 阶段的执行时间（微秒），没有执行或超时后仍未结束时为0。
+     */
+    private long runMicros;
+
+    /**
+     * 阶段失败的原因，正常完成时为null。
+     */
+    private String error;
+}
@@ -0,0 +1,36 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * StreamStats 类表示流式通道的订阅和投递情况。
+ */
+@Data
+@Builder
+public class StreamStats {
+    /**
+     * 当前订阅者数量。
+     */
+    private int subscribers;
+
+    /**
+     * 每个订阅者的缓冲区容量，即每个订阅者最多积压的消息数。
+     */
+    private int bufferCapacity;
+
+    /**
+     * 已发布的消息总数。
+     */
+    private long published;
+
+    /**
+     * 因订阅者缓冲区已满而丢弃的投递次数。
+     */
+    private long dropped;
+
+    /**
+     * 所有订阅者中最大的积压消息数的估计值。
+     */
+    private int maxLag;
+}
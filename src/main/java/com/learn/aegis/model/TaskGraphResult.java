@@ -0,0 +1,34 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskGraphResult 类表示一次任务图执行的整体结果。
+ */
+@Data
+@Builder
+public class TaskGraphResult {
+    /**
+     * 是否所有阶段都正常完成。
+     */
+    private boolean success;
+
+    /**
+     * 从提交任务图到所有阶段结束的总耗时（微秒）。
+     */
+    private long elapsedMicros;
+
+    /**
+     * 正常完成的阶段结果，键为阶段名称。
+     */
+    private Map<String, Object> results;
+
+    /**
+     * 按声明顺序排列的各阶段执行结果和耗时。
+     */
+    private List<StageTiming> stages;
+}
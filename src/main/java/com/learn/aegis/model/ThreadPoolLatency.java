@@ -0,0 +1,27 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * ThreadPoolLatency 类表示一个线程池中任务的延迟分布。
+ * 队列等待时间与执行时间分开统计，用于判断应调整线程数还是队列容量。
+ */
+@Data
+@Builder
+public class ThreadPoolLatency {
+    /**
+     * 线程池名称。
+     */
+    private String poolName;
+
+    /**
+     * 任务从提交到开始执行的等待时间分布。
+     */
+    private LatencyPercentiles queueWait;
+
+    /**
+     * 任务的执行时间分布。
+     */
+    private LatencyPercentiles execution;
+}
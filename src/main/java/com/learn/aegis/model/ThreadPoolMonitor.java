@@ -1,15 +1,20 @@
 package com.learn.aegis.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * ThreadPoolMonitor 类用于监控线程池的状态和关键指标。
  * 它提供了线程池的类型、运行状态、核心线程数、最大线程数、活动线程数、已完成任务数、队列大小和类型，
  * 以及线程池是否已关闭或终止等信息。
+ * 除通过构建器创建一次性的结果外，也可以创建一次后反复填充，作为周期采样时复用的快照对象。
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ThreadPoolMonitor {
     /**
      * 线程池的类型，用于区分不同配置或用途的线程池。
@@ -41,6 +46,36 @@ public class ThreadPoolMonitor {
      */
     private long completedTasks;
 
+    /**
+     * 已开始执行的任务总数，仅对没有线程池指标的执行器（如虚拟线程执行器）统计。
+     */
+    private long startedTasks;
+
+    /**
+     * 正在运行的任务数，仅对没有线程池指标的执行器（如虚拟线程执行器）统计。
+     */
+    private long liveTasks;
+
+    /**
+     * 并行度，即工作窃取线程池的目标线程数，仅对ForkJoinPool统计。
+     */
+    private int parallelism;
+
+    /**
+     * 线程从其他线程的工作队列中窃取的任务总数，仅对ForkJoinPool统计。
+     */
+    private long stealCount;
+
+    /**
+     * 从外部提交、尚未被工作线程取走的任务数，仅对ForkJoinPool统计。
+     */
+    private int queuedSubmissions;
+
+    /**
+     * 没有因等待join或其他同步而阻塞的工作线程数，仅对ForkJoinPool统计。
+     */
+    private int runningThreads;
+
     /**
      * 等待执行的任务在队列中的数量。
      */
@@ -51,6 +86,11 @@ public class ThreadPoolMonitor {
      */
     private String queueType;
 
+    /**
+     * 调用shutdownNow后暂存、等待重启时重新提交的任务数。
+     */
+    private int parkedTasks;
+
     /**
      * 表示是否已启动线程池的关闭操作。已关闭的线程池不再接受新任务。
      */
@@ -0,0 +1,41 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * ThreadStateCounts 类表示线程登记表中处于各生命周期状态的线程数，以及线程创建的累计情况。
+ */
+@Data
+@Builder
+public class ThreadStateCounts {
+    /**
+     * 已创建但尚未开始运行的线程数。
+     */
+    private long newThreads;
+
+    /**
+     * 正在运行的线程数。
+     */
+    private long runnable;
+
+    /**
+     * 正在限时等待（如sleep）的线程数。
+     */
+    private long timedWaiting;
+
+    /**
+     * 已结束的线程总数。
+     */
+    private long terminated;
+
+    /**
+     * 累计创建的线程数。
+     */
+    private long created;
+
+    /**
+     * 因超出创建速率或存活线程数上限被拒绝的请求数。
+     */
+    private long rejected;
+}
@@ -0,0 +1,31 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * TopicRecord 类表示主题某个分区中的一条消息。
+ */
+@Data
+@Builder
+public class TopicRecord {
+    /**
+     * 消息所在的分区。
+     */
+    private int partition;
+
+    /**
+     * 消息在分区中的偏移量，从0开始连续递增。
+     */
+    private long offset;
+
+    /**
+     * 消息的键，相同键的消息总是进入同一个分区，为null时轮流进入各分区。
+     */
+    private String key;
+
+    /**
+     * 消息内容。
+     */
+    private String value;
+}
@@ -0,0 +1,38 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * TopicStats 类表示一个主题的分区深度和各消费组的消费延迟。
+ */
+@Data
+@Builder
+public class TopicStats {
+    /**
+     * 主题名称。
+     */
+    private String topic;
+
+    /**
+     * 每个分区最多保留的消息数。
+     */
+    private int partitionCapacity;
+
+    /**
+     * 所有分区保留的消息总数。
+     */
+    private long depth;
+
+    /**
+     * 各分区的深度和偏移量范围。
+     */
+    private List<PartitionStats> partitions;
+
+    /**
+     * 各消费组的分区分配和消费延迟。
+     */
+    private List<ConsumerGroupStats> groups;
+}
@@ -0,0 +1,46 @@
+package com.learn.aegis.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * TrackedThreadInfo 类表示线程登记表中一个线程的生命周期记录。
+ */
+@Data
+@Builder
+public class TrackedThreadInfo {
+    /**
+     * 登记表分配的线程编号。
+     */
+    private long id;
+
+    /**
+     * 线程名称。
+     */
+    private String name;
+
+    /**
+     * 是否为虚拟线程。
+     */
+    private boolean virtual;
+
+    /**
+     * 线程最近一次记录的生命周期状态。
+     */
+    private Thread.State state;
+
+    /**
+     * 线程创建的时间（毫秒时间戳）。
+     */
+    private long createdAt;
+
+    /**
+     * 线程开始运行的时间（毫秒时间戳），尚未运行时为0。
+     */
+    private long startedAt;
+
+    /**
+     * 线程结束的时间（毫秒时间戳），尚未结束时为0。
+     */
+    private long terminatedAt;
+}
@@ -0,0 +1,92 @@
+package com.learn.aegis.pipeline;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 任务图，由若干个有依赖关系的阶段组成，交给TaskExecutionService.execute异步执行
+ * 阶段必须在其依赖之后声明，因此任务图总是无环的：
+ * 多个阶段依赖同一个阶段即扇出，一个阶段依赖多个阶段即扇入，依赖两个阶段并合并其结果即thenCombine。
+ * 每个阶段在指定名称的线程池中执行，名称与线程池指标中的pool标签一致。
+ */
+public class TaskGraph {
+
+    // 按声明顺序保存的阶段
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    /**
+     * 声明一个没有依赖、没有超时的阶段
+     *
+     * @param name 阶段名称
+     * @param executor 执行阶段的线程池名称，为null时使用taskExecutor
+     * @param task 阶段任务
+     * @return 当前任务图
+     */
+    public TaskGraph stage(String name, String executor, Callable<?> task) {
+        return stage(name, executor, 0L, List.of(), inputs -> task.call());
+    }
+
+    /**
+     * 声明一个阶段
+     *
+     * @param name 阶段名称
+     * @param executor 执行阶段的线程池名称，为null时使用taskExecutor
+     * @param timeoutMillis 从依赖全部完成起的超时时间（毫秒），0表示不超时
+     * @param dependsOn 依赖的阶段名称，必须已经声明
+     * @param task 阶段任务，参数为依赖阶段的结果
+     * @return 当前任务图
+     * @throws IllegalArgumentException 如果阶段名称重复、依赖的阶段尚未声明或超时时间为负数
+     */
+    public TaskGraph stage(String name, String executor, long timeoutMillis, List<String> dependsOn, StageTask<?> task) {
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate stage: " + name);
+        }
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeoutMillis must not be negative");
+        }
+        for (String dependency : dependsOn) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException("Stage " + name + " depends on undeclared stage " + dependency);
+            }
+        }
+        stages.put(name, new Stage(name, executor, timeoutMillis, List.copyOf(dependsOn), task));
+        return this;
+    }
+
+    /**
+     * 获取按声明顺序排列的阶段
+     *
+     * @return 阶段集合
+     */
+    public Collection<Stage> getStages() {
+        return Collections.unmodifiableCollection(stages.values());
+    }
+
+    /**
+     * 阶段任务，与Callable相同，但可以读取依赖阶段的结果
+     *
+     * @param <T> 阶段结果类型
+     */
+    @FunctionalInterface
+    public interface StageTask<T> {
+
+        /**
+         * 执行阶段任务
+         *
+         * @param inputs 依赖阶段的结果，键为阶段名称
+         * @return 阶段结果
+         * @throws Exception 阶段执行失败时抛出
+         */
+        T call(Map<String, Object> inputs) throws Exception;
+    }
+
+    /**
+     * 任务图中的一个阶段
+     */
+    public record Stage(String name, String executor, long timeoutMillis, List<String> dependsOn, StageTask<?> task) {
+    }
+}
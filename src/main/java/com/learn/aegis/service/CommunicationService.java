@@ -1,5 +1,13 @@
 package com.learn.aegis.service;
 
+import com.learn.aegis.model.TopicRecord;
+import com.learn.aegis.model.TopicStats;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 定义了一个通信服务接口，用于模拟消息的生产和消费过程
  * 这个接口主要用于需要进行消息传递和处理的系统中，通过生产和消费方法来模拟消息的发送和接收
@@ -22,4 +30,120 @@ public interface CommunicationService {
      * @throws InterruptedException 如果消费消息的过程中被中断，则抛出此异常
      */
     String consume() throws InterruptedException;
+
+    /**
+     * 非阻塞地生产消息
+     * 如果有等待中的异步消费者，消息直接交给等待最久的消费者；否则放入消息队列，队列已满时立即失败而不是阻塞等待
+     *
+     * @return 生产结果，队列已满时以RejectedExecutionException异常完成
+     */
+    CompletableFuture<String> produceAsync();
+
+    /**
+     * 以长轮询方式异步消费消息
+     * 队列中有消息时立即返回；否则消费者以回调的形式挂起等待，不占用调用线程，
+     * 直到有生产者交付消息或等待超时
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 消费到的消息，超时时以TimeoutException异常完成
+     */
+    CompletableFuture<String> consumeAsync(long timeout, TimeUnit unit);
+
+    /**
+     * 批量生产消息
+     * 消息优先交给等待中的异步消费者，其余的按顺序放入队列，队列已满时阻塞等待
+     *
+     * @param items 要生产的消息列表，不能包含null
+     * @return 生产的消息数量
+     * @throws InterruptedException 如果生产消息的过程中被中断，则抛出此异常
+     */
+    int produceBatch(List<String> items) throws InterruptedException;
+
+    /**
+     * 批量消费消息
+     * 一次加锁取出队列中的多条消息；队列为空时最多等待maxWait，等到第一条消息后再取出其余已就绪的消息
+     *
+     * @param maxItems 最多消费的消息数量
+     * @param maxWait 队列为空时的最长等待时间
+     * @param unit 时间单位
+     * @return 消费到的消息列表，等待超时时返回空列表
+     * @throws InterruptedException 如果消费消息的过程中被中断，则抛出此异常
+     */
+    List<String> consumeBatch(int maxItems, long maxWait, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 以字节形式生产一条消息，队列已满时阻塞等待
+     * 使用堆外队列且没有开启预写日志、没有等待中的异步消费者时，字节直接写入堆外缓冲区，不创建字符串；
+     * 否则按UTF-8解码后与produce走相同的流程
+     *
+     * @param payload 消息内容，读取position到limit之间的字节
+     * @return 消息的字节数
+     * @throws InterruptedException 如果生产消息的过程中被中断，则抛出此异常
+     */
+    int produceBytes(ByteBuffer payload) throws InterruptedException;
+
+    /**
+     * 以字节形式消费一条消息，队列为空时最多等待timeout
+     * 使用堆外队列且没有开启预写日志时，直接从堆外缓冲区复制出字节，不创建字符串；否则返回消息的UTF-8编码
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 消息内容，等待超时时返回null
+     * @throws InterruptedException 如果消费消息的过程中被中断，则抛出此异常
+     */
+    byte[] consumeBytes(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 创建分区主题，主题已存在且分区数相同时直接返回
+     *
+     * @param topic 主题名称
+     * @param partitions 分区数
+     * @return 主题的统计信息
+     * @throws IllegalArgumentException 如果分区数不为正数或超过上限，或主题已存在但分区数不同
+     */
+    TopicStats createTopic(String topic, int partitions);
+
+    /**
+     * 向主题发布一条消息，相同键的消息进入同一个分区并保持顺序
+     *
+     * @param topic 主题名称，不存在时按默认分区数创建
+     * @param key 消息键，为null时轮流进入各分区
+     * @param value 消息内容
+     * @return 消息所在的分区和偏移量
+     */
+    TopicRecord publish(String topic, String key, String value);
+
+    /**
+     * 以消费组成员的身份从主题拉取消息，只读取分配给该成员的分区
+     *
+     * @param topic 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识，首次拉取时加入消费组
+     * @param maxItems 最多拉取的消息数
+     * @param maxWait 没有消息时的最长等待时间
+     * @param unit 时间单位
+     * @return 拉取到的消息，等待超时时为空列表，主题不存在时返回null
+     * @throws InterruptedException 如果等待期间线程被中断
+     */
+    List<TopicRecord> poll(String topic, String group, String consumer, int maxItems, long maxWait, TimeUnit unit)
+            throws InterruptedException;
+
+    /**
+     * 消费者离开消费组，其分区重新分配给组内的其他成员
+     *
+     * @param topic 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @return 消费者原本在组内返回true
+     */
+    boolean leaveGroup(String topic, String group, String consumer);
+
+    /**
+     * 获取主题各分区的深度和各消费组的消费延迟
+     *
+     * @param topic 主题名称
+     * @return 主题的统计信息，主题不存在时返回null
+     */
+    TopicStats topicStats(String topic);
 }
@@ -0,0 +1,167 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.forkjoin.ParallelHistogramTask;
+import com.learn.aegis.forkjoin.ParallelMergeSortTask;
+import com.learn.aegis.forkjoin.ParallelSumTask;
+import com.learn.aegis.model.ForkJoinResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分治并行计算服务类
+ * 在WORK_STEALING线程池中对随机生成的整数数组执行并行求和、直方图统计和归并排序，
+ * 拆分阈值可调，用于观察任务粒度对窃取次数和耗时的影响
+ */
+@Slf4j
+@Service
+public class ForkJoinComputationService {
+
+    // 允许的最大数组长度，避免一次请求占用过多内存
+    public static final int MAX_SIZE = 50_000_000;
+
+    // 随机数的取值上界（不包含）
+    private static final int VALUE_BOUND = 1_000_000;
+
+    // 按每个元素占用的堆内存估算可用的数组长度：排序需要两个int数组共8字节，只允许使用最大堆的四分之一
+    private static final long HEAP_BYTES_PER_VALUE = 32L;
+
+    // 按当前最大堆内存计算的数组长度上限，不超过MAX_SIZE
+    private final int maxSize = (int) Math.min(MAX_SIZE, Runtime.getRuntime().maxMemory() / HEAP_BYTES_PER_VALUE);
+
+    // 线程池生命周期服务，提供WORK_STEALING线程池
+    private final ThreadPoolLifecycleService threadPoolLifecycleService;
+
+    /**
+     * 构造方法
+     *
+     * @param threadPoolLifecycleService 线程池生命周期服务
+     */
+    @Autowired
+    public ForkJoinComputationService(ThreadPoolLifecycleService threadPoolLifecycleService) {
+        this.threadPoolLifecycleService = threadPoolLifecycleService;
+    }
+
+    /**
+     * 获取按当前最大堆内存计算的数组长度上限
+     *
+     * @return 数组长度上限，不超过MAX_SIZE
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 并行求和
+     *
+     * @param size 数组长度
+     * @param threshold 拆分阈值
+     * @param seed 随机数种子，相同种子生成相同的数组
+     * @return 返回计算结果
+     */
+    public ForkJoinResult sum(int size, int threshold, long seed) {
+        int[] values = generate(size, threshold, seed);
+        LongAdder forkedTasks = new LongAdder();
+        long start = System.nanoTime();
+        long sum = pool().invoke(new ParallelSumTask(values, 0, size, threshold, forkedTasks));
+        return result("SUM", size, threshold, forkedTasks, start)
+                .sum(sum)
+                .build();
+    }
+
+    /**
+     * 并行直方图统计，把取值范围平均分成若干个桶
+     * 每个叶子任务分配一个桶数量长度的计数数组，要求拆分阈值不小于桶数量，
+     * 所有叶子的计数数组总长度因此不超过数组长度的两倍
+     *
+     * @param size 数组长度
+     * @param buckets 桶数量
+     * @param threshold 拆分阈值
+     * @param seed 随机数种子，相同种子生成相同的数组
+     * @return 返回计算结果
+     * @throws IllegalArgumentException 如果桶数量超出范围或拆分阈值小于桶数量
+     */
+    public ForkJoinResult histogram(int size, int buckets, int threshold, long seed) {
+        if (buckets < 1 || buckets > VALUE_BOUND) {
+            throw new IllegalArgumentException("buckets must be between 1 and " + VALUE_BOUND);
+        }
+        if (threshold < buckets) {
+            throw new IllegalArgumentException("threshold must not be smaller than buckets");
+        }
+        int[] values = generate(size, threshold, seed);
+        LongAdder forkedTasks = new LongAdder();
+        long start = System.nanoTime();
+        long[] histogram = pool().invoke(new ParallelHistogramTask(values, 0, size, VALUE_BOUND, buckets, threshold, forkedTasks));
+        return result("HISTOGRAM", size, threshold, forkedTasks, start)
+                .histogram(histogram)
+                .build();
+    }
+
+    /**
+     * 并行归并排序，返回结果中只包含是否有序而不返回排序后的数组
+     *
+     * @param size 数组长度
+     * @param threshold 拆分阈值
+     * @param seed 随机数种子，相同种子生成相同的数组
+     * @return 返回计算结果
+     */
+    public ForkJoinResult sort(int size, int threshold, long seed) {
+        int[] values = generate(size, threshold, seed);
+        LongAdder forkedTasks = new LongAdder();
+        long start = System.nanoTime();
+        pool().invoke(new ParallelMergeSortTask(values, new int[size], 0, size, threshold, forkedTasks));
+        ForkJoinResult.ForkJoinResultBuilder builder = result("SORT", size, threshold, forkedTasks, start);
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = values[i - 1] <= values[i];
+        }
+        return builder.sorted(sorted).build();
+    }
+
+    /**
+     * 获取工作窃取线程池
+     *
+     * @throws IllegalStateException 如果WORK_STEALING线程池不是ForkJoinPool
+     */
+    private ForkJoinPool pool() {
+        ExecutorService executor = threadPoolLifecycleService.getExecutor(ThreadPoolType.WORK_STEALING);
+        if (!(executor instanceof ForkJoinPool forkJoinPool)) {
+            throw new IllegalStateException("WORK_STEALING pool is not a ForkJoinPool");
+        }
+        return forkJoinPool;
+    }
+
+    /**
+     * 校验参数并生成随机数组
+     */
+    private int[] generate(int size, int threshold, long seed) {
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxSize);
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        return new SplittableRandom(seed).ints(size, 0, VALUE_BOUND).toArray();
+    }
+
+    /**
+     * 填充计算结果的公共字段
+     */
+    private ForkJoinResult.ForkJoinResultBuilder result(String operation, int size, int threshold, LongAdder forkedTasks, long start) {
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        log.info("{} over {} values with threshold {} took {} us, forked {} tasks", operation, size, threshold, elapsedMicros, forkedTasks.sum());
+        return ForkJoinResult.builder()
+                .operation(operation)
+                .size(size)
+                .threshold(threshold)
+                .forkedTasks(forkedTasks.sum())
+                .elapsedMicros(elapsedMicros)
+                .pool(threadPoolLifecycleService.snapshot(ThreadPoolType.WORK_STEALING));
+    }
+}
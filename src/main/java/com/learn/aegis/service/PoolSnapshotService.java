@@ -0,0 +1,418 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.concurrent.TaskCountingExecutorService;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.model.ThreadPoolMonitor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 线程池快照服务类，按固定间隔采样所有注册过指标的线程池，并通过Server-Sent Events推送给订阅者
+ * 新订阅者先收到一次完整快照（snapshot事件），之后每个周期只收到发生变化的线程池和字段（delta事件），
+ * 没有任何变化的周期不发送事件。
+ * 采样复用每个线程池的两个ThreadPoolMonitor对象（本次和上次）以及同一个StringBuilder，
+ * 每个周期只为所有订阅者共享的一条JSON分配一个字符串；没有订阅者时不采样。
+ */
+@Slf4j
+@Service
+public class PoolSnapshotService {
+
+    // 新订阅者收到的完整快照事件名称
+    public static final String SNAPSHOT_EVENT = "snapshot";
+
+    // 只包含变化字段的增量事件名称
+    public static final String DELTA_EVENT = "delta";
+
+    // 线程池指标注册中心，从中获取所有线程池
+    private final ExecutorMetricsRegistry executorMetricsRegistry;
+
+    // 线程池生命周期服务，用于区分SHUTDOWN和STOP状态
+    private final ThreadPoolLifecycleService threadPoolLifecycleService;
+
+    // 推送间隔（毫秒）
+    private final long intervalMillis;
+
+    // 采样线程
+    private final ScheduledExecutorService sampler;
+
+    // 已收到完整快照、按周期接收增量的订阅者
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    // 等待在下一个周期接收完整快照的新订阅者
+    private final Queue<SseEmitter> newSubscribers = new ConcurrentLinkedQueue<>();
+
+    // 按线程池名称排序的采样槽位，只由采样线程修改
+    private final List<Slot> slots = new ArrayList<>();
+
+    // 按名称索引的采样槽位
+    private final Map<String, Slot> slotsByName = new HashMap<>();
+
+    // 复用的JSON缓冲区
+    private final StringBuilder buffer = new StringBuilder(1024);
+
+    /**
+     * 构造方法，启动采样线程
+     *
+     * @param executorMetricsRegistry 线程池指标注册中心
+     * @param threadPoolLifecycleService 线程池生命周期服务
+     * @param intervalMillis 推送间隔（毫秒）
+     * @throws IllegalArgumentException 如果推送间隔不为正数
+     */
+    @Autowired
+    public PoolSnapshotService(ExecutorMetricsRegistry executorMetricsRegistry,
+                               ThreadPoolLifecycleService threadPoolLifecycleService,
+                               @Value("${threadpool.snapshot.interval-millis:500}") long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive");
+        }
+        this.executorMetricsRegistry = executorMetricsRegistry;
+        this.threadPoolLifecycleService = threadPoolLifecycleService;
+        this.intervalMillis = intervalMillis;
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-snapshot-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取所有线程池的当前快照，每次调用返回新的对象
+     *
+     * @return 按线程池名称排序的快照列表
+     */
+    public List<ThreadPoolMonitor> snapshot() {
+        List<ThreadPoolMonitor> result = new ArrayList<>();
+        executorMetricsRegistry.getBoundSources().forEach((name, source) -> {
+            ThreadPoolMonitor monitor = new ThreadPoolMonitor();
+            sample(name, source.get(), monitor);
+            result.add(monitor);
+        });
+        return result;
+    }
+
+    /**
+     * 订阅线程池快照推送，连接不会超时，客户端断开后自动移除
+     *
+     * @return 推送快照的SSE连接
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Runnable remove = () -> {
+            subscribers.remove(emitter);
+            newSubscribers.remove(emitter);
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        newSubscribers.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * 获取推送间隔
+     *
+     * @return 推送间隔（毫秒）
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * 获取当前订阅者数量，包括尚未收到完整快照的新订阅者
+     *
+     * @return 订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscribers.size() + newSubscribers.size();
+    }
+
+    /**
+     * 采样所有线程池，并把与上次采样相比发生变化的字段编码为JSON
+     * 第一次采样到的线程池输出全部字段
+     *
+     * @return 增量JSON，没有任何变化时返回null
+     */
+    public synchronized String sampleDelta() {
+        syncSlots();
+        beginDocument();
+        boolean changed = false;
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            sample(slot.name, slot.source.get(), slot.current);
+            changed |= appendPool(slot.current, slot.sampled ? slot.previous : null);
+            // 交换两个快照对象，本次结果成为下次比较的基准，旧对象下次被覆盖复用
+            ThreadPoolMonitor latest = slot.current;
+            slot.current = slot.previous;
+            slot.previous = latest;
+            slot.sampled = true;
+        }
+        return changed ? endDocument() : null;
+    }
+
+    /**
+     * 把最近一次采样的结果完整编码为JSON
+     *
+     * @return 包含所有已采样线程池全部字段的JSON
+     */
+    public synchronized String encodeFull() {
+        beginDocument();
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot.sampled) {
+                appendPool(slot.previous, null);
+            }
+        }
+        return endDocument();
+    }
+
+    /**
+     * 停止采样并关闭所有订阅连接
+     */
+    @PreDestroy
+    public void destroy() {
+        sampler.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+        newSubscribers.forEach(SseEmitter::complete);
+    }
+
+    /**
+     * 一个推送周期：先向已有订阅者发送增量，再向新订阅者发送完整快照
+     */
+    private void tick() {
+        if (subscribers.isEmpty() && newSubscribers.isEmpty()) {
+            return;
+        }
+        try {
+            String delta = sampleDelta();
+            if (delta != null) {
+                for (SseEmitter emitter : subscribers) {
+                    send(emitter, DELTA_EVENT, delta);
+                }
+            }
+            if (!newSubscribers.isEmpty()) {
+                String full = encodeFull();
+                SseEmitter emitter;
+                while ((emitter = newSubscribers.poll()) != null) {
+                    if (send(emitter, SNAPSHOT_EVENT, full)) {
+                        subscribers.add(emitter);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // 采样失败不能让周期任务终止
+            log.warn("Pool snapshot sampling failed", e);
+        }
+    }
+
+    /**
+     * 向订阅者发送一个事件，发送失败时移除该订阅者
+     *
+     * @return 发送成功返回true
+     */
+    private boolean send(SseEmitter emitter, String event, String json) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(json, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开，连接由容器负责完成
+            subscribers.remove(emitter);
+            return false;
+        }
+    }
+
+    /**
+     * 为新注册的线程池创建采样槽位，线程池数量不变时不做任何分配
+     */
+    private void syncSlots() {
+        Map<String, Supplier<? extends Executor>> sources = executorMetricsRegistry.getBoundSources();
+        if (sources.size() == slots.size()) {
+            return;
+        }
+        slots.clear();
+        sources.forEach((name, source) -> slots.add(slotsByName.computeIfAbsent(name, key -> new Slot(key, source))));
+    }
+
+    /**
+     * 把线程池的当前状态填充到快照对象中，所有字段都会被覆盖
+     */
+    private void sample(String name, Executor executor, ThreadPoolMonitor monitor) {
+        monitor.setPoolType(name);
+        monitor.setStatus(executor instanceof ExecutorService service
+                ? threadPoolLifecycleService.statusOf(service).name() : null);
+        monitor.setCorePoolSize(0);
+        monitor.setMaximumPoolSize(0);
+        monitor.setActiveThreads(0);
+        monitor.setCompletedTasks(0);
+        monitor.setStartedTasks(0);
+        monitor.setLiveTasks(0);
+        monitor.setParallelism(0);
+        monitor.setStealCount(0);
+        monitor.setQueuedSubmissions(0);
+        monitor.setRunningThreads(0);
+        monitor.setQueueSize(0);
+        monitor.setQueueType(null);
+        monitor.setParkedTasks(0);
+        monitor.setShutdown(executor instanceof ExecutorService service && service.isShutdown());
+        monitor.setTerminated(executor instanceof ExecutorService service && service.isTerminated());
+        if (executor instanceof ThreadPoolExecutor pool) {
+            monitor.setCorePoolSize(pool.getCorePoolSize());
+            monitor.setMaximumPoolSize(pool.getMaximumPoolSize());
+            monitor.setActiveThreads(pool.getActiveCount());
+            monitor.setCompletedTasks(pool.getCompletedTaskCount());
+            monitor.setQueueSize(pool.getQueue().size());
+            monitor.setQueueType(pool.getQueue().getClass().getSimpleName());
+        } else if (executor instanceof ForkJoinPool pool) {
+            monitor.setActiveThreads(pool.getActiveThreadCount());
+            monitor.setParallelism(pool.getParallelism());
+            monitor.setStealCount(pool.getStealCount());
+            monitor.setQueuedSubmissions(pool.getQueuedSubmissionCount());
+            monitor.setRunningThreads(pool.getRunningThreadCount());
+            monitor.setQueueSize((int) Math.min(Integer.MAX_VALUE, pool.getQueuedTaskCount()));
+            monitor.setQueueType(ForkJoinPool.class.getSimpleName());
+        } else if (executor instanceof TaskCountingExecutorService counting) {
+            monitor.setActiveThreads((int) Math.min(Integer.MAX_VALUE, counting.getLiveTaskCount()));
+            monitor.setStartedTasks(counting.getStartedTaskCount());
+            monitor.setLiveTasks(counting.getLiveTaskCount());
+            monitor.setCompletedTasks(counting.getCompletedTaskCount());
+        }
+    }
+
+    /**
+     * 清空缓冲区并写入文档开头
+     */
+    private void beginDocument() {
+        buffer.setLength(0);
+        buffer.append("{\"timestamp\":").append(System.currentTimeMillis()).append(",\"pools\":{");
+    }
+
+    /**
+     * 写入文档结尾并生成字符串
+     */
+    private String endDocument() {
+        return buffer.append("}}").toString();
+    }
+
+    /**
+     * 写入一个线程池的字段，previous为null时写入全部字段，否则只写入与previous不同的字段
+     * 线程池名称、状态和队列类型都来自枚举名和类名，不需要转义
+     *
+     * @return 写入了至少一个字段返回true，否则缓冲区恢复原样并返回false
+     */
+    private boolean appendPool(ThreadPoolMonitor current, ThreadPoolMonitor previous) {
+        int mark = buffer.length();
+        separator();
+        buffer.append('"').append(current.getPoolType()).append("\":{");
+        int fieldsStart = buffer.length();
+        text("status", current.getStatus(), previous == null ? null : previous.getStatus(), previous == null);
+        number("corePoolSize", current.getCorePoolSize(), previous == null ? 0 : previous.getCorePoolSize(), previous == null);
+        number("maximumPoolSize", current.getMaximumPoolSize(), previous == null ? 0 : previous.getMaximumPoolSize(), previous == null);
+        number("activeThreads", current.getActiveThreads(), previous == null ? 0 : previous.getActiveThreads(), previous == null);
+        number("completedTasks", current.getCompletedTasks(), previous == null ? 0 : previous.getCompletedTasks(), previous == null);
+        number("startedTasks", current.getStartedTasks(), previous == null ? 0 : previous.getStartedTasks(), previous == null);
+        number("liveTasks", current.getLiveTasks(), previous == null ? 0 : previous.getLiveTasks(), previous == null);
+        number("parallelism", current.getParallelism(), previous == null ? 0 : previous.getParallelism(), previous == null);
+        number("stealCount", current.getStealCount(), previous == null ? 0 : previous.getStealCount(), previous == null);
+        number("queuedSubmissions", current.getQueuedSubmissions(), previous == null ? 0 : previous.getQueuedSubmissions(), previous == null);
+        number("runningThreads", current.getRunningThreads(), previous == null ? 0 : previous.getRunningThreads(), previous == null);
+        number("queueSize", current.getQueueSize(), previous == null ? 0 : previous.getQueueSize(), previous == null);
+        text("queueType", current.getQueueType(), previous == null ? null : previous.getQueueType(), previous == null);
+        bool("shutdown", current.isShutdown(), previous != null && previous.isShutdown(), previous == null);
+        bool("terminated", current.isTerminated(), previous != null && previous.isTerminated(), previous == null);
+        if (buffer.length() == fieldsStart) {
+            buffer.setLength(mark);
+            return false;
+        }
+        buffer.append('}');
+        return true;
+    }
+
+    /**
+     * 写入数值字段
+     */
+    private void number(String field, long value, long previous, boolean full) {
+        if (full || value != previous) {
+            separator();
+            buffer.append('"').append(field).append("\":").append(value);
+        }
+    }
+
+    /**
+     * 写入布尔字段
+     */
+    private void bool(String field, boolean value, boolean previous, boolean full) {
+        if (full || value != previous) {
+            separator();
+            buffer.append('"').append(field).append("\":").append(value);
+        }
+    }
+
+    /**
+     * 写入文本字段，null写为JSON的null
+     */
+    private void text(String field, String value, String previous, boolean full) {
+        if (full || !Objects.equals(value, previous)) {
+            separator();
+            buffer.append('"').append(field).append("\":");
+            if (value == null) {
+                buffer.append("null");
+            } else {
+                buffer.append('"').append(value).append('"');
+            }
+        }
+    }
+
+    /**
+     * 不是对象的第一个成员时写入逗号
+     */
+    private void separator() {
+        if (buffer.charAt(buffer.length() - 1) != '{') {
+            buffer.append(',');
+        }
+    }
+
+    /**
+     * 单个线程池的采样槽位，持有本次和上次两个可复用的快照对象
+     */
+    private static final class Slot {
+
+        private final String name;
+
+        private final Supplier<? extends Executor> source;
+
+        private ThreadPoolMonitor current = new ThreadPoolMonitor();
+
+        private ThreadPoolMonitor previous = new ThreadPoolMonitor();
+
+        // 是否已经采样过，未采样过的线程池下次输出全部字段
+        private boolean sampled;
+
+        private Slot(String name, Supplier<? extends Executor> source) {
+            this.name = name;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.concurrent.HierarchicalTimingWheel;
+import com.learn.aegis.constant.ScheduleType;
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.model.ScheduledJobInfo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 定时任务服务类，提供一次性、固定频率和固定间隔的定时任务
+ * 定时由分层时间轮负责，到期的任务交给SCHEDULED线程池执行，
+ * 因此大量定时任务的注册和取消不会争用ScheduledThreadPoolExecutor内部的延迟队列锁。
+ * SCHEDULED线程池拒绝到期的任务时，任务标记为FAILED并记录原因，不再安排后续执行。
+ * 已完成和失败的任务从任务表中移除，只保留最近若干个任务的最终状态
+ */
+@Slf4j
+@Service
+public class ScheduledJobService {
+
+    // 时间轮每个tick的时长（毫秒），决定了定时精度
+    private static final long TICK_MILLIS = 10L;
+
+    // 时间轮每层的槽位数量
+    private static final int WHEEL_SIZE = 256;
+
+    // 延迟和周期的上限（毫秒），避免计算下一次执行时间时溢出
+    private static final long MAX_DELAY_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    // 线程池生命周期服务，用于在SCHEDULED线程池中执行到期的任务
+    private final ThreadPoolLifecycleService threadPoolLifecycleService;
+
+    // 分层时间轮
+    private final HierarchicalTimingWheel timingWheel;
+
+    // 定时任务编号生成器
+    private final AtomicLong jobIdGenerator = new AtomicLong();
+
+    // 保留的已结束任务记录数
+    private final int historySize;
+
+    // 尚未结束的定时任务，按编号索引
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+
+    // 最近完成或失败的任务的最终状态，最新的在队尾
+    private final ConcurrentLinkedDeque<ScheduledJobInfo> finishedJobs = new ConcurrentLinkedDeque<>();
+
+    // 已结束任务记录的数量，ConcurrentLinkedDeque的size需要遍历
+    private final AtomicInteger finishedHistoryCount = new AtomicInteger();
+
+    /**
+     * 构造方法，保留最近100个已结束任务的记录
+     * 用于在Spring容器之外（如测试）直接创建服务
+     *
+     * @param threadPoolLifecycleService 线程池生命周期服务
+     */
+    public ScheduledJobService(ThreadPoolLifecycleService threadPoolLifecycleService) {
+        this(threadPoolLifecycleService, 100);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param threadPoolLifecycleService 线程池生命周期服务
+     * @param historySize 保留的已完成或失败任务记录数
+     * @throws IllegalArgumentException 如果保留记录数为负数
+     */
+    @Autowired
+    public ScheduledJobService(ThreadPoolLifecycleService threadPoolLifecycleService,
+                               @Value("${scheduled.job.history-size:100}") int historySize) {
+        if (historySize < 0) {
+            throw new IllegalArgumentException("historySize must not be negative");
+        }
+        this.threadPoolLifecycleService = threadPoolLifecycleService;
+        this.historySize = historySize;
+        // tick线程只执行dispatch，把任务交给SCHEDULED线程池，交接失败时由dispatch记录到任务上
+        this.timingWheel = new HierarchicalTimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE,
+                Runnable::run, "scheduled-job-timer");
+    }
+
+    /**
+     * 注册一个定时任务
+     *
+     * @param name 任务名称
+     * @param type 调度方式
+     * @param delayMillis 首次执行前的延迟（毫秒）
+     * @param periodMillis 周期（毫秒），周期性任务必须大于0，一次性任务忽略
+     * @param workMillis 每次执行模拟的工作时长（毫秒）
+     * @return 返回定时任务的当前状态
+     * @throws IllegalArgumentException 如果延迟为负数、周期性任务的周期不为正数，或延迟和周期超过一年
+     */
+    public ScheduledJobInfo schedule(String name, ScheduleType type, long delayMillis, long periodMillis, long workMillis) {
+        if (delayMillis < 0 || workMillis < 0) {
+            throw new IllegalArgumentException("delayMillis and workMillis must not be negative");
+        }
+        if (type != ScheduleType.DELAYED && periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis must be positive for periodic jobs");
+        }
+        if (delayMillis > MAX_DELAY_MILLIS || (type != ScheduleType.DELAYED && periodMillis > MAX_DELAY_MILLIS)) {
+            throw new IllegalArgumentException("delayMillis and periodMillis must not exceed " + MAX_DELAY_MILLIS);
+        }
+        long id = jobIdGenerator.incrementAndGet();
+        Job job = new Job(id, name == null ? type.name().toLowerCase() + "-" + id : name, type, delayMillis,
+                type == ScheduleType.DELAYED ? 0L : periodMillis, workMillis);
+        jobs.put(id, job);
+        synchronized (job) {
+            job.nextFireTime = System.currentTimeMillis() + delayMillis;
+            job.timeout = timingWheel.schedule(() -> dispatch(job), delayMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Scheduled job {} ({}) with delay {} ms and period {} ms", job.name, type, delayMillis, job.periodMillis);
+        return job.toInfo();
+    }
+
+    /**
+     * 获取尚未结束的定时任务和最近结束的任务的状态
+     *
+     * @return 按编号排序的定时任务列表
+     */
+    public List<ScheduledJobInfo> listJobs() {
+        return Stream.concat(jobs.values().stream().map(Job::toInfo), finishedJobs.stream())
+                .sorted(Comparator.comparingLong(ScheduledJobInfo::getId))
+                .toList();
+    }
+
+    /**
+     * 取消并移除一个定时任务，正在执行的那一次不会被中断
+     *
+     * @param id 定时任务编号
+     * @return 返回取消后的任务状态，任务不存在或已结束时返回null
+     */
+    public ScheduledJobInfo cancel(long id) {
+        Job job = jobs.remove(id);
+        if (job == null) {
+            return null;
+        }
+        synchronized (job) {
+            if (!job.completed && job.failure == null) {
+                job.cancelled = true;
+                job.timeout.cancel();
+            }
+        }
+        log.info("Cancelled job {}", job.name);
+        return job.toInfo();
+    }
+
+    /**
+     * 获取时间轮中等待到期的定时器数量
+     *
+     * @return 定时器数量
+     */
+    public int pendingTimers() {
+        return timingWheel.pendingTimeouts();
+    }
+
+    /**
+     * 在应用关闭时停止时间轮
+     */
+    @PreDestroy
+    public void destroy() {
+        timingWheel.stop();
+    }
+
+    /**
+     * 在tick线程中把到期的任务交给SCHEDULED线程池
+     * 线程池拒绝时任务不会再执行，标记为失败，避免周期性任务悄无声息地停止却仍显示为SCHEDULED
+     */
+    private void dispatch(Job job) {
+        try {
+            threadPoolLifecycleService.execute(ThreadPoolType.SCHEDULED, () -> fire(job));
+        } catch (RejectedExecutionException e) {
+            synchronized (job) {
+                if (!job.cancelled) {
+                    job.failure = "Rejected by SCHEDULED pool: " + e.getMessage();
+                    job.nextFireTime = 0L;
+                    retire(job);
+                }
+            }
+            log.error("Job {} failed, the SCHEDULED pool rejected its execution", job.name, e);
+        }
+    }
+
+    /**
+     * 执行一次定时任务，并为周期性任务安排下一次执行
+     * 与ScheduledThreadPoolExecutor一致，下一次执行在本次结束后才安排，同一任务不会并发执行
+     */
+    private void fire(Job job) {
+        if (job.cancelled) {
+            return;
+        }
+        try {
+            log.info("Running job {} (execution {})", job.name, job.executions.get() + 1);
+            if (job.workMillis > 0) {
+                Thread.sleep(job.workMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Job {} failed", job.name, e);
+        } finally {
+            job.executions.incrementAndGet();
+        }
+        synchronized (job) {
+            if (job.cancelled) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            switch (job.type) {
+                case DELAYED -> {
+                    job.completed = true;
+                    job.nextFireTime = 0L;
+                    retire(job);
+                    return;
+                }
+                // 固定频率以计划时间为基准，执行超时后会立即补上下一次
+                case FIXED_RATE -> job.nextFireTime += job.periodMillis;
+                // 固定间隔以本次结束时间为基准
+                case FIXED_DELAY -> job.nextFireTime = now + job.periodMillis;
+            }
+            job.timeout = timingWheel.schedule(() -> dispatch(job), Math.max(0L, job.nextFireTime - now), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 把已完成或失败的任务移出任务表，并保留其最终状态，超出保留数量时丢弃最早的记录
+     * 调用方持有任务的锁；任务已被cancel移除时不再记录
+     */
+    private void retire(Job job) {
+        if (!jobs.remove(job.id, job) || historySize == 0) {
+            return;
+        }
+        finishedJobs.addLast(job.toInfo());
+        if (finishedHistoryCount.incrementAndGet() > historySize && finishedJobs.pollFirst() != null) {
+            finishedHistoryCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * 已注册的定时任务
+     */
+    private static final class Job {
+        private final long id;
+        private final String name;
+        private final ScheduleType type;
+        private final long delayMillis;
+        private final long periodMillis;
+        private final long workMillis;
+        private final AtomicLong executions = new AtomicLong();
+        private HierarchicalTimingWheel.Timeout timeout;
+        private long nextFireTime;
+        private volatile boolean cancelled;
+        private boolean completed;
+        private String failure;
+
+        private Job(long id, String name, ScheduleType type, long delayMillis, long periodMillis, long workMillis) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.delayMillis = delayMillis;
+            this.periodMillis = periodMillis;
+            this.workMillis = workMillis;
+        }
+
+        private synchronized ScheduledJobInfo toInfo() {
+            return ScheduledJobInfo.builder()
+                    .id(id)
+                    .name(name)
+                    .type(type)
+                    .delayMillis(delayMillis)
+                    .periodMillis(periodMillis)
+                    .executions(executions.get())
+                    .nextFireTime(cancelled || completed || failure != null ? 0L : nextFireTime)
+                    .state(cancelled ? "CANCELLED" : completed ? "COMPLETED" : failure != null ? "FAILED" : "SCHEDULED")
+                    .failure(failure)
+                    .build();
+        }
+    }
+}
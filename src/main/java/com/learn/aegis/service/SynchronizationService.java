@@ -1,8 +1,15 @@
 package com.learn.aegis.service;
 
+import com.learn.aegis.constant.LockType;
+import com.learn.aegis.model.LockContentionStats;
+
+import java.util.List;
+
 /**
- * SynchronizationService 接口提供了两种方法来增加计数值。
- * 该接口用于演示在多个线程访问共享资源时实现线程安全的不同方式。
+ * SynchronizationService 接口提供了多种方法来增加计数值。
+ * 该接口用于演示在多个线程访问共享资源时实现线程安全的不同方式，
+ * 包括基于监视器锁的方式以及AtomicLong、LongAdder和分片计数器等无锁方式。
+ * 所有加锁的方式都记录锁的获取次数、竞争次数、等待时间和持有时间，用于比较不同锁实现的表现。
  */
 public interface SynchronizationService {
 
@@ -21,4 +28,55 @@ public interface SynchronizationService {
      * @return 增加后的新的计数值。
      */
     int increaseCountWithLock();
+
+    /**
+     * 使用AtomicLong的CAS操作增加计数值。
+     * 不加锁，但所有线程竞争同一个内存位置，高并发时CAS失败重试会增多。
+     *
+     * @return 增加后的新的计数值。
+     */
+    long increaseCountWithAtomic();
+
+    /**
+     * 使用LongAdder分段累加增加计数值。
+     * 竞争时各线程累加到不同的单元上；只写不读，汇总值通过getAdderCount单独读取，避免每次累加都读取所有单元。
+     */
+    void increaseCountWithAdder();
+
+    /**
+     * 读取LongAdder汇总得到的计数值，在并发更新时不是原子快照。
+     *
+     * @return 汇总得到的计数值。
+     */
+    long getAdderCount();
+
+    /**
+     * 使用按处理器分片并做缓存行填充的计数器增加计数值。
+     * 每个线程固定累加到自己散列到的单元上，单元之间做了填充以避免伪共享；
+     * 只写不读，汇总值通过getStripedCount单独读取，避免每次累加都把所有单元的缓存行拉到当前核心。
+     */
+    void increaseCountWithStripedCounter();
+
+    /**
+     * 读取分片计数器汇总得到的计数值，在并发更新时不是原子快照。
+     *
+     * @return 汇总得到的计数值。
+     */
+    long getStripedCount();
+
+    /**
+     * 使用指定类型的锁增加计数值。
+     * 每种锁类型保护各自独立的计数值，同一类型的并发调用之间保证线程安全。
+     *
+     * @param type 锁的实现类型
+     * @return 增加后该类型的计数值。
+     */
+    int increaseCountWith(LockType type);
+
+    /**
+     * 获取服务中所有锁的竞争情况。
+     *
+     * @return 按锁名称排序的竞争统计
+     */
+    List<LockContentionStats> getContentionStats();
 }
@@ -1,17 +1,98 @@
 package com.learn.aegis.service;
 
+import com.learn.aegis.config.ThreadPoolConfig;
+import com.learn.aegis.constant.StageStatus;
+import com.learn.aegis.constant.TaskPriority;
+import com.learn.aegis.metrics.ExecutorMetrics;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.model.StageTiming;
+import com.learn.aegis.model.TaskGraphResult;
+import com.learn.aegis.pipeline.TaskGraph;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
 /**
  * 任务执行服务类，提供任务执行的服务
  * 使用Spring的@Service注解标记为一个服务类
  * 使用Slf4j提供的日志工具记录日志信息
+ *
+ * 除了在调用线程中直接执行任务外，还提供按优先级和截止时间排序的异步提交：
+ * 任务进入基于PriorityBlockingQueue的线程池，按有效截止时间最早优先（EDF）执行，
+ * 有效截止时间由TaskPriority的最长等待时间实现老化，保证低优先级任务最终能够执行
+ *
+ * 多步骤的处理可以声明为任务图异步执行：每个阶段在指定名称的线程池中运行，依赖全部完成后通过回调触发，
+ * 等待依赖和超时都不占用线程，并记录每个阶段的排队等待时间和执行时间
  */
 @Service
 @Slf4j
 public class TaskExecutionService {
 
+    /**
+     * 优先级线程池在指标中的线程池名称
+     */
+    public static final String PRIORITY_POOL_NAME = "priorityExecutor";
+
+    // 任务提交序号，截止时间相同时先提交的任务先执行
+    private final AtomicLong sequence = new AtomicLong();
+
+    // 按有效截止时间排序的优先级线程池
+    private final ThreadPoolExecutor priorityExecutor;
+
+    // 优先级线程池的指标
+    private final ExecutorMetrics metrics;
+
+    // 线程池指标注册中心，同时用于按名称查找任务图阶段的线程池
+    private final ExecutorMetricsRegistry executorMetricsRegistry;
+
+    /**
+     * 构造方法，优先级线程池的线程数等于CPU核数，指标记录到独立的内存注册表中
+     * 用于在Spring容器之外（如基准测试）直接创建服务
+     */
+    public TaskExecutionService() {
+        this(new ExecutorMetricsRegistry(new SimpleMeterRegistry()), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造方法，创建优先级线程池并注册线程池指标
+     *
+     * @param executorMetricsRegistry 线程池指标注册中心
+     * @param poolSize 优先级线程池的线程数
+     */
+    @Autowired
+    public TaskExecutionService(ExecutorMetricsRegistry executorMetricsRegistry,
+                                @Value("${task.priority.pool-size:4}") int poolSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 优先级队列是无界的，核心线程数等于最大线程数
+        this.priorityExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> new Thread(runnable, "priority-pool-" + threadNumber.incrementAndGet()));
+        this.metrics = executorMetricsRegistry.forPool(PRIORITY_POOL_NAME);
+        this.executorMetricsRegistry = executorMetricsRegistry;
+        executorMetricsRegistry.bindGauges(PRIORITY_POOL_NAME, () -> priorityExecutor);
+    }
+
     /**
      * 执行一个给定的任务
      * 该方法接收一个Runnable类型的参数，代表一个可执行的任务
@@ -29,4 +110,230 @@ public class TaskExecutionService {
             log.error("Error executing task", e);
         }
     }
+
+    /**
+     * 按优先级提交一个没有截止时间的任务
+     *
+     * @param task 任务
+     * @param priority 任务优先级
+     * @param <T> 任务结果类型
+     * @return 任务结果，任务抛出异常时以该异常异常完成
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, TaskPriority priority) {
+        return submit(task, priority, null);
+    }
+
+    /**
+     * 按优先级和截止时间提交一个任务
+     * 截止时间只影响执行顺序，已经超过截止时间的任务仍然会执行
+     *
+     * @param task 任务
+     * @param priority 任务优先级
+     * @param deadline 截止时间，为null时只按优先级的最长等待时间排序
+     * @param <T> 任务结果类型
+     * @return 任务结果，任务抛出异常时以该异常异常完成，被拒绝时以RejectedExecutionException异常完成
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, TaskPriority priority, Instant deadline) {
+        long now = System.nanoTime();
+        long waitMillis = priority.getMaxWaitMillis();
+        if (deadline != null) {
+            waitMillis = Math.min(waitMillis, deadline.toEpochMilli() - System.currentTimeMillis());
+        }
+        long effectiveDeadline = now + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable body = metrics.decorate(() -> {
+            // 已被调用方取消的任务不再执行
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        try {
+            priorityExecutor.execute(new PrioritizedTask(body, effectiveDeadline, priority, sequence.getAndIncrement()));
+        } catch (RejectedExecutionException e) {
+            metrics.recordRejection();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 异步执行一个任务图
+     * 没有依赖的阶段立即提交，其他阶段在依赖全部正常完成后提交；依赖失败的阶段不执行，
+     * 超时的阶段以TimeoutException结束，但已经开始执行的任务不会被中断
+     *
+     * @param graph 任务图
+     * @return 所有阶段结束后完成的结果，不会异常完成
+     * @throws IllegalArgumentException 如果阶段指定的线程池不存在
+     */
+    public CompletableFuture<TaskGraphResult> execute(TaskGraph graph) {
+        // 先解析所有线程池，线程池名称有误时不提交任何阶段
+        Map<String, Executor> executors = new HashMap<>();
+        for (TaskGraph.Stage stage : graph.getStages()) {
+            String name = stage.executor() == null ? ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME : stage.executor();
+            executors.computeIfAbsent(name, this::resolveExecutor);
+        }
+        long startedAt = System.nanoTime();
+        Map<String, CompletableFuture<Object>> futures = new HashMap<>();
+        List<StageRun> runs = new ArrayList<>();
+        for (TaskGraph.Stage stage : graph.getStages()) {
+            StageRun run = new StageRun(stage, stage.executor() == null ? ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME : stage.executor());
+            Executor executor = executors.get(run.executor);
+            // 每个阶段持有自己依赖的future，回调线程不需要访问共享的map
+            Map<String, CompletableFuture<Object>> dependencies = new LinkedHashMap<>();
+            stage.dependsOn().forEach(dependency -> dependencies.put(dependency, futures.get(dependency)));
+            CompletableFuture<Void> ready = dependencies.isEmpty()
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.allOf(dependencies.values().toArray(new CompletableFuture<?>[0]));
+            CompletableFuture<Object> future = ready.thenCompose(ignored -> {
+                Map<String, Object> inputs = new HashMap<>();
+                // 依赖均已完成，join不会阻塞
+                dependencies.forEach((dependency, result) -> inputs.put(dependency, result.join()));
+                run.readyAt = System.nanoTime();
+                CompletableFuture<Object> body = CompletableFuture.supplyAsync(() -> run.call(inputs), executor);
+                return stage.timeoutMillis() > 0 ? body.orTimeout(stage.timeoutMillis(), TimeUnit.MILLISECONDS) : body;
+            });
+            futures.put(stage.name(), future);
+            runs.add(run);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> buildResult(runs, futures, startedAt));
+    }
+
+    /**
+     * 获取优先级队列中等待执行的任务数
+     *
+     * @return 任务数
+     */
+    public int getQueuedTaskCount() {
+        return priorityExecutor.getQueue().size();
+    }
+
+    /**
+     * 在应用关闭时关闭优先级线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        priorityExecutor.shutdown();
+    }
+
+    /**
+     * 按名称查找任务图阶段使用的线程池，每次执行时重新获取线程池实例，线程池重启后自动使用新的实例
+     * 优先级线程池的队列只接受PrioritizedTask，阶段以NORMAL优先级提交
+     */
+    private Executor resolveExecutor(String name) {
+        if (PRIORITY_POOL_NAME.equals(name)) {
+            return runnable -> priorityExecutor.execute(new PrioritizedTask(metrics.decorate(runnable),
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TaskPriority.NORMAL.getMaxWaitMillis()),
+                    TaskPriority.NORMAL, sequence.getAndIncrement()));
+        }
+        Supplier<? extends Executor> source = executorMetricsRegistry.getBoundSources().get(name);
+        if (source == null) {
+            throw new IllegalArgumentException("Unknown executor: " + name);
+        }
+        ExecutorMetrics poolMetrics = executorMetricsRegistry.forPool(name);
+        return runnable -> source.get().execute(poolMetrics.decorate(runnable));
+    }
+
+    /**
+     * 根据各阶段的future汇总任务图的执行结果
+     */
+    private TaskGraphResult buildResult(List<StageRun> runs, Map<String, CompletableFuture<Object>> futures, long startedAt) {
+        Map<String, Object> results = new LinkedHashMap<>();
+        List<StageTiming> timings = new ArrayList<>();
+        boolean success = true;
+        for (StageRun run : runs) {
+            CompletableFuture<Object> future = futures.get(run.stage.name());
+            StageTiming.StageTimingBuilder timing = StageTiming.builder()
+                    .stage(run.stage.name())
+                    .executor(run.executor)
+                    .queuedMicros(run.startedAt == 0 ? 0 : (run.startedAt - run.readyAt) / 1_000)
+                    .runMicros(run.finishedAt == 0 ? 0 : (run.finishedAt - run.startedAt) / 1_000);
+            if (!future.isCompletedExceptionally()) {
+                results.put(run.stage.name(), future.join());
+                timings.add(timing.status(StageStatus.COMPLETED).build());
+                continue;
+            }
+            success = false;
+            Throwable cause = future.handle((value, error) -> error).join();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            StageStatus status = run.readyAt == 0 ? StageStatus.SKIPPED
+                    : cause instanceof TimeoutException ? StageStatus.TIMED_OUT : StageStatus.FAILED;
+            timings.add(timing.status(status).error(cause.toString()).build());
+        }
+        long elapsedMicros = (System.nanoTime() - startedAt) / 1_000;
+        log.info("Task graph of {} stages finished in {} us, success: {}", runs.size(), elapsedMicros, success);
+        return TaskGraphResult.builder()
+                .success(success)
+                .elapsedMicros(elapsedMicros)
+                .results(results)
+                .stages(timings)
+                .build();
+    }
+
+    /**
+     * 任务图中一个阶段的一次执行，记录依赖就绪、开始执行和执行结束的时间
+     */
+    private static final class StageRun {
+
+        private final TaskGraph.Stage stage;
+
+        private final String executor;
+
+        private volatile long readyAt;
+
+        private volatile long startedAt;
+
+        private volatile long finishedAt;
+
+        private StageRun(TaskGraph.Stage stage, String executor) {
+            this.stage = stage;
+            this.executor = executor;
+        }
+
+        /**
+         * 在线程池中执行阶段任务，受检异常包装为CompletionException
+         */
+        private Object call(Map<String, Object> inputs) {
+            startedAt = System.nanoTime();
+            try {
+                return stage.task().call(inputs);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                finishedAt = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 优先级队列中的任务，按有效截止时间、优先级、提交序号依次比较
+     */
+    private record PrioritizedTask(Runnable body, long deadlineNanos, TaskPriority priority, long sequence)
+            implements Runnable, Comparable<PrioritizedTask> {
+
+        @Override
+        public void run() {
+            body.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            // 纳秒时间戳可能溢出，使用差值比较
+            long diff = deadlineNanos - other.deadlineNanos;
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
 }
@@ -1,41 +1,289 @@
 package com.learn.aegis.service;
 
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.concurrent.TokenBucket;
+import com.learn.aegis.concurrent.VirtualThreads;
+import com.learn.aegis.model.ThreadStateCounts;
+import com.learn.aegis.model.TrackedThreadInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 
 /**
  * ThreadLifecycleService 类提供了线程生命周期管理的相关服务
  * 它包含启动线程的方法，并记录线程的启动和睡眠日志
+ * 启动的线程都登记在线程登记表中：线程按编号命名，创建速率受令牌桶限制，同时存活的线程数也有上限，
+ * 线程在NEW、RUNNABLE、TIMED_WAITING、TERMINATED之间的每次转换都由线程自身记录并计数，
+ * 因此查询各状态的线程数只需读取计数器，不需要调用Thread.getAllStackTraces()遍历所有线程
  */
 @Slf4j
 @Service
 public class ThreadLifecycleService {
 
+    // 平台线程的名称前缀
+    private static final String PLATFORM_PREFIX = "tracked-platform-";
+
+    // 虚拟线程的名称前缀
+    private static final String VIRTUAL_PREFIX = "tracked-virtual-";
+
+    // 线程创建的限流器
+    private final TokenBucket creationLimiter;
+
+    // 保留的已结束线程记录数
+    private final int historySize;
+
+    // 同时存活的线程数上限
+    private final int maxLiveThreads;
+
+    // 虚拟线程工厂，当前运行时不支持虚拟线程时为null
+    private final ThreadFactory virtualThreadFactory;
+
+    // 线程编号生成器
+    private final AtomicLong threadIdGenerator = new AtomicLong();
+
+    // 尚未结束的线程，按编号索引
+    private final Map<Long, TrackedThread> liveThreads = new ConcurrentHashMap<>();
+
+    // 尚未结束的线程数，在创建线程前预留，保证并发创建时不超过上限
+    private final AtomicInteger liveCount = new AtomicInteger();
+
+    // 最近结束的线程，最新的在队尾
+    private final ConcurrentLinkedDeque<TrackedThread> terminatedThreads = new ConcurrentLinkedDeque<>();
+
+    // 已结束线程记录的数量，ConcurrentLinkedDeque的size需要遍历
+    private final AtomicInteger terminatedHistoryCount = new AtomicInteger();
+
+    // 按Thread.State序号索引的状态计数，NEW、RUNNABLE、TIMED_WAITING为当前线程数，TERMINATED为累计数
+    private final LongAdder[] stateCounts = new LongAdder[Thread.State.values().length];
+
+    // 累计创建的线程数
+    private final LongAdder createdCount = new LongAdder();
+
+    // 因超出创建速率或存活线程数上限被拒绝的请求数
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 构造方法，使用每秒50个、突发100个的创建速率，保留最近100个已结束线程的记录，最多同时存活500个线程
+     * 用于在Spring容器之外（如测试）直接创建服务
+     */
+    public ThreadLifecycleService() {
+        this(50, 100, 100, 500);
+    }
+
     /**
-     * 启动一个新的线程，该线程将在启动后睡眠1秒
+     * 构造方法，最多同时存活500个线程
      *
-     * @return 返回表示线程已启动的消息"Thread started"
+     * @param permitsPerSecond 每秒允许创建的线程数
+     * @param burst 允许突发创建的线程数
+     * @param historySize 保留的已结束线程记录数
+     * @throws IllegalArgumentException 如果速率或突发数不为正数，或保留记录数为负数
      */
-    public String startThread() {
+    public ThreadLifecycleService(double permitsPerSecond, int burst, int historySize) {
+        this(permitsPerSecond, burst, historySize, 500);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param permitsPerSecond 每秒允许创建的线程数
+     * @param burst 允许突发创建的线程数
+     * @param historySize 保留的已结束线程记录数
+     * @param maxLiveThreads 同时存活的线程数上限
+     * @throws IllegalArgumentException 如果速率、突发数或存活线程数上限不为正数，或保留记录数为负数
+     */
+    @Autowired
+    public ThreadLifecycleService(@Value("${thread.tracker.permits-per-second:50}") double permitsPerSecond,
+                                  @Value("${thread.tracker.burst:100}") int burst,
+                                  @Value("${thread.tracker.history-size:100}") int historySize,
+                                  @Value("${thread.tracker.max-live-threads:500}") int maxLiveThreads) {
+        if (historySize < 0) {
+            throw new IllegalArgumentException("historySize must not be negative");
+        }
+        if (maxLiveThreads <= 0) {
+            throw new IllegalArgumentException("maxLiveThreads must be positive");
+        }
+        this.creationLimiter = new TokenBucket(permitsPerSecond, burst);
+        this.historySize = historySize;
+        this.maxLiveThreads = maxLiveThreads;
+        this.virtualThreadFactory = VirtualThreads.isSupported() ? VirtualThreads.newThreadFactory(VIRTUAL_PREFIX) : null;
+        for (int i = 0; i < stateCounts.length; i++) {
+            stateCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 启动一个新的登记线程，该线程将在启动后睡眠指定时长
+     *
+     * @param virtual 是否使用虚拟线程
+     * @param sleepMillis 线程睡眠的时长（毫秒）
+     * @return 返回线程的登记记录
+     * @throws SaturationRejectedException 如果超出线程创建速率，或存活的线程数已达上限
+     * @throws IllegalArgumentException 如果睡眠时长为负数，或请求虚拟线程但当前运行时不支持
+     */
+    public TrackedThreadInfo startThread(boolean virtual, long sleepMillis) {
+        if (sleepMillis < 0) {
+            throw new IllegalArgumentException("sleepMillis must not be negative");
+        }
+        if (virtual && virtualThreadFactory == null) {
+            throw new IllegalArgumentException("Virtual threads are not supported by the current runtime");
+        }
+        // 先预留存活线程的名额，速率超限时归还，避免名额已满时白白消耗令牌
+        if (liveCount.incrementAndGet() > maxLiveThreads) {
+            liveCount.decrementAndGet();
+            rejectedCount.increment();
+            throw new SaturationRejectedException("Too many live threads, limit is " + maxLiveThreads);
+        }
+        if (!creationLimiter.tryAcquire()) {
+            liveCount.decrementAndGet();
+            rejectedCount.increment();
+            throw new SaturationRejectedException("Thread creation rate exceeded");
+        }
+        long id = threadIdGenerator.incrementAndGet();
+        TrackedThread tracked = new TrackedThread(id, (virtual ? VIRTUAL_PREFIX : PLATFORM_PREFIX) + id, virtual);
         // 创建一个新的线程，线程执行的任务定义在lambda表达式中
-        Thread thread = new Thread(() -> {
-            try {
-                // 线程睡眠1秒，模拟长时间运行的任务
-                Thread.sleep(1000);
-                // 记录日志，表明线程已完成睡眠
-                log.info("Thread has completed sleeping.");
-            } catch (InterruptedException e) {
-                // 如果线程在睡眠期间被中断，重新设置中断状态并记录错误日志
-                Thread.currentThread().interrupt();
-                log.error("Thread was interrupted.", e);
-            }
-        });
+        Runnable task = () -> run(tracked, sleepMillis);
+        Thread thread = virtual ? virtualThreadFactory.newThread(task) : new Thread(task);
+        thread.setName(tracked.name);
+        liveThreads.put(id, tracked);
+        createdCount.increment();
+        stateCounts[Thread.State.NEW.ordinal()].increment();
         // 启动线程
         thread.start();
         // 记录日志，表明线程已启动
-        log.info("Thread started.");
-        // 返回表示线程已启动的消息
-        return "Thread started";
+        log.info("Thread {} started.", tracked.name);
+        return tracked.toInfo();
+    }
+
+    /**
+     * 获取登记表中的线程，包括尚未结束的线程和最近结束的线程
+     *
+     * @return 按编号排序的线程记录
+     */
+    public List<TrackedThreadInfo> getRegistry() {
+        List<TrackedThreadInfo> result = new ArrayList<>();
+        terminatedThreads.forEach(tracked -> result.add(tracked.toInfo()));
+        liveThreads.values().forEach(tracked -> result.add(tracked.toInfo()));
+        result.sort(Comparator.comparingLong(TrackedThreadInfo::getId));
+        return result;
+    }
+
+    /**
+     * 获取各生命周期状态的线程数，只读取计数器
+     *
+     * @return 各状态的线程数和累计创建情况
+     */
+    public ThreadStateCounts getStateCounts() {
+        return ThreadStateCounts.builder()
+                .newThreads(stateCounts[Thread.State.NEW.ordinal()].sum())
+                .runnable(stateCounts[Thread.State.RUNNABLE.ordinal()].sum())
+                .timedWaiting(stateCounts[Thread.State.TIMED_WAITING.ordinal()].sum())
+                .terminated(stateCounts[Thread.State.TERMINATED.ordinal()].sum())
+                .created(createdCount.sum())
+                .rejected(rejectedCount.sum())
+                .build();
+    }
+
+    /**
+     * 登记线程的执行体，在每个阶段前后记录状态转换
+     */
+    private void run(TrackedThread tracked, long sleepMillis) {
+        tracked.startedAt = System.currentTimeMillis();
+        transition(tracked, Thread.State.RUNNABLE);
+        try {
+            transition(tracked, Thread.State.TIMED_WAITING);
+            try {
+                // 线程睡眠指定时长，模拟长时间运行的任务
+                Thread.sleep(sleepMillis);
+            } finally {
+                transition(tracked, Thread.State.RUNNABLE);
+            }
+            // 记录日志，表明线程已完成睡眠
+            log.info("Thread {} has completed sleeping.", tracked.name);
+        } catch (InterruptedException e) {
+            // 如果线程在睡眠期间被中断，重新设置中断状态并记录错误日志
+            Thread.currentThread().interrupt();
+            log.error("Thread {} was interrupted.", tracked.name, e);
+        } finally {
+            // 执行体返回后线程即将结束，在这里记录TERMINATED并移入已结束记录
+            tracked.terminatedAt = System.currentTimeMillis();
+            // 先归还存活线程的名额，观察到TERMINATED计数增加时名额已经可用
+            liveCount.decrementAndGet();
+            transition(tracked, Thread.State.TERMINATED);
+            liveThreads.remove(tracked.id);
+            retire(tracked);
+        }
+    }
+
+    /**
+     * 记录一次状态转换，原状态的计数减一，新状态的计数加一
+     */
+    private void transition(TrackedThread tracked, Thread.State next) {
+        stateCounts[tracked.state.ordinal()].decrement();
+        stateCounts[next.ordinal()].increment();
+        tracked.state = next;
+    }
+
+    /**
+     * 把已结束的线程加入最近结束记录，超出保留数量时丢弃最早的记录
+     */
+    private void retire(TrackedThread tracked) {
+        if (historySize == 0) {
+            return;
+        }
+        terminatedThreads.addLast(tracked);
+        if (terminatedHistoryCount.incrementAndGet() > historySize && terminatedThreads.pollFirst() != null) {
+            terminatedHistoryCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * 登记表中的一个线程，状态和时间只由线程自身写入
+     */
+    private static final class TrackedThread {
+
+        private final long id;
+
+        private final String name;
+
+        private final boolean virtual;
+
+        private final long createdAt = System.currentTimeMillis();
+
+        private volatile Thread.State state = Thread.State.NEW;
+
+        private volatile long startedAt;
+
+        private volatile long terminatedAt;
+
+        private TrackedThread(long id, String name, boolean virtual) {
+            this.id = id;
+            this.name = name;
+            this.virtual = virtual;
+        }
+
+        private TrackedThreadInfo toInfo() {
+            return TrackedThreadInfo.builder()
+                    .id(id)
+                    .name(name)
+                    .virtual(virtual)
+                    .state(state)
+                    .createdAt(createdAt)
+                    .startedAt(startedAt)
+                    .terminatedAt(terminatedAt)
+                    .build();
+        }
     }
 }
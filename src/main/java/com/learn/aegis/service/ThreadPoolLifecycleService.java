@@ -1,10 +1,24 @@
 package com.learn.aegis.service;
 
+import com.learn.aegis.concurrent.ResubmittableScheduledExecutor;
+import com.learn.aegis.concurrent.TaskCountingExecutorService;
+import com.learn.aegis.concurrent.VirtualThreads;
+import com.learn.aegis.constant.ThreadPoolStatus;
 import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.metrics.ExecutorMetrics;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
 import com.learn.aegis.model.ThreadPoolMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.*;
 
 /**
@@ -18,20 +32,77 @@ public class ThreadPoolLifecycleService {
     // 存储不同类型的线程池
     private final ConcurrentHashMap<ThreadPoolType, ExecutorService> threadPools = new ConcurrentHashMap<>();
 
+    // 线程池指标注册中心
+    private final ExecutorMetricsRegistry executorMetricsRegistry;
+
+    // 调用过shutdownNow的线程池，用于区分SHUTDOWN和STOP状态；弱引用，线程池被回收后自动移除
+    private final Set<ExecutorService> stoppedExecutors = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    // shutdownNow返回的未执行任务，按线程池类型暂存，重启时重新提交到新的线程池
+    private final ConcurrentHashMap<ThreadPoolType, Queue<Runnable>> parkedTasks = new ConcurrentHashMap<>();
+
+    // 在后台等待旧线程池排空的守护线程
+    private final ExecutorService drainer = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "pool-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
-     * 构造方法，初始化各种类型的线程池
+     * 构造方法，初始化各种类型的线程池，指标记录到独立的内存注册表中
+     * 用于在Spring容器之外（如基准测试）直接创建服务
      */
     public ThreadPoolLifecycleService() {
-        // 初始化固定大小的线程池，适合负载重的长期运行任务
-        threadPools.put(ThreadPoolType.FIXED, Executors.newFixedThreadPool(2));
-        // 初始化可缓存的线程池，适合执行大量短期异步任务
-        threadPools.put(ThreadPoolType.CACHED, Executors.newCachedThreadPool());
-        // 初始化单线程化的线程池，适合需要保证顺序执行的场景
-        threadPools.put(ThreadPoolType.SINGLE, Executors.newSingleThreadExecutor());
-        // 初始化定时调度的线程池，适合需要定时或延时执行任务的场景
-        threadPools.put(ThreadPoolType.SCHEDULED, Executors.newScheduledThreadPool(2));
-        // 初始化工作窃取的线程池，适合大量并发执行的任务，可以提高CPU利用率
-        threadPools.put(ThreadPoolType.WORK_STEALING, Executors.newWorkStealingPool());
+        this(new ExecutorMetricsRegistry(new SimpleMeterRegistry()));
+    }
+
+    /**
+     * 构造方法，初始化各种类型的线程池并注册线程池指标
+     *
+     * @param executorMetricsRegistry 线程池指标注册中心
+     */
+    @Autowired
+    public ThreadPoolLifecycleService(ExecutorMetricsRegistry executorMetricsRegistry) {
+        this.executorMetricsRegistry = executorMetricsRegistry;
+        for (ThreadPoolType type : ThreadPoolType.values()) {
+            ExecutorService executor = createPool(type);
+            if (executor != null) {
+                threadPools.put(type, executor);
+            }
+        }
+        // 注册线程池状态指标，每次采集时从map中读取，线程池被替换后指标自动指向新的实例
+        threadPools.keySet().forEach(type -> executorMetricsRegistry.bindGauges(poolName(type), () -> threadPools.get(type)));
+    }
+
+    /**
+     * 创建指定类型的线程池
+     *
+     * @param type 线程池类型
+     * @return 新创建的线程池，当前运行时不支持该类型时返回null
+     */
+    private ExecutorService createPool(ThreadPoolType type) {
+        return switch (type) {
+            // 固定大小的线程池，适合负载重的长期运行任务
+            case FIXED -> Executors.newFixedThreadPool(2);
+            // 可缓存的线程池，适合执行大量短期异步任务
+            case CACHED -> Executors.newCachedThreadPool();
+            // 单线程化的线程池，适合需要保证顺序执行的场景
+            // Executors.newSingleThreadExecutor返回的包装类无法获取线程池指标，这里直接创建单线程的ThreadPoolExecutor
+            case SINGLE -> new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+            // 定时调度的线程池，适合需要定时或延时执行任务的场景
+            // shutdownNow返回的ScheduledFutureTask在新线程池中会取消自己，这里使用能返回原始任务的子类
+            case SCHEDULED -> new ResubmittableScheduledExecutor(2);
+            // 工作窃取的线程池，适合大量并发执行的任务，可以提高CPU利用率
+            case WORK_STEALING -> Executors.newWorkStealingPool();
+            // 虚拟线程执行器，适合大量阻塞等待的任务，只在Java 21及以上版本可用
+            case VIRTUAL -> {
+                if (VirtualThreads.isSupported()) {
+                    yield new TaskCountingExecutorService(VirtualThreads.newThreadPerTaskExecutor("virtual-pool-"));
+                }
+                log.info("Virtual threads are not supported by the current runtime, {} pool is disabled", type);
+                yield null;
+            }
+        };
     }
 
     /**
@@ -52,7 +123,7 @@ public class ThreadPoolLifecycleService {
         // 日志记录：提交任务到指定类型的线程池
         log.info("Submitting task to {} pool", type);
         // 提交任务到线程池执行
-        executor.submit(() -> {
+        execute(type, () -> {
             // 日志记录：任务正在指定类型的线程池中执行
             log.info("Task executing in pool: {}", type);
             // 模拟任务执行时间
@@ -65,7 +136,63 @@ public class ThreadPoolLifecycleService {
         });
 
         // 构建并返回线程池监控对象，用于监控线程池的当前状态和指标
-        return buildMonitor((ThreadPoolExecutor) executor, type);
+        return buildMonitor(executor, type);
+    }
+
+    /**
+     * 提交任务到指定类型的线程池
+     * 任务会被包装以记录队列等待时间和执行时间，被拒绝时记录拒绝次数后重新抛出异常
+     *
+     * @param type 线程池类型
+     * @param task 任务
+     * @throws IllegalArgumentException 如果给定的线程池类型无效或未定义
+     * @throws RejectedExecutionException 如果线程池拒绝了任务
+     */
+    public void execute(ThreadPoolType type, Runnable task) {
+        ExecutorService executor = getExecutor(type);
+        ExecutorMetrics metrics = executorMetricsRegistry.forPool(poolName(type));
+        try {
+            executor.execute(metrics.decorate(task));
+        } catch (RejectedExecutionException e) {
+            metrics.recordRejection();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取线程池类型在指标中的名称
+     *
+     * @param type 线程池类型
+     * @return 指标中的线程池名称
+     */
+    public static String poolName(ThreadPoolType type) {
+        return type.name().toLowerCase();
+    }
+
+    /**
+     * 获取指定类型的共享线程池
+     * 线程池由本服务统一创建并长期持有，调用方不应自行关闭它
+     *
+     * @param type 线程池类型
+     * @return 对应类型的线程池实例
+     * @throws IllegalArgumentException 如果给定的线程池类型无效或未定义
+     */
+    public ExecutorService getExecutor(ThreadPoolType type) {
+        ExecutorService executor = threadPools.get(type);
+        if (executor == null) {
+            throw new IllegalArgumentException("Unsupported pool type");
+        }
+        return executor;
+    }
+
+    /**
+     * 获取指定类型线程池的当前快照
+     *
+     * @param type 线程池类型
+     * @return 返回一个线程池监控对象，包含线程池的当前状态和指标
+     */
+    public ThreadPoolMonitor snapshot(ThreadPoolType type) {
+        return buildMonitor(getExecutor(type), type);
     }
 
     /**
@@ -74,56 +201,239 @@ public class ThreadPoolLifecycleService {
      *
      * @param type 要关闭的线程池类型
      * @return 返回一个线程池监控对象，包含线程池的当前状态和指标
+     * @throws IllegalArgumentException 如果线程池类型不受支持
      */
     public ThreadPoolMonitor shutdownPool(ThreadPoolType type) {
-        // 根据类型获取对应的线程池
-        ExecutorService executor = threadPools.get(type);
-        // 如果线程池存在，则发起关闭线程池的请求
-        if (executor != null) {
-            // 尝试停止所有活动执行任务
-            executor.shutdown();
-            // 记录日志，表明线程池关闭已启动
-            log.info("{} pool shutdown initiated", type);
-        }
+        // 根据类型获取对应的线程池，当前运行时不支持的类型（如Java 17上的VIRTUAL）抛出异常
+        ExecutorService executor = getExecutor(type);
+        // 尝试停止所有活动执行任务
+        executor.shutdown();
+        // 记录日志，表明线程池关闭已启动
+        log.info("{} pool shutdown initiated", type);
         // 构建并返回线程池监控对象
-        return buildMonitor((ThreadPoolExecutor) executor, type);
+        return buildMonitor(executor, type);
     }
 
     /**
      * 立即关闭线程池方法
-     * 尝试停止所有活动执行任务，返回未执行的任务列表
+     * 尝试停止所有活动执行任务，未执行的任务暂存起来，下次重启该类型的线程池时重新提交
      *
      * @param type 要立即关闭的线程池类型
      * @return 返回一个线程池监控对象，包含线程池的当前状态和指标
+     * @throws IllegalArgumentException 如果线程池类型不受支持
      */
     public ThreadPoolMonitor shutdownNowPool(ThreadPoolType type) {
-        // 根据线程池类型获取对应的ExecutorService实例
-        ExecutorService executor = threadPools.get(type);
-        // 如果executor不为空，则尝试关闭线程池
-        if (executor != null) {
-            executor.shutdownNow();
-            // 记录日志，表明已启动线程池的立即关闭流程
-            log.info("{} pool immediate shutdown initiated", type);
-        }
+        // 根据线程池类型获取对应的ExecutorService实例，不支持的类型抛出异常
+        ExecutorService executor = getExecutor(type);
+        stoppedExecutors.add(executor);
+        List<Runnable> pending = stopNow(executor);
+        park(type, pending);
+        // 记录日志，表明已启动线程池的立即关闭流程
+        log.info("{} pool immediate shutdown initiated, {} pending tasks parked", type, pending.size());
         // 构建并返回线程池监控对象，用于后续监控线程池的关闭状态和其他指标
-        return buildMonitor((ThreadPoolExecutor) executor, type);
+        return buildMonitor(executor, type);
+    }
+
+    /**
+     * 重启线程池方法
+     * 先原子地换上新创建的线程池，之后提交的任务都进入新线程池；旧线程池调用shutdown后在后台继续执行已接受的任务，
+     * 超过排空期限仍未结束时调用shutdownNow，返回的未执行任务转移到新线程池。之前shutdownNow暂存的任务也一并提交到新线程池。
+     *
+     * @param type 要重启的线程池类型
+     * @param drainMillis 旧线程池的排空期限（毫秒）
+     * @return 返回新线程池的监控对象
+     * @throws IllegalArgumentException 如果给定的线程池类型无效或当前运行时不支持
+     */
+    public ThreadPoolMonitor restartPool(ThreadPoolType type, long drainMillis) {
+        ExecutorService fresh = createPool(type);
+        if (fresh == null) {
+            throw new IllegalArgumentException("Unsupported pool type");
+        }
+        ExecutorService old = threadPools.put(type, fresh);
+        log.info("{} pool restarted, draining the previous pool for up to {} ms", type, drainMillis);
+        if (old != null) {
+            old.shutdown();
+            drainer.execute(() -> drain(type, old, drainMillis));
+        }
+        resubmitParked(type);
+        return buildMonitor(fresh, type);
+    }
+
+    /**
+     * 获取shutdownNow后暂存的待重新提交的任务数
+     *
+     * @param type 线程池类型
+     * @return 暂存的任务数
+     */
+    public int getParkedTaskCount(ThreadPoolType type) {
+        Queue<Runnable> parked = parkedTasks.get(type);
+        return parked == null ? 0 : parked.size();
+    }
+
+    /**
+     * 关闭全部线程池，容器销毁时调用
+     */
+    @PreDestroy
+    public void destroy() {
+        threadPools.values().forEach(ExecutorService::shutdown);
+        drainer.shutdownNow();
+    }
+
+    /**
+     * 获取线程池的生命周期状态，根据该线程池是否调用过shutdownNow区分SHUTDOWN和STOP
+     *
+     * @param executor 线程池
+     * @return 线程池的生命周期状态
+     */
+    public ThreadPoolStatus statusOf(ExecutorService executor) {
+        return resolveStatus(executor, stoppedExecutors.contains(executor));
+    }
+
+    /**
+     * 根据线程池的公开状态推断其生命周期状态
+     * ThreadPoolExecutor没有公开运行状态，STOP需要由调用方根据是否调用过shutdownNow告知；
+     * 已关闭、没有线程且队列为空但尚未终止时视为TIDYING
+     *
+     * @param executor 线程池
+     * @param stopRequested 是否调用过shutdownNow
+     * @return 线程池的生命周期状态
+     */
+    public static ThreadPoolStatus resolveStatus(ExecutorService executor, boolean stopRequested) {
+        if (!executor.isShutdown()) {
+            return ThreadPoolStatus.RUNNING;
+        }
+        if (executor.isTerminated()) {
+            return ThreadPoolStatus.TERMINATED;
+        }
+        if (executor instanceof ThreadPoolExecutor pool && pool.getPoolSize() == 0 && pool.getQueue().isEmpty()) {
+            return ThreadPoolStatus.TIDYING;
+        }
+        if (executor instanceof ForkJoinPool pool && pool.getPoolSize() == 0 && pool.isQuiescent()) {
+            return ThreadPoolStatus.TIDYING;
+        }
+        return stopRequested ? ThreadPoolStatus.STOP : ThreadPoolStatus.SHUTDOWN;
+    }
+
+    /**
+     * 等待旧线程池排空，超过期限后强制关闭并把未执行的任务转移到当前线程池
+     */
+    private void drain(ThreadPoolType type, ExecutorService old, long drainMillis) {
+        try {
+            if (old.awaitTermination(drainMillis, TimeUnit.MILLISECONDS)) {
+                log.info("Previous {} pool drained", type);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stoppedExecutors.add(old);
+        List<Runnable> pending = stopNow(old);
+        log.warn("Previous {} pool did not drain in {} ms, moving {} pending tasks to the new pool", type, drainMillis, pending.size());
+        park(type, pending);
+        resubmitParked(type);
+    }
+
+    /**
+     * 立即关闭线程池，返回可以提交到其他线程池的未执行任务
+     * 定时调度线程池返回的是原始任务而不是绑定在原线程池上的ScheduledFutureTask
+     */
+    private static List<Runnable> stopNow(ExecutorService executor) {
+        if (executor instanceof ResubmittableScheduledExecutor scheduled) {
+            return scheduled.shutdownNowForResubmission();
+        }
+        return executor.shutdownNow();
+    }
+
+    /**
+     * 暂存未执行的任务
+     */
+    private void park(ThreadPoolType type, List<Runnable> tasks) {
+        if (!tasks.isEmpty()) {
+            parkedTasks.computeIfAbsent(type, key -> new ConcurrentLinkedQueue<>()).addAll(tasks);
+        }
+    }
+
+    /**
+     * 把暂存的任务提交到当前线程池，任务在暂存前已被包装过，直接提交即可
+     * 当前线程池已关闭时任务继续暂存
+     */
+    private void resubmitParked(ThreadPoolType type) {
+        Queue<Runnable> parked = parkedTasks.get(type);
+        if (parked == null) {
+            return;
+        }
+        Runnable task;
+        while ((task = parked.poll()) != null) {
+            try {
+                getExecutor(type).execute(task);
+            } catch (RejectedExecutionException e) {
+                parked.add(task);
+                log.warn("{} pool rejected parked tasks, {} remain parked", type, parked.size());
+                return;
+            }
+        }
     }
 
     /**
      * 构建线程池监控信息方法
      * 根据线程池执行器和类型，构建一个包含线程池详细状态的监控对象
      *
-     * @param executor 线程池执行器，从中获取监控信息
+     * 虚拟线程执行器填充已开始、正在运行和已完成的任务数，
+     * 工作窃取线程池填充并行度、窃取次数等ForkJoinPool指标，
+     * 其他非ThreadPoolExecutor实现的线程池只填充通用的状态字段
+     *
+     * @param executorService 线程池执行器，从中获取监控信息
      * @param type 线程池类型，用于监控信息中
      * @return 返回一个构建好的线程池监控对象
      */
-    private ThreadPoolMonitor buildMonitor(ThreadPoolExecutor executor, ThreadPoolType type) {
+    private ThreadPoolMonitor buildMonitor(ExecutorService executorService, ThreadPoolType type) {
+        if (executorService instanceof TaskCountingExecutorService counting) {
+            // 虚拟线程没有池的概念，用任务计数代替线程池指标
+            return ThreadPoolMonitor.builder()
+                    .poolType(type.getDescription())
+                    .status(resolveStatus(counting, stoppedExecutors.contains(counting)).name())
+                    .activeThreads((int) Math.min(Integer.MAX_VALUE, counting.getLiveTaskCount()))
+                    .startedTasks(counting.getStartedTaskCount())
+                    .liveTasks(counting.getLiveTaskCount())
+                    .completedTasks(counting.getCompletedTaskCount())
+                    .parkedTasks(getParkedTaskCount(type))
+                    .isShutdown(counting.isShutdown())
+                    .isTerminated(counting.isTerminated())
+                    .build();
+        }
+        if (executorService instanceof ForkJoinPool forkJoinPool) {
+            // 工作窃取线程池没有核心线程数和单一队列，用ForkJoinPool自身的指标代替
+            return ThreadPoolMonitor.builder()
+                    .poolType(type.getDescription())
+                    .status(resolveStatus(forkJoinPool, stoppedExecutors.contains(forkJoinPool)).name())
+                    .activeThreads(forkJoinPool.getActiveThreadCount())
+                    .parallelism(forkJoinPool.getParallelism())
+                    .stealCount(forkJoinPool.getStealCount())
+                    .queuedSubmissions(forkJoinPool.getQueuedSubmissionCount())
+                    .runningThreads(forkJoinPool.getRunningThreadCount())
+                    .queueSize((int) Math.min(Integer.MAX_VALUE, forkJoinPool.getQueuedTaskCount()))
+                    .queueType(ForkJoinPool.class.getSimpleName())
+                    .parkedTasks(getParkedTaskCount(type))
+                    .isShutdown(forkJoinPool.isShutdown())
+                    .isTerminated(forkJoinPool.isTerminated())
+                    .build();
+        }
+        if (!(executorService instanceof ThreadPoolExecutor executor)) {
+            // 无法获取线程数和队列信息，只返回关闭与终止状态
+            return ThreadPoolMonitor.builder()
+                    .poolType(type.getDescription())
+                    .status(resolveStatus(executorService, stoppedExecutors.contains(executorService)).name())
+                    .parkedTasks(getParkedTaskCount(type))
+                    .isShutdown(executorService.isShutdown())
+                    .isTerminated(executorService.isTerminated())
+                    .build();
+        }
         // 使用ThreadPoolMonitor的构建器模式创建一个新的实例
         return ThreadPoolMonitor.builder()
                 // 设置线程池类型描述
                 .poolType(type.getDescription())
-                // 根据线程池是否已终止，设置其状态
-                .status(executor.isTerminated() ? "TERMINATED" : "RUNNING")
+                // 设置线程池的生命周期状态
+                .status(resolveStatus(executor, stoppedExecutors.contains(executor)).name())
                 // 设置核心线程池大小
                 .corePoolSize(executor.getCorePoolSize())
                 // 设置最大线程池大小
@@ -136,6 +446,8 @@ public class ThreadPoolLifecycleService {
                 .queueSize(executor.getQueue().size())
                 // 设置队列类型
                 .queueType(executor.getQueue().getClass().getSimpleName())
+                // 设置shutdownNow后暂存、等待重启时重新提交的任务数
+                .parkedTasks(getParkedTaskCount(type))
                 // 设置线程池是否已关闭
                 .isShutdown(executor.isShutdown())
                 // 设置线程池是否已终止
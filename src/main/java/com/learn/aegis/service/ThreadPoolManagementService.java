@@ -1,9 +1,23 @@
 package com.learn.aegis.service;
 
+import com.learn.aegis.concurrent.ResizableBlockingQueue;
+import com.learn.aegis.constant.RejectionPolicyType;
+import com.learn.aegis.journal.TaskJournal;
+import com.learn.aegis.metrics.ExecutorMetrics;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.model.RejectionPolicyInfo;
+import com.learn.aegis.model.ThreadPoolLatency;
+import com.learn.aegis.threadpool.SwitchableRejectionHandler;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 /**
  * 线程池管理服务类，提供线程池的动态调整、状态获取和配置更新等功能
  */
@@ -20,17 +34,48 @@ public class ThreadPoolManagementService {
     @Autowired
     private ThreadPoolTaskExecutor threadPoolTaskExecutor;
 
+    // 自动注入线程池指标注册中心
+    @Autowired
+    private ExecutorMetricsRegistry executorMetricsRegistry;
+
+    // 自动注入线程池使用的可切换拒绝策略
+    @Autowired
+    private SwitchableRejectionHandler rejectionHandler;
+
+    // 自动注入预写日志，开启时提交的任务描述在执行完成前保存在日志中
+    @Autowired
+    private TaskJournal taskJournal;
+
+    /**
+     * 预写日志中任务描述所在的流名称
+     */
+    public static final String JOURNAL_STREAM = "task";
+
+    /**
+     * 启动时重新提交上次退出时尚未执行完成的任务
+     */
+    @PostConstruct
+    public void replayJournaledTasks() {
+        List<TaskJournal.Entry> entries = taskJournal.takeRecovered(JOURNAL_STREAM);
+        for (TaskJournal.Entry entry : entries) {
+            submitJournaled(entry.id(), Long.parseLong(entry.payload()));
+        }
+        if (!entries.isEmpty()) {
+            log.info("Resubmitted {} journaled tasks", entries.size());
+        }
+    }
+
     /**
      * 调整线程池的大小
      *
      * @param corePoolSize 核心线程池大小
      * @param maxPoolSize 最大线程池大小
+     * @throws IllegalArgumentException 如果线程数不合法
      */
     public void resizeThreadPool(int corePoolSize, int maxPoolSize) {
-        // 设置线程池的核心线程数
-        threadPoolTaskExecutor.setCorePoolSize(corePoolSize);
-        // 设置线程池的最大线程数
-        threadPoolTaskExecutor.setMaxPoolSize(maxPoolSize);
+        validatePoolSizes(corePoolSize, maxPoolSize);
+        // 按照不违反核心线程数不大于最大线程数的顺序设置线程数
+        applyPoolSizes(corePoolSize, maxPoolSize);
         // 记录调整线程池大小的日志信息
         log.info("Resized thread pool to CorePoolSize: {}, MaxPoolSize: {}", corePoolSize, maxPoolSize);
     }
@@ -41,40 +86,160 @@ public class ThreadPoolManagementService {
      * @return 线程池状态的字符串描述
      */
     public String getThreadPoolStatus() {
-        // 使用String.format格式化线程池状态信息，包括活动线程数、线程池总大小、活动任务数、已完成任务数和队列大小
-        return String.format("Active Threads: %d, Total Pool Size: %d, Active Tasks: %d, Completed Tasks: %d, Queue Size: %d",
-                // 获取线程池的活跃线程数、线程池总大小、活动任务数、已完成任务数和队列大小
-                threadPoolTaskExecutor.getActiveCount(),
-                // 获取线程池的线程池大小
-                threadPoolTaskExecutor.getPoolSize(),
-                // 获取线程池的队列大小
-                threadPoolTaskExecutor.getActiveCount(),
-                // 获取线程池已完成的任务数
-                threadPoolTaskExecutor.getThreadPoolExecutor().getCompletedTaskCount(),
-                // 获取线程池的队列大小
-                threadPoolTaskExecutor.getThreadPoolExecutor().getQueue().size());
+        ThreadPoolExecutor executor = threadPoolTaskExecutor.getThreadPoolExecutor();
+        int activeCount = executor.getActiveCount();
+        // 直接拼接而不使用String.format，避免每次轮询都创建Formatter和装箱参数
+        return new StringBuilder(128)
+                // 活跃线程数
+                .append("Active Threads: ").append(activeCount)
+                // 线程池大小
+                .append(", Total Pool Size: ").append(executor.getPoolSize())
+                // 活动任务数
+                .append(", Active Tasks: ").append(activeCount)
+                // 已完成的任务数
+                .append(", Completed Tasks: ").append(executor.getCompletedTaskCount())
+                // 队列大小
+                .append(", Queue Size: ").append(executor.getQueue().size())
+                .toString();
+    }
+
+    /**
+     * 切换线程池的拒绝策略
+     *
+     * @param policy 新的拒绝策略
+     * @return 返回切换后的拒绝策略信息
+     */
+    public RejectionPolicyInfo setRejectionPolicy(RejectionPolicyType policy) {
+        rejectionHandler.setPolicy(policy);
+        return rejectionHandler.info();
+    }
+
+    /**
+     * 获取线程池当前的拒绝策略和各策略的处理次数
+     *
+     * @return 拒绝策略信息
+     */
+    public RejectionPolicyInfo getRejectionPolicy() {
+        return rejectionHandler.info();
+    }
+
+    /**
+     * 向线程池提交一个模拟任务，线程池饱和时按当前拒绝策略处理
+     *
+     * @param workMillis 任务模拟的工作时长（毫秒）
+     * @throws org.springframework.core.task.TaskRejectedException 如果拒绝策略拒绝了任务
+     */
+    public void submitTask(long workMillis) {
+        // 任务描述即工作时长，先写入日志再提交
+        submitJournaled(taskJournal.append(JOURNAL_STREAM, Long.toString(workMillis)), workMillis);
+    }
+
+    /**
+     * 提交已写入日志的任务，执行完成或被拒绝后在日志中标记完成
+     *
+     * @param journalId 日志条目编号，未开启日志时为-1
+     * @param workMillis 任务模拟的工作时长（毫秒）
+     */
+    private void submitJournaled(long journalId, long workMillis) {
+        try {
+            threadPoolTaskExecutor.execute(() -> {
+                try {
+                    Thread.sleep(workMillis);
+                    taskJournal.commit(journalId);
+                } catch (InterruptedException e) {
+                    // 被中断的任务没有完成，保留在日志中，重启后重新执行
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } catch (RuntimeException e) {
+            // 被拒绝的任务已经告知调用方，不再在重启后恢复
+            taskJournal.commit(journalId);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取所有线程池中任务的队列等待时间和执行时间分布
+     *
+     * @return 各线程池的延迟分布，按线程池名称排序
+     */
+    public List<ThreadPoolLatency> getThreadPoolLatency() {
+        return executorMetricsRegistry.getAll().stream()
+                .map(ExecutorMetrics::latencySnapshot)
+                .sorted(Comparator.comparing(ThreadPoolLatency::getPoolName))
+                .toList();
     }
 
     /**
      * 更新线程池的配置
+     * 所有参数都直接作用于正在运行的线程池，不会重新创建线程池，已排队的任务不受影响
      *
      * @param corePoolSize 核心线程池大小
      * @param maxPoolSize 最大线程池大小
      * @param queueCapacity 队列容量
      * @param keepAliveSeconds 线程存活时间（秒）
+     * @throws IllegalStateException 如果当前线程池的工作队列不支持调整容量
+     * @throws IllegalArgumentException 如果参数不合法
      */
     public void updateThreadPoolConfig(int corePoolSize, int maxPoolSize, int queueCapacity, int keepAliveSeconds) {
-        // 设置线程池的核心线程数
-        threadPoolTaskExecutor.setCorePoolSize(corePoolSize);
-        // 设置线程池的最大线程数
-        threadPoolTaskExecutor.setMaxPoolSize(maxPoolSize);
-        // 设置线程池的工作队列容量
-        threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
+        // 获取线程池的工作队列，只有容量可调整的队列才能在不重建线程池的情况下修改容量
+        BlockingQueue<Runnable> queue = threadPoolTaskExecutor.getThreadPoolExecutor().getQueue();
+        if (!(queue instanceof ResizableBlockingQueue<Runnable> resizableQueue)) {
+            throw new IllegalStateException("Queue capacity cannot be changed at runtime for " + queue.getClass().getSimpleName());
+        }
+        // 先校验全部参数，避免部分配置生效后才失败
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("QueueCapacity must be positive");
+        }
+        validatePoolSizes(corePoolSize, maxPoolSize);
+        if (keepAliveSeconds < 0) {
+            throw new IllegalArgumentException("KeepAliveSeconds must not be negative");
+        }
+        if (keepAliveSeconds == 0 && threadPoolTaskExecutor.getThreadPoolExecutor().allowsCoreThreadTimeOut()) {
+            throw new IllegalArgumentException("KeepAliveSeconds must be positive when core threads are allowed to time out");
+        }
+        // 按照不违反核心线程数不大于最大线程数的顺序设置线程数
+        applyPoolSizes(corePoolSize, maxPoolSize);
         // 设置线程的存活时间
         threadPoolTaskExecutor.setKeepAliveSeconds(keepAliveSeconds);
-        // 初始化线程池
-        threadPoolTaskExecutor.initialize();
+        // 原地调整工作队列容量，同时同步执行器记录的配置值
+        resizableQueue.setCapacity(queueCapacity);
+        threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
         // 记录更新线程池配置的日志
         log.info("Updated thread pool configuration to CorePoolSize: {}, MaxPoolSize: {}, QueueCapacity: {}, KeepAliveSeconds: {}", corePoolSize, maxPoolSize, queueCapacity, keepAliveSeconds);
     }
+
+    /**
+     * 按ThreadPoolExecutor的要求校验线程数，在调用任何setter之前执行，不合法的请求不会让线程池处于部分调整的状态
+     *
+     * @param corePoolSize 核心线程池大小
+     * @param maxPoolSize 最大线程池大小
+     * @throws IllegalArgumentException 如果核心线程数为负数、最大线程数不为正数或核心线程数大于最大线程数
+     */
+    private static void validatePoolSizes(int corePoolSize, int maxPoolSize) {
+        if (corePoolSize < 0 || maxPoolSize <= 0) {
+            throw new IllegalArgumentException("CorePoolSize must not be negative and MaxPoolSize must be positive");
+        }
+        if (corePoolSize > maxPoolSize) {
+            throw new IllegalArgumentException("CorePoolSize must not exceed MaxPoolSize");
+        }
+    }
+
+    /**
+     * 设置核心线程数和最大线程数，调用方必须先校验
+     * ThreadPoolExecutor要求任意时刻核心线程数都不大于最大线程数，
+     * 因此扩大时先设置最大线程数，缩小时先设置核心线程数
+     *
+     * @param corePoolSize 核心线程池大小
+     * @param maxPoolSize 最大线程池大小
+     */
+    private void applyPoolSizes(int corePoolSize, int maxPoolSize) {
+        if (maxPoolSize >= threadPoolTaskExecutor.getCorePoolSize()) {
+            threadPoolTaskExecutor.setMaxPoolSize(maxPoolSize);
+            threadPoolTaskExecutor.setCorePoolSize(corePoolSize);
+        } else {
+            threadPoolTaskExecutor.setCorePoolSize(corePoolSize);
+            threadPoolTaskExecutor.setMaxPoolSize(maxPoolSize);
+        }
+    }
 }
@@ -1,21 +1,122 @@
 package com.learn.aegis.service.impl;
 
+import com.learn.aegis.broker.TopicBroker;
+import com.learn.aegis.concurrent.OffHeapBlockingQueue;
+import com.learn.aegis.journal.TaskJournal;
+import com.learn.aegis.model.TopicRecord;
+import com.learn.aegis.model.TopicStats;
 import com.learn.aegis.service.CommunicationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 实现CommunicationService接口的服务类，提供消息的生产和消费功能
- * 使用ArrayBlockingQueue作为消息队列，确保线程安全
+ * 消息队列由CommunicationChannelConfig按配置创建，可以是ArrayBlockingQueue、LinkedBlockingQueue、
+ * LinkedTransferQueue、无锁环形缓冲区或堆外字节环形缓冲区，均保证线程安全
+ * 使用堆外队列时，按字节生产和消费的消息直接在请求的字节与堆外缓冲区之间复制，不经过字符串
+ * 异步消费者在队列为空时以CompletableFuture的形式排队等待，不占用线程；
+ * 生产者优先把消息直接交给等待最久的异步消费者，没有等待者时才放入队列
+ * 开启预写日志时，消息在入队前写入日志，被消费或交给等待者后标记完成，重启时未被消费的消息重新入队
+ * 除单一队列外，还提供按主题和分区组织的消息代理：消息按键的哈希进入各自有独立锁的分区，
+ * 消费组成员分别消费分配给自己的分区，不同分区的生产者和消费者不再争用同一把锁
  */
 @Service
 @Slf4j
 public class CommunicationServiceImpl implements CommunicationService {
 
-    // 消息队列，容量固定为10
-    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(10);
+    // 消息队列
+    private final BlockingQueue<String> queue;
+
+    // 保护等待消费者队列的锁，等待中的消费者只在持有该锁时被完成或移除
+    private final ReentrantLock waitersLock = new ReentrantLock();
+
+    // 等待中的异步消费者，按到达顺序排列
+    private final ArrayDeque<CompletableFuture<String>> waitingConsumers = new ArrayDeque<>();
+
+    // 等待中的异步消费者数量，生产者据此在没有等待者时跳过加锁
+    private volatile int waitingConsumerCount;
+
+    /**
+     * 预写日志中通信通道消息所在的流名称
+     */
+    public static final String JOURNAL_STREAM = "channel";
+
+    // 不通过Spring创建时主题的默认分区数
+    private static final int DEFAULT_TOPIC_PARTITIONS = 4;
+
+    // 不通过Spring创建时每个分区最多保留的消息数
+    private static final int DEFAULT_PARTITION_CAPACITY = 1024;
+
+    // 预写日志
+    private final TaskJournal journal;
+
+    // 尚未被消费的消息在日志中的编号，内容相同的消息可以互换，消费时完成最早的一条
+    private final Map<String, ArrayDeque<Long>> pendingJournalIds = new ConcurrentHashMap<>();
+
+    // 按主题和分区组织的消息代理
+    private final TopicBroker topicBroker;
+
+    /**
+     * 构造方法，不写预写日志
+     *
+     * @param queue 消息队列
+     */
+    public CommunicationServiceImpl(BlockingQueue<String> queue) {
+        this(queue, TaskJournal.disabled(), new TopicBroker(DEFAULT_TOPIC_PARTITIONS, DEFAULT_PARTITION_CAPACITY));
+    }
+
+    /**
+     * 构造方法，开启预写日志时把上次未被消费的消息重新放入队列
+     *
+     * @param queue 消息队列，由CommunicationChannelConfig按配置创建
+     * @param journal 预写日志
+     * @param topicBroker 按主题和分区组织的消息代理
+     */
+    @Autowired
+    public CommunicationServiceImpl(@Qualifier("communicationQueue") BlockingQueue<String> queue, TaskJournal journal,
+                                    TopicBroker topicBroker) {
+        this.queue = queue;
+        this.journal = journal;
+        this.topicBroker = topicBroker;
+        List<TaskJournal.Entry> recovered = journal.takeRecovered(JOURNAL_STREAM);
+        int restored = 0;
+        for (TaskJournal.Entry entry : recovered) {
+            // 队列放不下的消息保留在日志中，下次启动时再恢复
+            if (queue.offer(entry.payload())) {
+                register(entry.payload(), entry.id());
+                restored++;
+            }
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Restored {} of {} journaled channel items", restored, recovered.size());
+        }
+    }
+
+    /**
+     * 构造方法，使用指定容量的ArrayBlockingQueue作为消息队列
+     *
+     * @param capacity 消息队列容量
+     */
+    public CommunicationServiceImpl(int capacity) {
+        this(new ArrayBlockingQueue<>(capacity));
+    }
 
     /**
      * 生产消息并放入队列
@@ -25,8 +126,7 @@ public class CommunicationServiceImpl implements CommunicationService {
      */
     @Override
     public String produce() throws InterruptedException {
-        // 将消息放入队列，如果队列已满，则阻塞等待
-        queue.put("item");
+        enqueue("item");
         log.info("Produced an item.");
         return "Produced an item";
     }
@@ -41,7 +141,408 @@ public class CommunicationServiceImpl implements CommunicationService {
     public String consume() throws InterruptedException {
         // 从队列中取出消息，如果队列为空，则阻塞等待
         String item = queue.take();
+        acknowledge(item);
         log.info("Consumed an item: {}", item);
         return "Consumed an item: " + item;
     }
+
+    /**
+     * 非阻塞地生产消息
+     *
+     * @return 生产结果，队列已满时以RejectedExecutionException异常完成
+     */
+    @Override
+    public CompletableFuture<String> produceAsync() {
+        String item = "item";
+        journal(item);
+        if (handOff(item)) {
+            acknowledge(item);
+        } else {
+            // 队列已满时立即失败，不阻塞调用线程
+            if (!queue.offer(item)) {
+                acknowledge(item);
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Queue is full"));
+            }
+            dispatchToWaitingConsumers();
+        }
+        log.info("Produced an item.");
+        return CompletableFuture.completedFuture("Produced an item");
+    }
+
+    /**
+     * 以长轮询方式异步消费消息
+     * 超时通过CompletableFuture的共享延迟调度线程触发，等待中的消费者不占用任何线程
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 消费到的消息，超时时以TimeoutException异常完成
+     */
+    @Override
+    public CompletableFuture<String> consumeAsync(long timeout, TimeUnit unit) {
+        String item = queue.poll();
+        if (item != null) {
+            acknowledge(item);
+            log.info("Consumed an item: {}", item);
+            return CompletableFuture.completedFuture(item);
+        }
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        waitersLock.lock();
+        try {
+            // 先登记再检查队列，保证与生产者的入队后检查之间不会漏掉消息
+            waitingConsumers.addLast(waiter);
+            waitingConsumerCount++;
+            item = queue.poll();
+            if (item != null) {
+                waitingConsumers.removeLast();
+                waitingConsumerCount--;
+            }
+        } finally {
+            waitersLock.unlock();
+        }
+        if (item != null) {
+            acknowledge(item);
+            log.info("Consumed an item: {}", item);
+            return CompletableFuture.completedFuture(item);
+        }
+        CompletableFuture.delayedExecutor(timeout, unit).execute(() -> expire(waiter));
+        return waiter;
+    }
+
+    /**
+     * 批量生产消息
+     *
+     * @param items 要生产的消息列表，不能包含null
+     * @return 生产的消息数量
+     * @throws InterruptedException 如果线程被中断
+     */
+    @Override
+    public int produceBatch(List<String> items) throws InterruptedException {
+        // 不可变列表（如List.of）的contains(null)会抛出空指针异常，因此逐个检查
+        for (String item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException("Items must not contain null");
+            }
+        }
+        items.forEach(this::journal);
+        // 先在一次加锁中尽可能多地交给等待中的异步消费者
+        int handedOff = handOffBatch(items);
+        for (int i = 0; i < handedOff; i++) {
+            acknowledge(items.get(i));
+        }
+        for (int i = handedOff; i < items.size(); i++) {
+            queue.put(items.get(i));
+        }
+        if (handedOff < items.size()) {
+            dispatchToWaitingConsumers();
+        }
+        log.info("Produced {} items.", items.size());
+        return items.size();
+    }
+
+    /**
+     * 批量消费消息
+     * 使用drainTo在一次加锁中取出多条消息
+     *
+     * @param maxItems 最多消费的消息数量
+     * @param maxWait 队列为空时的最长等待时间
+     * @param unit 时间单位
+     * @return 消费到的消息列表，等待超时时返回空列表
+     * @throws InterruptedException 如果线程被中断
+     */
+    @Override
+    public List<String> consumeBatch(int maxItems, long maxWait, TimeUnit unit) throws InterruptedException {
+        if (maxItems <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> batch = new ArrayList<>(Math.min(maxItems, queue.size() + 1));
+        if (queue.drainTo(batch, maxItems) == 0) {
+            // 队列为空时等待第一条消息，随后再取出已就绪的其余消息
+            String first = queue.poll(maxWait, unit);
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxItems - 1);
+        }
+        batch.forEach(this::acknowledge);
+        log.info("Consumed {} items.", batch.size());
+        return batch;
+    }
+
+    /**
+     * 以字节形式生产一条消息
+     *
+     * @param payload 消息内容，读取position到limit之间的字节
+     * @return 消息的字节数
+     * @throws InterruptedException 如果线程被中断
+     */
+    @Override
+    public int produceBytes(ByteBuffer payload) throws InterruptedException {
+        int length = payload.remaining();
+        if (queue instanceof OffHeapBlockingQueue offHeap && !journal.isEnabled() && waitingConsumerCount == 0) {
+            // 字节直接复制到堆外缓冲区，不创建字符串
+            offHeap.putBytes(payload);
+            dispatchToWaitingConsumers();
+        } else {
+            enqueue(StandardCharsets.UTF_8.decode(payload.duplicate()).toString());
+        }
+        log.info("Produced an item of {} bytes.", length);
+        return length;
+    }
+
+    /**
+     * 以字节形式消费一条消息
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 消息内容，等待超时时返回null
+     * @throws InterruptedException 如果线程被中断
+     */
+    @Override
+    public byte[] consumeBytes(long timeout, TimeUnit unit) throws InterruptedException {
+        if (queue instanceof OffHeapBlockingQueue offHeap && !journal.isEnabled()) {
+            // 直接从堆外缓冲区复制出字节，不解码为字符串
+            return offHeap.pollBytes(timeout, unit);
+        }
+        String item = queue.poll(timeout, unit);
+        if (item == null) {
+            return null;
+        }
+        acknowledge(item);
+        return item.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 创建分区主题
+     *
+     * @param topic 主题名称
+     * @param partitions 分区数
+     * @return 主题的统计信息
+     */
+    @Override
+    public TopicStats createTopic(String topic, int partitions) {
+        TopicStats stats = topicBroker.createTopic(topic, partitions);
+        log.info("Topic {} ready with {} partitions.", topic, partitions);
+        return stats;
+    }
+
+    /**
+     * 向主题发布一条消息，分区由消息键的哈希决定
+     *
+     * @param topic 主题名称
+     * @param key 消息键
+     * @param value 消息内容
+     * @return 消息所在的分区和偏移量
+     */
+    @Override
+    public TopicRecord publish(String topic, String key, String value) {
+        return topicBroker.publish(topic, key, value);
+    }
+
+    /**
+     * 以消费组成员的身份从主题拉取消息
+     *
+     * @param topic 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @param maxItems 最多拉取的消息数
+     * @param maxWait 没有消息时的最长等待时间
+     * @param unit 时间单位
+     * @return 拉取到的消息，等待超时时为空列表，主题不存在时返回null
+     * @throws InterruptedException 如果线程被中断
+     */
+    @Override
+    public List<TopicRecord> poll(String topic, String group, String consumer, int maxItems, long maxWait, TimeUnit unit)
+            throws InterruptedException {
+        return topicBroker.poll(topic, group, consumer, maxItems, maxWait, unit);
+    }
+
+    /**
+     * 消费者离开消费组
+     *
+     * @param topic 主题名称
+     * @param group 消费组名称
+     * @param consumer 消费者标识
+     * @return 消费者原本在组内返回true
+     */
+    @Override
+    public boolean leaveGroup(String topic, String group, String consumer) {
+        return topicBroker.leave(topic, group, consumer);
+    }
+
+    /**
+     * 获取主题各分区的深度和各消费组的消费延迟
+     *
+     * @param topic 主题名称
+     * @return 主题的统计信息，主题不存在时返回null
+     */
+    @Override
+    public TopicStats topicStats(String topic) {
+        return topicBroker.stats(topic);
+    }
+
+    /**
+     * 写入预写日志后优先交给等待中的异步消费者，否则放入队列，如果队列已满，则阻塞等待
+     *
+     * @param item 消息
+     * @throws InterruptedException 如果线程被中断
+     */
+    private void enqueue(String item) throws InterruptedException {
+        journal(item);
+        if (handOff(item)) {
+            acknowledge(item);
+        } else {
+            queue.put(item);
+            // 入队期间可能有异步消费者开始等待，把队列中的消息分发给它们
+            dispatchToWaitingConsumers();
+        }
+    }
+
+    /**
+     * 按顺序把一批消息交给等待中的异步消费者，只加锁一次
+     *
+     * @param items 消息列表
+     * @return 已交付的消息数量，交付的总是列表开头的连续若干条
+     */
+    private int handOffBatch(List<String> items) {
+        if (waitingConsumerCount == 0) {
+            return 0;
+        }
+        int handedOff = 0;
+        waitersLock.lock();
+        try {
+            CompletableFuture<String> waiter;
+            while (handedOff < items.size() && (waiter = waitingConsumers.pollFirst()) != null) {
+                waitingConsumerCount--;
+                if (waiter.complete(items.get(handedOff))) {
+                    handedOff++;
+                }
+            }
+        } finally {
+            waitersLock.unlock();
+        }
+        return handedOff;
+    }
+
+    /**
+     * 把消息直接交给等待最久的异步消费者
+     *
+     * @param item 消息
+     * @return 交付成功返回true，没有等待中的消费者时返回false
+     */
+    private boolean handOff(String item) {
+        if (waitingConsumerCount == 0) {
+            return false;
+        }
+        waitersLock.lock();
+        try {
+            CompletableFuture<String> waiter;
+            while ((waiter = waitingConsumers.pollFirst()) != null) {
+                waitingConsumerCount--;
+                // 已被调用方取消的消费者跳过，交给下一个
+                if (waiter.complete(item)) {
+                    log.info("Handed an item to a waiting consumer: {}", item);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            waitersLock.unlock();
+        }
+    }
+
+    /**
+     * 在队列和等待消费者都不为空时，按顺序把队列中的消息分发给等待中的消费者
+     */
+    private void dispatchToWaitingConsumers() {
+        while (waitingConsumerCount > 0) {
+            String item = queue.poll();
+            if (item == null) {
+                return;
+            }
+            if (handOff(item)) {
+                acknowledge(item);
+            } else {
+                // 等待者在此期间超时或被取消，消息重新放回队列，队列满时只能阻塞等待空间
+                requeue(item);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 把即将入队的消息写入预写日志
+     *
+     * @param item 消息
+     */
+    private void journal(String item) {
+        if (journal.isEnabled()) {
+            register(item, journal.append(JOURNAL_STREAM, item));
+        }
+    }
+
+    /**
+     * 登记消息在日志中的编号
+     *
+     * @param item 消息
+     * @param id 日志条目编号
+     */
+    private void register(String item, long id) {
+        pendingJournalIds.compute(item, (key, ids) -> {
+            ArrayDeque<Long> pending = ids == null ? new ArrayDeque<>() : ids;
+            pending.addLast(id);
+            return pending;
+        });
+    }
+
+    /**
+     * 消息已被消费或交付，在预写日志中标记最早一条相同内容的消息已完成
+     *
+     * @param item 消息
+     */
+    private void acknowledge(String item) {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long[] id = {-1L};
+        pendingJournalIds.computeIfPresent(item, (key, ids) -> {
+            id[0] = ids.pollFirst();
+            return ids.isEmpty() ? null : ids;
+        });
+        journal.commit(id[0]);
+    }
+
+    /**
+     * 把已经取出但无法交付的消息放回队列
+     *
+     * @param item 消息
+     */
+    private void requeue(String item) {
+        if (queue.offer(item)) {
+            return;
+        }
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while returning an item to the queue, item lost: {}", item);
+        }
+    }
+
+    /**
+     * 等待超时后移除消费者并以TimeoutException完成
+     *
+     * @param waiter 等待中的消费者
+     */
+    private void expire(CompletableFuture<String> waiter) {
+        waitersLock.lock();
+        try {
+            if (waitingConsumers.remove(waiter)) {
+                waitingConsumerCount--;
+                waiter.completeExceptionally(new TimeoutException("No item produced within the timeout"));
+            }
+        } finally {
+            waitersLock.unlock();
+        }
+    }
 }
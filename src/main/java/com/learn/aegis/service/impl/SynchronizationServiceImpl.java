@@ -1,11 +1,26 @@
 package com.learn.aegis.service.impl;
 
+import com.learn.aegis.concurrent.InstrumentedLock;
+import com.learn.aegis.concurrent.PaddedStripedCounter;
+import com.learn.aegis.constant.LockType;
+import com.learn.aegis.model.LockContentionStats;
 import com.learn.aegis.service.SynchronizationService;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 /**
  * SynchronizationServiceImpl类实现了SynchronizationService接口，提供同步操作的服务
- * 该类主要演示了不同同步机制的使用，包括synchronized关键字和Object的synchronized块
+ * 该类主要演示了不同同步机制的使用，包括synchronized关键字、Object的synchronized块，
+ * 以及AtomicLong、LongAdder和分片计数器三种无锁计数方式
+ * 加锁的方式都通过InstrumentedLock执行临界区，记录每把锁的获取次数、竞争次数、等待时间和持有时间，
+ * 另外为synchronized、ReentrantLock、公平ReentrantLock和StampedLock各准备一把锁，便于在相同负载下对比
  */
 @Service
 @Slf4j
@@ -14,38 +29,135 @@ public class SynchronizationServiceImpl implements SynchronizationService {
     // 计数器，记录增加的次数
     private int count = 0;
 
+    // increaseCount使用的监视器锁
+    private final InstrumentedLock monitorLock = InstrumentedLock.create("increaseCount", LockType.SYNCHRONIZED);
+
     // 用作同步块的锁对象，提供比内置锁更细粒度的同步控制
-    private final Object lock = new Object();
+    private final InstrumentedLock lock = InstrumentedLock.create("increaseCountWithLock", LockType.SYNCHRONIZED);
+
+    // 每种锁类型各自的锁
+    private final Map<LockType, InstrumentedLock> typedLocks = new EnumMap<>(LockType.class);
+
+    // 每种锁类型各自保护的计数值，按LockType序号索引
+    private final int[] typedCounts = new int[LockType.values().length];
+
+    // 基于CAS的计数器
+    private final AtomicLong atomicCount = new AtomicLong();
+
+    // 分段累加的计数器
+    private final LongAdder adderCount = new LongAdder();
+
+    // 按处理器分片并做缓存行填充的计数器
+    private final PaddedStripedCounter stripedCount = new PaddedStripedCounter();
+
+    public SynchronizationServiceImpl() {
+        for (LockType type : LockType.values()) {
+            typedLocks.put(type, InstrumentedLock.create("increaseCountWith." + type.name(), type));
+        }
+    }
 
     /**
      * 使用synchronized关键字同步的方法
      * 该方法在每次调用时增加count的值，并记录日志
+     * 只在临界区内完成自增，日志在释放锁之后输出，避免日志I/O延长持锁时间
      *
      * @return 增加后的count值
      */
     @Override
-    public synchronized int increaseCount() {
-        // 使用synchronized关键字同步，确保只有一个线程可以执行这段代码
-        count++;
-        log.info("Count increased to {}", count);
-        return count;
+    public int increaseCount() {
+        // 使用监视器锁同步，确保只有一个线程可以执行这段代码
+        int current = monitorLock.executeAsInt(() -> ++count);
+        log.info("Count increased to {}", current);
+        return current;
     }
 
     /**
      * 使用synchronized块进行同步的方法
      * 该方法在每次调用时增加count的值，并记录日志，与increaseCount方法不同的是，
-     * 它使用外部定义的lock对象进行同步，而不是整个方法的锁
+     * 它使用外部定义的lock对象进行同步，而不是整个方法的锁，日志同样在释放锁之后输出
      *
      * @return 增加后的count值
      */
     @Override
     public int increaseCountWithLock() {
-        // 使用外部定义的lock对象进行同步
-        synchronized (lock) {
-            // 使用synchronized块进行同步，确保只有一个线程可以执行这段代码
-            count++;
-            log.info("Count increased with lock to {}", count);
-            return count;
-        }
+        // 使用外部定义的lock对象进行同步，确保只有一个线程可以执行这段代码
+        int current = lock.executeAsInt(() -> ++count);
+        log.info("Count increased with lock to {}", current);
+        return current;
+    }
+
+    /**
+     * 使用AtomicLong的CAS操作增加计数值
+     *
+     * @return 增加后的计数值
+     */
+    @Override
+    public long increaseCountWithAtomic() {
+        return atomicCount.incrementAndGet();
+    }
+
+    /**
+     * 使用LongAdder分段累加增加计数值，不读取汇总值
+     */
+    @Override
+    public void increaseCountWithAdder() {
+        adderCount.increment();
+    }
+
+    /**
+     * 读取LongAdder汇总得到的计数值
+     *
+     * @return 汇总得到的计数值
+     */
+    @Override
+    public long getAdderCount() {
+        return adderCount.sum();
+    }
+
+    /**
+     * 使用分片计数器增加计数值，不读取汇总值
+     */
+    @Override
+    public void increaseCountWithStripedCounter() {
+        stripedCount.increment();
+    }
+
+    /**
+     * 读取分片计数器汇总得到的计数值
+     *
+     * @return 汇总得到的计数值
+     */
+    @Override
+    public long getStripedCount() {
+        return stripedCount.sum();
+    }
+
+    /**
+     * 使用指定类型的锁增加该类型的计数值
+     *
+     * @param type 锁的实现类型
+     * @return 增加后该类型的计数值
+     */
+    @Override
+    public int increaseCountWith(LockType type) {
+        int index = type.ordinal();
+        int current = typedLocks.get(type).executeAsInt(() -> ++typedCounts[index]);
+        log.info("Count increased with {} to {}", type.getDescription(), current);
+        return current;
+    }
+
+    /**
+     * 获取服务中所有锁的竞争情况
+     *
+     * @return 按锁名称排序的竞争统计
+     */
+    @Override
+    public List<LockContentionStats> getContentionStats() {
+        List<LockContentionStats> stats = new ArrayList<>();
+        stats.add(monitorLock.stats());
+        stats.add(lock.stats());
+        typedLocks.values().forEach(typedLock -> stats.add(typedLock.stats()));
+        stats.sort(Comparator.comparing(LockContentionStats::getName));
+        return stats;
     }
 }
@@ -0,0 +1,103 @@
+package com.learn.aegis.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+
+/**
+ * 把流式通道的消息写入SSE连接的订阅者
+ * 订阅时通过request(prefetch)声明初始需求，每写出一半后补充需求，
+ * 写入会在客户端读取较慢时阻塞，需求随之停止增长，消息只会积压在该订阅者自己的有界缓冲区中。
+ * 写出limit条消息后取消订阅并结束连接；客户端断开时取消订阅。
+ */
+@Slf4j
+public class SseSubscriber implements Flow.Subscriber<String> {
+
+    // 写出消息的SSE连接
+    private final SseEmitter emitter;
+
+    // 每次补充的需求数
+    private final int prefetch;
+
+    // 最多写出的消息数，0表示不限
+    private final long limit;
+
+    // 订阅，onSubscribe之后才可用
+    private volatile Flow.Subscription subscription;
+
+    // 已写出的消息数，只在投递线程中访问
+    private long delivered;
+
+    // 已请求但尚未收到的消息数，只在投递线程中访问
+    private long outstanding;
+
+    /**
+     * 构造方法
+     *
+     * @param emitter SSE连接
+     * @param prefetch 每次补充的需求数
+     * @param limit 最多写出的消息数，0表示不限
+     * @throws IllegalArgumentException 如果prefetch不为正数或limit为负数
+     */
+    public SseSubscriber(SseEmitter emitter, int prefetch, long limit) {
+        if (prefetch <= 0 || limit < 0) {
+            throw new IllegalArgumentException("prefetch must be positive and limit must not be negative");
+        }
+        this.emitter = emitter;
+        this.prefetch = prefetch;
+        this.limit = limit;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        // 客户端断开或连接超时时取消订阅，释放缓冲区
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        outstanding = limit == 0 ? prefetch : Math.min(prefetch, limit);
+        subscription.request(outstanding);
+    }
+
+    @Override
+    public void onNext(String item) {
+        try {
+            emitter.send(SseEmitter.event().data(item));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            subscription.cancel();
+            return;
+        }
+        delivered++;
+        outstanding--;
+        if (limit > 0 && delivered >= limit) {
+            subscription.cancel();
+            emitter.complete();
+            return;
+        }
+        // 已请求的消息消耗过半时补充需求，避免每条消息都调用一次request
+        if (outstanding <= prefetch / 2) {
+            long more = prefetch - outstanding;
+            if (limit > 0) {
+                more = Math.min(more, limit - delivered - outstanding);
+            }
+            if (more > 0) {
+                outstanding += more;
+                subscription.request(more);
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.warn("Stream subscription failed", throwable);
+        emitter.completeWithError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        emitter.complete();
+    }
+}
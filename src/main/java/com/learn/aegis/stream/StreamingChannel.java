@@ -0,0 +1,128 @@
+package com.learn.aegis.stream;
+
+import com.learn.aegis.concurrent.VirtualThreads;
+import com.learn.aegis.model.StreamStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于SubmissionPublisher的流式通道，按订阅者的request(n)需求推送消息
+ * 每个订阅者有独立的有界缓冲区，订阅者没有需求或处理较慢时消息积压在自己的缓冲区中。
+ * publish不会阻塞，缓冲区已满的订阅者立即丢弃这条消息，其他订阅者照常收到，
+ * 因此单个订阅者占用的内存有上限，慢订阅者也不会拖慢发布方和其他订阅者；
+ * 进程内不能丢消息的发布方使用submit，缓冲区满时等待所有订阅者腾出空间，由最慢的订阅者反压发布方。
+ * 投递在独立的线程中进行，运行时支持时使用虚拟线程，订阅者可以在onNext中执行阻塞的网络写入。
+ */
+@Slf4j
+public class StreamingChannel implements AutoCloseable {
+
+    // 投递消息的执行器
+    private final ExecutorService deliveryExecutor;
+
+    // 消息发布者
+    private final SubmissionPublisher<String> publisher;
+
+    // 已发布的消息数
+    private final LongAdder published = new LongAdder();
+
+    // 丢弃的投递次数
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param bufferCapacity 每个订阅者的缓冲区容量，向上取整为2的幂
+     * @throws IllegalArgumentException 如果缓冲区容量不为正数
+     */
+    public StreamingChannel(int bufferCapacity) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity must be positive");
+        }
+        this.deliveryExecutor = VirtualThreads.isSupported()
+                ? VirtualThreads.newThreadPerTaskExecutor("stream-delivery-")
+                : Executors.newCachedThreadPool(daemonThreadFactory());
+        this.publisher = new SubmissionPublisher<>(deliveryExecutor, bufferCapacity);
+    }
+
+    /**
+     * 订阅通道，订阅者通过request(n)声明需求，只会收到订阅之后发布的消息
+     *
+     * @param subscriber 订阅者
+     */
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * 向所有订阅者发布一条消息，不会阻塞
+     *
+     * @param item 消息
+     * @return 本次丢弃的投递次数，即缓冲区已满的订阅者数量
+     * @throws IllegalStateException 如果通道已关闭
+     */
+    public int publish(String item) {
+        // onDrop返回false表示不重试，只对缓冲区已满的订阅者丢弃
+        int lag = publisher.offer(item, (subscriber, skipped) -> false);
+        published.increment();
+        if (lag < 0) {
+            dropped.add(-lag);
+            return -lag;
+        }
+        return 0;
+    }
+
+    /**
+     * 向所有订阅者发布一条消息，有订阅者的缓冲区已满时等待，不会丢弃
+     * 只适合进程内能够承受反压的发布方，一个停止请求的订阅者会让调用方一直等待
+     *
+     * @param item 消息
+     * @throws IllegalStateException 如果通道已关闭
+     */
+    public void submit(String item) {
+        publisher.submit(item);
+        published.increment();
+    }
+
+    /**
+     * 获取通道的订阅和投递情况
+     *
+     * @return 通道统计信息
+     */
+    public StreamStats stats() {
+        return StreamStats.builder()
+                .subscribers(publisher.getNumberOfSubscribers())
+                .bufferCapacity(publisher.getMaxBufferCapacity())
+                .published(published.sum())
+                .dropped(dropped.sum())
+                .maxLag(publisher.estimateMaximumLag())
+                .build();
+    }
+
+    /**
+     * 关闭通道，订阅者在收到已缓冲的消息后收到onComplete
+     */
+    @Override
+    public void close() {
+        publisher.close();
+        deliveryExecutor.shutdown();
+    }
+
+    /**
+     * 创建守护线程的线程工厂，线程名称带有递增的序号
+     */
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stream-delivery-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
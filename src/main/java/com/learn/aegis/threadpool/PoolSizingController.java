@@ -0,0 +1,149 @@
+package com.learn.aegis.threadpool;
+
+/**
+ * 基于利特尔法则并带有滞回的线程池大小控制器
+ * 根据每个采样周期内的完成任务数、队列长度变化和平均执行时间估算任务到达率λ与执行时间W，
+ * 所需并发数L = λ × W × (1 + 余量)，再加上在指定时间内消化积压队列所需的并发数，作为核心线程数的目标值。
+ * 为避免抖动：目标值与当前值的差距在死区内时保持不变；扩容需连续growSamples次、缩容需连续shrinkSamples次同方向建议才执行；
+ * 每次调整的幅度不超过当前值的一半。本类不做任何I/O，可以直接用模拟数据驱动测试。
+ * 本类不是线程安全的，应由单个采样线程调用。
+ */
+public class PoolSizingController {
+
+    /**
+     * 调整动作
+     */
+    public enum Action {
+        // 扩容
+        GROW,
+        // 缩容
+        SHRINK,
+        // 保持不变
+        HOLD
+    }
+
+    /**
+     * 一个采样周期内的观测值
+     *
+     * @param elapsedNanos 采样周期长度（纳秒）
+     * @param completedTasks 周期内完成的任务数
+     * @param queueDepth 周期结束时的队列长度
+     * @param meanExecutionNanos 周期内任务的平均执行时间（纳秒），没有任务完成时为0
+     * @param currentCorePoolSize 当前核心线程数
+     */
+    public record Sample(long elapsedNanos, long completedTasks, int queueDepth, double meanExecutionNanos,
+                         int currentCorePoolSize) {
+    }
+
+    /**
+     * 控制器的决策
+     *
+     * @param action 调整动作
+     * @param corePoolSize 调整后的核心线程数，HOLD时等于当前值
+     * @param estimatedConcurrency 利特尔法则估算出的所需并发数
+     */
+    public record Decision(Action action, int corePoolSize, double estimatedConcurrency) {
+    }
+
+    // 核心线程数下限
+    private final int minCorePoolSize;
+
+    // 核心线程数上限
+    private final int maxCorePoolSize;
+
+    // 在利特尔法则估算值之上预留的余量比例
+    private final double headroom;
+
+    // 期望消化积压队列的时间（秒）
+    private final double backlogDrainSeconds;
+
+    // 扩容前需要连续出现的扩容建议次数
+    private final int growSamples;
+
+    // 缩容前需要连续出现的缩容建议次数
+    private final int shrinkSamples;
+
+    // 上一个周期结束时的队列长度
+    private int lastQueueDepth;
+
+    // 最近一次有任务完成的周期内的平均执行时间，空闲周期沿用该值
+    private double lastMeanExecutionNanos;
+
+    // 当前连续同方向建议的方向
+    private Action pendingAction = Action.HOLD;
+
+    // 当前连续同方向建议的次数
+    private int pendingCount;
+
+    /**
+     * 构造方法
+     *
+     * @param minCorePoolSize 核心线程数下限
+     * @param maxCorePoolSize 核心线程数上限
+     * @param headroom 余量比例，例如0.2表示在估算值基础上多留20%
+     * @param backlogDrainSeconds 期望消化积压队列的时间（秒）
+     * @param growSamples 扩容前需要连续出现的扩容建议次数
+     * @param shrinkSamples 缩容前需要连续出现的缩容建议次数
+     */
+    public PoolSizingController(int minCorePoolSize, int maxCorePoolSize, double headroom, double backlogDrainSeconds,
+                                int growSamples, int shrinkSamples) {
+        if (minCorePoolSize < 1 || maxCorePoolSize < minCorePoolSize) {
+            throw new IllegalArgumentException("Invalid core pool size bounds: " + minCorePoolSize + ".." + maxCorePoolSize);
+        }
+        this.minCorePoolSize = minCorePoolSize;
+        this.maxCorePoolSize = maxCorePoolSize;
+        this.headroom = headroom;
+        this.backlogDrainSeconds = backlogDrainSeconds;
+        this.growSamples = Math.max(1, growSamples);
+        this.shrinkSamples = Math.max(1, shrinkSamples);
+    }
+
+    /**
+     * 根据一个周期的观测值给出调整决策
+     *
+     * @param sample 观测值
+     * @return 决策
+     */
+    public Decision decide(Sample sample) {
+        double seconds = Math.max(sample.elapsedNanos(), 1L) / 1e9;
+        if (sample.meanExecutionNanos() > 0) {
+            lastMeanExecutionNanos = sample.meanExecutionNanos();
+        }
+        double executionSeconds = lastMeanExecutionNanos / 1e9;
+
+        // 到达率 = 完成速率 + 队列增长速率
+        double arrivalRate = Math.max(0.0, (sample.completedTasks() + sample.queueDepth() - lastQueueDepth) / seconds);
+        lastQueueDepth = sample.queueDepth();
+
+        // 利特尔法则：所需并发数 = 到达率 × 执行时间，另加消化积压所需的并发数
+        double concurrency = arrivalRate * executionSeconds * (1.0 + headroom)
+                + sample.queueDepth() * executionSeconds / backlogDrainSeconds;
+        int target = clamp((int) Math.ceil(concurrency));
+        int current = sample.currentCorePoolSize();
+
+        // 死区：差距不超过当前值的10%（至少1个线程）时保持不变
+        int deadband = Math.max(1, current / 10);
+        Action proposal = Math.abs(target - current) <= deadband ? Action.HOLD
+                : target > current ? Action.GROW : Action.SHRINK;
+        if (proposal != pendingAction) {
+            pendingAction = proposal;
+            pendingCount = 0;
+        }
+        pendingCount++;
+
+        int required = proposal == Action.GROW ? growSamples : shrinkSamples;
+        if (proposal == Action.HOLD || pendingCount < required) {
+            return new Decision(Action.HOLD, current, concurrency);
+        }
+
+        // 每次最多调整当前值的一半，逐步逼近目标
+        int maxStep = Math.max(1, current / 2);
+        int next = proposal == Action.GROW ? Math.min(target, current + maxStep) : Math.max(target, current - maxStep);
+        pendingCount = 0;
+        return new Decision(proposal, clamp(next), concurrency);
+    }
+
+    private int clamp(int corePoolSize) {
+        return Math.max(minCorePoolSize, Math.min(maxCorePoolSize, corePoolSize));
+    }
+}
@@ -0,0 +1,219 @@
+package com.learn.aegis.threadpool;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.constant.RejectionPolicyType;
+import com.learn.aegis.model.RejectionPolicyInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可在运行时切换的拒绝策略
+ * 每次拒绝按当前策略处理，并按策略和处理结果记录到Micrometer计时器threadpool.rejection.handling（标签pool、policy、outcome），
+ * 计时器的次数就是各策略的处理次数，耗时反映了拒绝处理本身占用提交线程的时间（如有限等待和调用者执行）。
+ * 线程池饱和时抛出SaturationRejectedException，线程池已关闭时抛出普通的RejectedExecutionException，调用方据此区分过载和不可用。
+ */
+@Slf4j
+public class SwitchableRejectionHandler implements RejectedExecutionHandler {
+
+    /**
+     * 拒绝处理的结果
+     */
+    public enum Outcome {
+        // 由提交线程执行
+        CALLER_RAN,
+        // 抛出异常拒绝
+        FAILED,
+        // 丢弃最早的任务后重新提交
+        DROPPED_OLDEST,
+        // 等待后成功放入队列
+        RETRIED,
+        // 放入溢出队列
+        SPILLED
+    }
+
+    // 线程池名称，作为指标标签
+    private final String poolName;
+
+    // Micrometer指标注册表
+    private final MeterRegistry registry;
+
+    // BOUNDED_WAIT_RETRY策略的最长等待时间（毫秒）
+    private final long retryWaitMillis;
+
+    // SPILL_QUEUE策略的溢出队列
+    private final BlockingQueue<Runnable> spillQueue;
+
+    // 各策略各结果的计时器
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // 当前使用的拒绝策略
+    private volatile RejectionPolicyType policy;
+
+    // 把溢出队列中的任务转移回线程池队列的后台线程，第一次溢出时启动
+    private Thread spillDrainer;
+
+    /**
+     * 构造方法
+     *
+     * @param poolName 线程池名称
+     * @param registry Micrometer指标注册表
+     * @param policy 初始的拒绝策略
+     * @param retryWaitMillis BOUNDED_WAIT_RETRY策略的最长等待时间（毫秒）
+     * @param spillCapacity SPILL_QUEUE策略的溢出队列容量
+     */
+    public SwitchableRejectionHandler(String poolName, MeterRegistry registry, RejectionPolicyType policy,
+                                      long retryWaitMillis, int spillCapacity) {
+        this.poolName = poolName;
+        this.registry = registry;
+        this.policy = policy;
+        this.retryWaitMillis = retryWaitMillis;
+        this.spillQueue = new ArrayBlockingQueue<>(spillCapacity);
+    }
+
+    /**
+     * 切换拒绝策略，对之后发生的拒绝生效
+     *
+     * @param policy 新的拒绝策略
+     */
+    public void setPolicy(RejectionPolicyType policy) {
+        log.info("Rejection policy of {} switched from {} to {}", poolName, this.policy, policy);
+        this.policy = policy;
+    }
+
+    /**
+     * 获取当前使用的拒绝策略
+     *
+     * @return 拒绝策略
+     */
+    public RejectionPolicyType getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 获取当前策略和各策略的处理次数
+     *
+     * @return 拒绝策略信息
+     */
+    public RejectionPolicyInfo info() {
+        Map<String, Long> handled = new TreeMap<>();
+        timers.forEach((key, timer) -> handled.put(key, timer.count()));
+        return RejectionPolicyInfo.builder()
+                .policy(policy)
+                .retryWaitMillis(retryWaitMillis)
+                .spillQueueSize(spillQueue.size())
+                .spillCapacity(spillQueue.size() + spillQueue.remainingCapacity())
+                .handled(handled)
+                .build();
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        RejectionPolicyType current = policy;
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.FAILED;
+        try {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Executor " + poolName + " has been shut down");
+            }
+            outcome = handle(current, task, executor);
+        } finally {
+            timer(current, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 按策略处理被拒绝的任务
+     *
+     * @return 处理结果，拒绝时抛出异常而不返回
+     */
+    private Outcome handle(RejectionPolicyType current, Runnable task, ThreadPoolExecutor executor) {
+        switch (current) {
+            case CALLER_RUNS -> {
+                task.run();
+                return Outcome.CALLER_RAN;
+            }
+            case DROP_OLDEST -> {
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest instanceof Future<?> future) {
+                    // 取消被丢弃的任务，避免等待结果的调用方永远阻塞
+                    future.cancel(false);
+                }
+                executor.execute(task);
+                return Outcome.DROPPED_OLDEST;
+            }
+            case BOUNDED_WAIT_RETRY -> {
+                try {
+                    if (executor.getQueue().offer(task, retryWaitMillis, TimeUnit.MILLISECONDS)) {
+                        return Outcome.RETRIED;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new SaturationRejectedException("Executor " + poolName + " queue stayed full for " + retryWaitMillis + " ms");
+            }
+            case SPILL_QUEUE -> {
+                if (spillQueue.offer(task)) {
+                    startSpillDrainer(executor);
+                    return Outcome.SPILLED;
+                }
+                throw new SaturationRejectedException("Executor " + poolName + " queue and spill queue are full");
+            }
+            default -> throw new SaturationRejectedException("Executor " + poolName + " is saturated");
+        }
+    }
+
+    /**
+     * 启动把溢出队列中的任务转移回线程池队列的后台线程
+     * 转移使用阻塞的put，主队列有空位时立即转移，线程池关闭后剩余任务被丢弃
+     */
+    private synchronized void startSpillDrainer(ThreadPoolExecutor executor) {
+        if (spillDrainer != null) {
+            return;
+        }
+        spillDrainer = new Thread(() -> {
+            try {
+                while (!executor.isShutdown()) {
+                    Runnable task = spillQueue.poll(100, TimeUnit.MILLISECONDS);
+                    if (task == null) {
+                        continue;
+                    }
+                    while (!executor.getQueue().offer(task, 100, TimeUnit.MILLISECONDS)) {
+                        if (executor.isShutdown()) {
+                            return;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                log.info("Spill queue drainer of {} stopped with {} tasks left", poolName, spillQueue.size());
+            }
+        }, poolName + "-spill-drainer");
+        spillDrainer.setDaemon(true);
+        spillDrainer.start();
+    }
+
+    /**
+     * 获取策略和结果对应的计时器
+     */
+    private Timer timer(RejectionPolicyType current, Outcome outcome) {
+        return timers.computeIfAbsent(current + ":" + outcome, key -> Timer.builder("threadpool.rejection.handling")
+                .description("Time spent handling rejected tasks, by policy and outcome")
+                .tag("pool", poolName)
+                .tag("policy", current.name())
+                .tag("outcome", outcome.name())
+                .register(registry));
+    }
+}
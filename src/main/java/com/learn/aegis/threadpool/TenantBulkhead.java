@@ -0,0 +1,390 @@
+package com.learn.aegis.threadpool;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.model.BulkheadStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * 按租户隔离的舱壁层
+ * 所有调用方共用同一个线程池时，一个高负载的调用方就能占满线程池，拒绝策略又会把它的任务推回到其他请求的Tomcat线程上。
+ * 舱壁层为每个租户维护独立的等待队列，并限制每个租户同时执行的任务数和排队任务数，超出排队配额的任务直接拒绝。
+ * 提交到底层线程池的任务总数不超过globalLimit（默认取核心线程数），使底层队列保持为空，
+ * 任务执行的先后顺序完全由舱壁层决定：各租户按权重做差额轮询（Deficit Round Robin），
+ * 每轮租户获得与权重相等的额度，每出队一个任务消耗一份额度。
+ * 所有状态由一把锁保护，锁内只做队列操作，任务在锁外提交。
+ * 底层线程池拒绝的任务放回所在租户的队首，等下一个任务结束或下一次提交时重试，不会被丢弃；
+ * 提交时底层线程池拒绝了交接，本次提交的任务从队列中撤回并把拒绝抛给调用方。
+ * 配额、租户数量和底层线程池饱和导致的拒绝抛出SaturationRejectedException，底层线程池已关闭时抛出普通的RejectedExecutionException。
+ */
+@Slf4j
+public class TenantBulkhead {
+
+    // 执行任务的底层线程池
+    private final Executor executor;
+
+    // 同时提交到底层线程池的任务总数上限，每次调度时读取，线程池调整大小后自动生效
+    private final IntSupplier globalLimit;
+
+    // 新租户默认的并发上限
+    private final int defaultConcurrency;
+
+    // 新租户默认的排队配额
+    private final int defaultQueueQuota;
+
+    // 新租户默认的权重
+    private final int defaultWeight;
+
+    // 最多允许的租户数量，防止任意请求头无限制地创建租户
+    private final int maxTenants;
+
+    // 保护所有租户状态的锁
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 所有租户
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    // 有任务等待且未达到并发上限的租户，按轮询顺序排列
+    private final ArrayDeque<Lane> activeLanes = new ArrayDeque<>();
+
+    // 已提交到底层线程池尚未结束的任务数
+    private int inFlight;
+
+    // 当前线程正在交接的任务，执行器在调用线程中运行任务时，任务结束后调度出的任务追加到这里，避免递归
+    private final ThreadLocal<ArrayDeque<AdmittedTask>> handOffs = new ThreadLocal<>();
+
+    /**
+     * 构造方法
+     *
+     * @param executor 执行任务的底层线程池
+     * @param globalLimit 同时提交到底层线程池的任务总数上限
+     * @param defaultConcurrency 新租户默认的并发上限
+     * @param defaultQueueQuota 新租户默认的排队配额
+     * @param defaultWeight 新租户默认的权重
+     * @param maxTenants 最多允许的租户数量
+     */
+    public TenantBulkhead(Executor executor, IntSupplier globalLimit, int defaultConcurrency, int defaultQueueQuota,
+                          int defaultWeight, int maxTenants) {
+        validate(defaultConcurrency, defaultQueueQuota, defaultWeight);
+        this.executor = executor;
+        this.globalLimit = globalLimit;
+        this.defaultConcurrency = defaultConcurrency;
+        this.defaultQueueQuota = defaultQueueQuota;
+        this.defaultWeight = defaultWeight;
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * 以租户身份提交任务
+     *
+     * @param tenant 租户标识
+     * @param task 任务
+     * @throws RejectedExecutionException 如果该租户的排队配额已满、租户数量已达上限或底层线程池拒绝了本次交接
+     */
+    public void submit(String tenant, Runnable task) {
+        List<AdmittedTask> ready;
+        Lane lane;
+        lock.lock();
+        try {
+            lane = lanes.get(tenant);
+            if (lane == null) {
+                lane = createLane(tenant, defaultConcurrency, defaultQueueQuota, defaultWeight);
+            }
+            if (lane.queue.size() >= lane.queueQuota) {
+                lane.rejected++;
+                throw new SaturationRejectedException("Bulkhead queue quota of tenant " + tenant + " is full");
+            }
+            lane.queue.add(task);
+            lane.accepted++;
+            activate(lane);
+            ready = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        RejectedExecutionException rejection = start(ready);
+        if (rejection == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            // 底层线程池拒绝了交接，本次的任务还在队列中时撤回，由调用方决定如何处理
+            if (!lane.queue.removeLastOccurrence(task)) {
+                return;
+            }
+            lane.accepted--;
+            lane.rejected++;
+        } finally {
+            lock.unlock();
+        }
+        String message = "Underlying executor rejected the bulkhead task of tenant " + tenant + ": " + rejection.getMessage();
+        if (SaturationRejectedException.isSaturation(rejection)) {
+            throw new SaturationRejectedException(message);
+        }
+        throw new RejectedExecutionException(message, rejection);
+    }
+
+    /**
+     * 设置租户的并发上限、排队配额和权重，租户不存在时创建
+     * 已排队的任务不受排队配额缩小的影响，新提交的任务按新配额判断
+     *
+     * @param tenant 租户标识
+     * @param concurrency 并发上限
+     * @param queueQuota 排队配额
+     * @param weight 权重
+     * @return 返回租户的当前状态
+     * @throws IllegalArgumentException 如果参数不为正数
+     * @throws RejectedExecutionException 如果租户不存在且租户数量已达上限
+     */
+    public BulkheadStats configure(String tenant, int concurrency, int queueQuota, int weight) {
+        validate(concurrency, queueQuota, weight);
+        List<AdmittedTask> ready;
+        BulkheadStats stats;
+        lock.lock();
+        try {
+            Lane lane = lanes.get(tenant);
+            if (lane == null) {
+                lane = createLane(tenant, concurrency, queueQuota, weight);
+            }
+            lane.concurrencyLimit = concurrency;
+            lane.queueQuota = queueQuota;
+            lane.weight = weight;
+            // 并发上限调大后原本受限的租户可能可以继续出队
+            activate(lane);
+            ready = dispatch();
+            stats = lane.toStats();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+        return stats;
+    }
+
+    /**
+     * 获取所有租户的状态
+     *
+     * @return 按租户标识排序的状态列表
+     */
+    public List<BulkheadStats> stats() {
+        lock.lock();
+        try {
+            return lanes.values().stream()
+                    .map(Lane::toStats)
+                    .sorted(Comparator.comparing(BulkheadStats::getTenant))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 创建租户，调用方必须持有锁
+     *
+     * @throws RejectedExecutionException 如果租户数量已达上限
+     */
+    private Lane createLane(String tenant, int concurrency, int queueQuota, int weight) {
+        if (lanes.size() >= maxTenants) {
+            throw new SaturationRejectedException("Too many tenants, limit is " + maxTenants);
+        }
+        Lane lane = new Lane(tenant, concurrency, queueQuota, weight);
+        lanes.put(tenant, lane);
+        return lane;
+    }
+
+    /**
+     * 把有任务等待且未达到并发上限的租户加入轮询，调用方必须持有锁
+     */
+    private void activate(Lane lane) {
+        if (!lane.active && !lane.queue.isEmpty() && lane.running < lane.concurrencyLimit) {
+            lane.active = true;
+            activeLanes.addLast(lane);
+        }
+    }
+
+    /**
+     * 按差额轮询从各租户队列中取出可以执行的任务，调用方必须持有锁
+     * 全局额度用完时当前租户保留剩余额度并留在队首，下次从它继续
+     *
+     * @return 需要提交到底层线程池的任务
+     */
+    private List<AdmittedTask> dispatch() {
+        List<AdmittedTask> ready = new ArrayList<>();
+        int limit = Math.max(1, globalLimit.getAsInt());
+        while (inFlight < limit && !activeLanes.isEmpty()) {
+            Lane lane = activeLanes.peekFirst();
+            if (lane.deficit <= 0) {
+                lane.deficit += lane.weight;
+            }
+            while (lane.deficit > 0 && inFlight < limit && !lane.queue.isEmpty() && lane.running < lane.concurrencyLimit) {
+                ready.add(new AdmittedTask(lane, lane.queue.poll()));
+                lane.deficit--;
+                lane.running++;
+                inFlight++;
+            }
+            if (lane.queue.isEmpty() || lane.running >= lane.concurrencyLimit) {
+                // 没有任务或达到并发上限的租户退出轮询，放弃剩余额度
+                activeLanes.pollFirst();
+                lane.active = false;
+                lane.deficit = 0;
+            } else if (lane.deficit <= 0) {
+                // 本轮额度用完，排到队尾
+                activeLanes.addLast(activeLanes.pollFirst());
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * 在锁外把任务提交到底层线程池
+     * 执行器在调用线程中直接运行任务时，任务结束后调度出的任务由外层循环继续交接，调用栈不会随任务数增长。
+     * 底层线程池拒绝时，被拒绝的任务和本批尚未交接的任务一起放回队首，释放占用的额度，不再继续调度
+     *
+     * @return 底层线程池拒绝时抛出的异常，全部交接成功时返回null
+     */
+    private RejectedExecutionException start(List<AdmittedTask> ready) {
+        ArrayDeque<AdmittedTask> pending = handOffs.get();
+        if (pending != null) {
+            pending.addAll(ready);
+            return null;
+        }
+        pending = new ArrayDeque<>(ready);
+        handOffs.set(pending);
+        RejectedExecutionException rejection = null;
+        try {
+            AdmittedTask task;
+            while ((task = pending.poll()) != null) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Bulkhead task of tenant {} was rejected by the underlying executor, requeued", task.lane.tenant, e);
+                    pending.addFirst(task);
+                    requeue(pending);
+                    pending.clear();
+                    rejection = e;
+                }
+            }
+        } finally {
+            handOffs.remove();
+        }
+        return rejection;
+    }
+
+    /**
+     * 把未能交接的任务按原顺序放回各租户的队首并释放额度
+     */
+    private void requeue(ArrayDeque<AdmittedTask> tasks) {
+        lock.lock();
+        try {
+            for (Iterator<AdmittedTask> it = tasks.descendingIterator(); it.hasNext(); ) {
+                AdmittedTask task = it.next();
+                task.lane.queue.addFirst(task.task);
+                task.lane.running--;
+                inFlight--;
+            }
+            for (AdmittedTask task : tasks) {
+                activate(task.lane);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 任务结束后释放额度，并调度等待中的任务
+     */
+    private void release(Lane lane) {
+        List<AdmittedTask> ready;
+        lock.lock();
+        try {
+            lane.running--;
+            lane.completed++;
+            inFlight--;
+            activate(lane);
+            ready = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+    }
+
+    /**
+     * 校验租户配置
+     */
+    private static void validate(int concurrency, int queueQuota, int weight) {
+        if (concurrency <= 0 || queueQuota <= 0 || weight <= 0) {
+            throw new IllegalArgumentException("concurrency, queueQuota and weight must be positive");
+        }
+    }
+
+    /**
+     * 已获得额度的任务，结束后释放额度并继续调度
+     */
+    private final class AdmittedTask implements Runnable {
+        private final Lane lane;
+        private final Runnable task;
+
+        private AdmittedTask(Lane lane, Runnable task) {
+            this.lane = lane;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                release(lane);
+            }
+        }
+    }
+
+    /**
+     * 单个租户的队列和计数，所有字段由外部的锁保护
+     */
+    private static final class Lane {
+        private final String tenant;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private int concurrencyLimit;
+        private int queueQuota;
+        private int weight;
+        private int deficit;
+        private int running;
+        private boolean active;
+        private long accepted;
+        private long completed;
+        private long rejected;
+
+        private Lane(String tenant, int concurrencyLimit, int queueQuota, int weight) {
+            this.tenant = tenant;
+            this.concurrencyLimit = concurrencyLimit;
+            this.queueQuota = queueQuota;
+            this.weight = weight;
+        }
+
+        private BulkheadStats toStats() {
+            return BulkheadStats.builder()
+                    .tenant(tenant)
+                    .concurrencyLimit(concurrencyLimit)
+                    .queueQuota(queueQuota)
+                    .weight(weight)
+                    .running(running)
+                    .queued(queue.size())
+                    .accepted(accepted)
+                    .completed(completed)
+                    .rejected(rejected)
+                    .concurrencySaturation((double) running / concurrencyLimit)
+                    .queueSaturation((double) queue.size() / queueQuota)
+                    .build();
+        }
+    }
+}
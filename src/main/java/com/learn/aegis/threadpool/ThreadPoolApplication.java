@@ -2,6 +2,8 @@ package com.learn.aegis.threadpool;
 
 import com.learn.aegis.constant.ThreadPoolType;
 import com.learn.aegis.model.ThreadPoolMonitor;
+import com.learn.aegis.service.ThreadPoolLifecycleService;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.util.concurrent.*;
@@ -10,20 +12,98 @@ import java.util.concurrent.*;
 /**
  * ThreadPoolApplication 类是应用中的一个服务类，专注于线程池的管理与使用
  * 通过注解 @Service 标记，表明这是一个被 Spring 框架管理的 Bean，可以被自动扫描并注入到其他组件中
- * 类级别的注释解释了该类的主要功能和用途，帮助开发者理解这个类的作用
+ * 默认复用 ThreadPoolLifecycleService 中长期存活的共享线程池，每次调用只提交任务而不再创建和销毁线程池；
+ * 每次调用新建线程池的旧模式保留在 executeTaskWithDedicatedPool 中，用于教学演示和性能对比
  */
 @Slf4j
 @Service
 public class ThreadPoolApplication {
 
+    // 默认的模拟任务执行时间（毫秒）
+    private static final long DEFAULT_WORK_MILLIS = 1000;
+
+    // 快照记录队列容量，记录跟不上时直接丢弃快照，避免拖慢任务提交
+    private static final int SNAPSHOT_QUEUE_CAPACITY = 1024;
+
+    // 提供共享线程池的生命周期管理服务
+    private final ThreadPoolLifecycleService threadPoolLifecycleService;
+
+    // 异步记录生命周期快照的单线程执行器，日志格式化和输出都在该线程中完成
+    private final ThreadPoolExecutor snapshotRecorder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(SNAPSHOT_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "pool-snapshot-recorder");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    /**
+     * 构造方法
+     *
+     * @param threadPoolLifecycleService 线程池生命周期管理服务，提供按类型共享的线程池
+     */
+    public ThreadPoolApplication(ThreadPoolLifecycleService threadPoolLifecycleService) {
+        this.threadPoolLifecycleService = threadPoolLifecycleService;
+    }
+
     /**
      * 执行任务并监控线程池状态
-     * 本方法根据指定的线程池类型创建线程池，并提交一个简单任务进行执行，同时记录线程池状态
+     * 本方法将任务提交到指定类型的共享线程池中，立即返回而不等待任务完成，
+     * 线程池在各个阶段的状态快照由后台线程异步记录
      *
      * @param type 线程池类型，用于区分不同配置的线程池
      * @return 返回一个ThreadPoolMonitor对象，用于进一步监控线程池状态
      */
     public ThreadPoolMonitor executeTask(ThreadPoolType type) {
+        return executeTask(type, DEFAULT_WORK_MILLIS);
+    }
+
+    /**
+     * 执行任务并监控线程池状态，可指定模拟任务的执行时间
+     *
+     * @param type 线程池类型，用于区分不同配置的线程池
+     * @param workMillis 模拟任务的执行时间（毫秒），为0时任务不休眠
+     * @return 返回一个ThreadPoolMonitor对象，用于进一步监控线程池状态
+     */
+    public ThreadPoolMonitor executeTask(ThreadPoolType type, long workMillis) {
+        // 异步记录线程池初始状态
+        recordSnapshot("Initial", type);
+
+        // 提交任务到共享线程池执行，线程池由生命周期服务统一管理，这里不会关闭它
+        threadPoolLifecycleService.execute(type, () -> {
+            // 记录任务执行时的线程池状态
+            log.info("Task executing in pool: {}", type);
+            simulateWork(workMillis);
+            // 异步记录任务完成后的线程池状态
+            recordSnapshot("Completed", type);
+        });
+
+        // 异步记录任务提交后线程池运行状态
+        recordSnapshot("Running", type);
+
+        // 构建并返回线程池监控对象
+        return threadPoolLifecycleService.snapshot(type);
+    }
+
+    /**
+     * 执行任务并监控线程池状态（每次调用新建线程池的模式）
+     * 本方法根据指定的线程池类型创建线程池，并提交一个简单任务进行执行，随后关闭线程池并等待其终止，
+     * 调用线程会一直阻塞到任务完成，仅用于演示线程池完整的生命周期以及和共享模式的性能对比
+     *
+     * @param type 线程池类型，用于区分不同配置的线程池
+     * @return 返回一个ThreadPoolMonitor对象，用于进一步监控线程池状态
+     */
+    public ThreadPoolMonitor executeTaskWithDedicatedPool(ThreadPoolType type) {
+        return executeTaskWithDedicatedPool(type, DEFAULT_WORK_MILLIS);
+    }
+
+    /**
+     * 执行任务并监控线程池状态（每次调用新建线程池的模式），可指定模拟任务的执行时间
+     *
+     * @param type 线程池类型，用于区分不同配置的线程池
+     * @param workMillis 模拟任务的执行时间（毫秒），为0时任务不休眠
+     * @return 返回一个ThreadPoolMonitor对象，用于进一步监控线程池状态
+     */
+    public ThreadPoolMonitor executeTaskWithDedicatedPool(ThreadPoolType type, long workMillis) {
         // 根据线程池类型创建线程池
         ThreadPoolExecutor executor = createThreadPool(type);
 
@@ -34,13 +114,7 @@ public class ThreadPoolApplication {
         executor.execute(() -> {
             // 记录任务执行时的线程池状态
             log.info("Task executing in pool: {}", type);
-            try {
-                // 模拟任务执行时间
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                // 中断当前线程，恢复中断状态
-                Thread.currentThread().interrupt();
-            }
+            simulateWork(workMillis);
         });
 
         // 记录任务提交后线程池运行状态
@@ -68,6 +142,44 @@ public class ThreadPoolApplication {
         return buildMonitor(executor, type);
     }
 
+    /**
+     * 关闭快照记录线程，容器销毁时调用
+     */
+    @PreDestroy
+    public void destroy() {
+        snapshotRecorder.shutdown();
+    }
+
+    /**
+     * 异步记录共享线程池在某个阶段的状态快照
+     * 调用线程只读取线程池计数器，日志的格式化与输出交给快照记录线程完成
+     *
+     * @param phase 生命周期阶段名称
+     * @param type 线程池类型
+     */
+    private void recordSnapshot(String phase, ThreadPoolType type) {
+        ThreadPoolMonitor monitor = threadPoolLifecycleService.snapshot(type);
+        snapshotRecorder.execute(() -> log.info("{} state of {} pool: {}", phase, type, monitor));
+    }
+
+    /**
+     * 模拟任务执行时间
+     *
+     * @param workMillis 休眠时间（毫秒），不大于0时直接返回
+     */
+    private void simulateWork(long workMillis) {
+        if (workMillis <= 0) {
+            return;
+        }
+        try {
+            // 模拟任务执行时间
+            Thread.sleep(workMillis);
+        } catch (InterruptedException e) {
+            // 中断当前线程，恢复中断状态
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * 创建指定类型的线程池
      *
@@ -86,7 +198,8 @@ public class ThreadPoolApplication {
                 return (ThreadPoolExecutor) Executors.newCachedThreadPool();
             case SINGLE:
                 // 创建一个单线程的线程池，适用于需要保证任务顺序执行的场景
-                return (ThreadPoolExecutor) Executors.newSingleThreadExecutor();
+                // Executors.newSingleThreadExecutor返回的是包装类，无法转换为ThreadPoolExecutor，这里直接创建
+                return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
             case SCHEDULED:
                 // 创建一个支持定时和周期性任务的线程池
                 return (ThreadPoolExecutor) Executors.newScheduledThreadPool(2);
@@ -126,8 +239,8 @@ public class ThreadPoolApplication {
         return ThreadPoolMonitor.builder()
                 // 设置线程池类型描述
                 .poolType(type.getDescription())
-                // 根据线程池是否已终止来判断其状态
-                .status(executor.isTerminated() ? "TERMINATED" : "RUNNING")
+                // 设置线程池的生命周期状态
+                .status(ThreadPoolLifecycleService.resolveStatus(executor, false).name())
                 // 设置线程池的核心线程数
                 .corePoolSize(executor.getCorePoolSize())
                 // 设置线程池的最大线程数
@@ -0,0 +1,193 @@
+package com.learn.aegis.threadpool;
+
+import com.learn.aegis.config.ThreadPoolConfig;
+import com.learn.aegis.metrics.ExecutorMetrics;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.service.ThreadPoolManagementService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThreadPoolTaskExecutor的自动调优器
+ * 按固定周期采样线程池的完成任务数、队列长度和平均执行时间，交给PoolSizingController计算目标核心线程数，
+ * 再通过ThreadPoolManagementService调整核心线程数和最大线程数（最大线程数取核心线程数的两倍并受上限约束）。
+ * 默认关闭，通过threadpool.autotune.enabled=true开启。
+ * 每次决策都发布为指标：threadpool.autotune.decisions（按action标签计数）、
+ * threadpool.autotune.target.core（最近一次决策的核心线程数）和threadpool.autotune.estimated.concurrency（估算的所需并发数）。
+ */
+@Slf4j
+@Component
+public class ThreadPoolAutoTuner {
+
+    // 自动注入的线程池任务执行器
+    @Autowired
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    // 自动注入线程池管理服务，用于执行调整
+    @Autowired
+    private ThreadPoolManagementService threadPoolManagementService;
+
+    // 自动注入线程池指标注册中心，用于获取任务执行时间
+    @Autowired
+    private ExecutorMetricsRegistry executorMetricsRegistry;
+
+    // 自动注入Micrometer指标注册表，用于发布调优决策
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 是否开启自动调优
+    @Value("${threadpool.autotune.enabled:false}")
+    private boolean enabled;
+
+    // 采样周期（毫秒）
+    @Value("${threadpool.autotune.interval-millis:1000}")
+    private long intervalMillis;
+
+    // 核心线程数下限
+    @Value("${threadpool.autotune.min-core-pool-size:2}")
+    private int minCorePoolSize;
+
+    // 核心线程数上限
+    @Value("${threadpool.autotune.max-core-pool-size:32}")
+    private int maxCorePoolSize;
+
+    // 最大线程数上限
+    @Value("${threadpool.autotune.max-pool-size:64}")
+    private int maxPoolSize;
+
+    // 在估算值之上预留的余量比例
+    @Value("${threadpool.autotune.headroom:0.2}")
+    private double headroom;
+
+    // 期望消化积压队列的时间（秒）
+    @Value("${threadpool.autotune.backlog-drain-seconds:5}")
+    private double backlogDrainSeconds;
+
+    // 扩容前需要连续出现的扩容建议次数
+    @Value("${threadpool.autotune.grow-samples:1}")
+    private int growSamples;
+
+    // 缩容前需要连续出现的缩容建议次数
+    @Value("${threadpool.autotune.shrink-samples:3}")
+    private int shrinkSamples;
+
+    // 大小控制器
+    private PoolSizingController controller;
+
+    // 执行采样的单线程调度器
+    private ScheduledExecutorService sampler;
+
+    // 各动作的决策计数
+    private final Map<PoolSizingController.Action, Counter> decisionCounters = new EnumMap<>(PoolSizingController.Action.class);
+
+    // 最近一次决策的核心线程数
+    private volatile int targetCorePoolSize;
+
+    // 最近一次估算的所需并发数
+    private volatile double estimatedConcurrency;
+
+    // 上一次采样时的时间戳和累计值
+    private long lastSampleNanos;
+    private long lastCompletedTasks;
+    private long lastExecutedTasks;
+    private long lastExecutionNanos;
+
+    /**
+     * 开启自动调优时注册指标并启动采样线程
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        controller = new PoolSizingController(minCorePoolSize, maxCorePoolSize, headroom, backlogDrainSeconds,
+                growSamples, shrinkSamples);
+        targetCorePoolSize = threadPoolTaskExecutor.getCorePoolSize();
+        for (PoolSizingController.Action action : PoolSizingController.Action.values()) {
+            decisionCounters.put(action, Counter.builder("threadpool.autotune.decisions")
+                    .description("Auto-tuner decisions")
+                    .tag("pool", ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME)
+                    .tag("action", action.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("threadpool.autotune.target.core", this, tuner -> tuner.targetCorePoolSize)
+                .description("Core pool size chosen by the latest auto-tuner decision")
+                .tag("pool", ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME)
+                .register(meterRegistry);
+        Gauge.builder("threadpool.autotune.estimated.concurrency", this, tuner -> tuner.estimatedConcurrency)
+                .description("Concurrency required according to Little's law")
+                .tag("pool", ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME)
+                .register(meterRegistry);
+
+        lastSampleNanos = System.nanoTime();
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "threadpool-autotuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Thread pool auto-tuner started, core pool size bounds: {}..{}", minCorePoolSize, maxCorePoolSize);
+    }
+
+    /**
+     * 停止采样线程，容器销毁时调用
+     */
+    @PreDestroy
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * 一次采样与调整
+     */
+    private void tick() {
+        try {
+            ThreadPoolExecutor pool = threadPoolTaskExecutor.getThreadPoolExecutor();
+            ExecutorMetrics metrics = executorMetricsRegistry.forPool(ThreadPoolConfig.TASK_EXECUTOR_POOL_NAME);
+            long now = System.nanoTime();
+            long completed = pool.getCompletedTaskCount();
+            long executed = metrics.getExecutedTaskCount();
+            long executionNanos = metrics.getTotalExecutionNanos();
+            long executedDelta = executed - lastExecutedTasks;
+            double meanExecutionNanos = executedDelta > 0 ? (executionNanos - lastExecutionNanos) / (double) executedDelta : 0.0;
+
+            PoolSizingController.Decision decision = controller.decide(new PoolSizingController.Sample(
+                    now - lastSampleNanos, completed - lastCompletedTasks, pool.getQueue().size(),
+                    meanExecutionNanos, pool.getCorePoolSize()));
+            lastSampleNanos = now;
+            lastCompletedTasks = completed;
+            lastExecutedTasks = executed;
+            lastExecutionNanos = executionNanos;
+
+            decisionCounters.get(decision.action()).increment();
+            targetCorePoolSize = decision.corePoolSize();
+            estimatedConcurrency = decision.estimatedConcurrency();
+            if (decision.action() != PoolSizingController.Action.HOLD) {
+                int corePoolSize = decision.corePoolSize();
+                int newMaxPoolSize = Math.max(corePoolSize, Math.min(maxPoolSize, corePoolSize * 2));
+                log.info("Auto-tuner {} pool, estimated concurrency: {}", decision.action(), String.format("%.1f", decision.estimatedConcurrency()));
+                threadPoolManagementService.resizeThreadPool(corePoolSize, newMaxPoolSize);
+            }
+        } catch (RuntimeException e) {
+            // 单次采样失败不影响后续调度
+            log.error("Thread pool auto-tuning failed", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.learn.aegis.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试的公共辅助方法
+ * 基准测试在Spring容器之外直接构造服务对象，需要手动降低日志级别并在迭代之间等待线程池排空
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 将应用日志级别调整为WARN，避免控制台输出主导测量结果
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    /**
+     * 等待线程池中排队和正在执行的任务全部完成
+     *
+     * @param executor 线程池
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    static void awaitIdle(ExecutorService executor, long timeoutMillis) throws InterruptedException {
+        if (!(executor instanceof ThreadPoolExecutor pool)) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while ((!pool.getQueue().isEmpty() || pool.getActiveCount() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
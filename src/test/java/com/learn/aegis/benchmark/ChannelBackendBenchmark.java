@@ -0,0 +1,133 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.config.CommunicationChannelConfig;
+import com.learn.aegis.constant.ChannelBackend;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通信通道各后端队列在不同生产者/消费者线程比例下的吞吐量基准测试
+ * 每个分组对应一种线程比例（如p4c1表示4个生产者、1个消费者），
+ * 生产者和消费者使用非阻塞的offer和poll，避免迭代结束时线程阻塞在队列上；
+ * offered和polled计数器给出每秒成功入队和出队的元素数。
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelBackendBenchmark {
+
+    // 单个元素，避免测量中包含字符串分配
+    private static final String ITEM = "item";
+
+    @Param({"ARRAY", "LINKED", "TRANSFER", "RING"})
+    public ChannelBackend backend;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private BlockingQueue<String> queue;
+
+    /**
+     * 每个线程成功入队和出队的元素数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long offered;
+        public long polled;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = CommunicationChannelConfig.createQueue(backend, capacity);
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public void p1c1Produce(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public void p1c1Consume(Counters counters, Blackhole blackhole) {
+        consume(counters, blackhole);
+    }
+
+    @Benchmark
+    @Group("p4c1")
+    @GroupThreads(4)
+    public void p4c1Produce(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("p4c1")
+    @GroupThreads(1)
+    public void p4c1Consume(Counters counters, Blackhole blackhole) {
+        consume(counters, blackhole);
+    }
+
+    @Benchmark
+    @Group("p1c4")
+    @GroupThreads(1)
+    public void p1c4Produce(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("p1c4")
+    @GroupThreads(4)
+    public void p1c4Consume(Counters counters, Blackhole blackhole) {
+        consume(counters, blackhole);
+    }
+
+    @Benchmark
+    @Group("p4c4")
+    @GroupThreads(4)
+    public void p4c4Produce(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("p4c4")
+    @GroupThreads(4)
+    public void p4c4Consume(Counters counters, Blackhole blackhole) {
+        consume(counters, blackhole);
+    }
+
+    private void produce(Counters counters) {
+        // TRANSFER队列无界，消费者跟不上时限制积压；其size()需要遍历链表，TRANSFER的生产者吞吐会因此偏低
+        if (backend == ChannelBackend.TRANSFER && queue.size() >= capacity) {
+            return;
+        }
+        if (queue.offer(ITEM)) {
+            counters.offered++;
+        }
+    }
+
+    private void consume(Counters counters, Blackhole blackhole) {
+        String item = queue.poll();
+        if (item != null) {
+            counters.polled++;
+            blackhole.consume(item);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChannelBackendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.service.impl.CommunicationServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommunicationService批量生产与消费的基准测试
+ * 每次操作先生产一批消息再批量消费，items计数器给出每秒传递的消息数。
+ * 批量大小为1时相当于逐条生产消费，对比可以看出drainTo一次加锁取出多条消息带来的收益。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommunicationBatchBenchmark {
+
+    @Param({"1", "16", "256"})
+    public int batchSize;
+
+    private CommunicationServiceImpl service;
+
+    private List<String> batch;
+
+    /**
+     * 每秒传递的消息数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ItemCounter {
+        public long items;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        service = new CommunicationServiceImpl(batchSize);
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add("item-" + i);
+        }
+    }
+
+    @Benchmark
+    public List<String> produceThenConsume(ItemCounter counter) throws InterruptedException {
+        service.produceBatch(batch);
+        List<String> consumed = service.consumeBatch(batchSize, 0, TimeUnit.MILLISECONDS);
+        counter.items += consumed.size();
+        return consumed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommunicationBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
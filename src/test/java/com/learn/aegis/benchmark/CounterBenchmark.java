@@ -0,0 +1,99 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.constant.LockType;
+import com.learn.aegis.service.impl.SynchronizationServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SynchronizationService各计数策略的吞吐量基准测试
+ * 线程数不能通过@Param参数化，main方法依次以1、4、16、64个线程运行整套测试；
+ * 也可以用JMH命令行参数 -t 指定线程数单独运行。
+ * LongAdder和分片计数器的累加只写不读，汇总读取由longAdderSum和paddedStripedCounterSum单独测量。
+ * 所有加锁的策略都带有竞争统计，与无锁策略的差距中包含统计本身的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CounterBenchmark {
+
+    // 测试使用的线程数
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    private SynchronizationServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        service = new SynchronizationServiceImpl();
+    }
+
+    @Benchmark
+    public int synchronizedMethod() {
+        return service.increaseCount();
+    }
+
+    @Benchmark
+    public int synchronizedBlock() {
+        return service.increaseCountWithLock();
+    }
+
+    @Benchmark
+    public int reentrantLock() {
+        return service.increaseCountWith(LockType.REENTRANT);
+    }
+
+    @Benchmark
+    public int fairReentrantLock() {
+        return service.increaseCountWith(LockType.FAIR);
+    }
+
+    @Benchmark
+    public int stampedLock() {
+        return service.increaseCountWith(LockType.STAMPED);
+    }
+
+    @Benchmark
+    public long atomicLong() {
+        return service.increaseCountWithAtomic();
+    }
+
+    @Benchmark
+    public void longAdder() {
+        service.increaseCountWithAdder();
+    }
+
+    @Benchmark
+    public void paddedStripedCounter() {
+        service.increaseCountWithStripedCounter();
+    }
+
+    /**
+     * 汇总读取单独测量，与累加的开销分开
+     */
+    @Benchmark
+    public long longAdderSum() {
+        return service.getAdderCount();
+    }
+
+    @Benchmark
+    public long paddedStripedCounterSum() {
+        return service.getStripedCount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            new Runner(new OptionsBuilder()
+                    .include(CounterBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
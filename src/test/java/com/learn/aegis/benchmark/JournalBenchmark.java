@@ -0,0 +1,69 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.journal.TaskJournal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 预写日志每次提交的开销基准测试
+ * 每次操作追加一条任务描述并立即标记完成，对应一次任务提交和执行完成在日志中的全部写入。
+ * fsyncIntervalMillis为-1时不写日志作为基线，0表示每次追加都等待刷盘，其他值为后台批量刷盘的间隔。
+ * 多线程运行（-t 4）时可以观察到fsyncIntervalMillis为0时并发追加共享刷盘的组提交效果。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    // 模拟的任务描述
+    private static final String PAYLOAD = "{\"tenant\":\"benchmark\",\"workMillis\":100}";
+
+    @Param({"-1", "0", "1", "10", "100"})
+    public long fsyncIntervalMillis;
+
+    private Path directory;
+
+    private TaskJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.quietLogging();
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = fsyncIntervalMillis < 0
+                ? TaskJournal.disabled()
+                : TaskJournal.open(directory, 64 * 1024 * 1024, fsyncIntervalMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long appendAndCommit() {
+        long id = journal.append("task", PAYLOAD);
+        journal.commit(id);
+        return id;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JournalBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
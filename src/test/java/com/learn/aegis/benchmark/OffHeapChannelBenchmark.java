@@ -0,0 +1,102 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.concurrent.OffHeapBlockingQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 堆上队列与堆外字节环形缓冲区的分配速率和GC停顿对比基准测试
+ * 每次操作先写入backlog条消息再全部取出，模拟消费者落后时通道中积压的消息：
+ * heapQueue按通道现有的方式把每条消息解码为字符串放入ArrayBlockingQueue，取出后再编码为字节；
+ * offHeapStrings同样以字符串进出，但积压的消息存放在堆外；
+ * offHeapBytes按字节读写，写入时复制请求的字节，取出时复制到复用的缓冲区，不分配任何对象。
+ * main方法启用GC分析器，结果中的gc.alloc.rate.norm为每次操作分配的字节数，gc.count和gc.time为测量期间的GC次数和停顿时间。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx256m"})
+public class OffHeapChannelBenchmark {
+
+    @Param({"256", "16384"})
+    public int payloadBytes;
+
+    @Param({"64"})
+    public int backlog;
+
+    // 模拟HTTP请求体的消息字节
+    private byte[] payload;
+
+    private ByteBuffer payloadBuffer;
+
+    // 取出字节时复用的目标缓冲区
+    private ByteBuffer target;
+
+    private ArrayBlockingQueue<String> heapQueue;
+
+    private OffHeapBlockingQueue offHeapQueue;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        payload = new byte[payloadBytes];
+        Arrays.fill(payload, (byte) 'x');
+        payloadBuffer = ByteBuffer.wrap(payload);
+        target = ByteBuffer.allocate(payloadBytes);
+        heapQueue = new ArrayBlockingQueue<>(backlog);
+        // 留出对齐和填充记录的余量
+        offHeapQueue = new OffHeapBlockingQueue(backlog * (payloadBytes + 64));
+    }
+
+    @Benchmark
+    public void heapQueue(Blackhole blackhole) {
+        for (int i = 0; i < backlog; i++) {
+            heapQueue.offer(new String(payload, StandardCharsets.UTF_8));
+        }
+        String item;
+        while ((item = heapQueue.poll()) != null) {
+            blackhole.consume(item.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void offHeapStrings(Blackhole blackhole) {
+        for (int i = 0; i < backlog; i++) {
+            offHeapQueue.offer(new String(payload, StandardCharsets.UTF_8));
+        }
+        String item;
+        while ((item = offHeapQueue.poll()) != null) {
+            blackhole.consume(item.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void offHeapBytes(Blackhole blackhole) {
+        for (int i = 0; i < backlog; i++) {
+            offHeapQueue.offerBytes(payloadBuffer);
+        }
+        while (offHeapQueue.pollBytes(target) >= 0) {
+            blackhole.consume(target.get(0));
+            target.clear();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OffHeapChannelBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
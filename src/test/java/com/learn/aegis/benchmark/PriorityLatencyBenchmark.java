@@ -0,0 +1,116 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.constant.TaskPriority;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.service.TaskExecutionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 线程池饱和时高优先级任务的端到端延迟基准测试
+ * 后台线程持续提交LOW优先级的短计算任务，使队列中始终积压BACKLOG个任务；
+ * 测量线程提交一个CRITICAL任务并等待其完成。
+ * PRIORITY使用TaskExecutionService的优先级队列，FIFO使用相同线程数、普通LinkedBlockingQueue的线程池作为对照。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityLatencyBenchmark {
+
+    // 工作线程数
+    private static final int POOL_SIZE = 2;
+
+    // 队列中保持积压的后台任务数
+    private static final int BACKLOG = 500;
+
+    // 每个后台任务的计算时长（纳秒）
+    private static final long BACKGROUND_WORK_NANOS = 20_000L;
+
+    @Param({"PRIORITY", "FIFO"})
+    public String queue;
+
+    private TaskExecutionService service;
+
+    private ThreadPoolExecutor fifoExecutor;
+
+    private Thread filler;
+
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        service = new TaskExecutionService(new ExecutorMetricsRegistry(new SimpleMeterRegistry()), POOL_SIZE);
+        fifoExecutor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        running = true;
+        filler = new Thread(this::fill, "benchmark-filler");
+        filler.setDaemon(true);
+        filler.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        filler.join();
+        service.destroy();
+        fifoExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Integer criticalTaskLatency() {
+        if ("PRIORITY".equals(queue)) {
+            return service.submit(() -> 1, TaskPriority.CRITICAL).join();
+        }
+        return CompletableFuture.supplyAsync(() -> 1, fifoExecutor).join();
+    }
+
+    /**
+     * 保持队列中的后台任务积压
+     */
+    private void fill() {
+        boolean priority = "PRIORITY".equals(queue);
+        while (running) {
+            int queued = priority ? service.getQueuedTaskCount() : fifoExecutor.getQueue().size();
+            if (queued >= BACKLOG) {
+                LockSupport.parkNanos(100_000L);
+                continue;
+            }
+            for (int i = queued; i < BACKLOG; i++) {
+                if (priority) {
+                    service.submit(PriorityLatencyBenchmark::spin, TaskPriority.LOW);
+                } else {
+                    fifoExecutor.execute(PriorityLatencyBenchmark::spin);
+                }
+            }
+        }
+    }
+
+    /**
+     * 模拟短计算任务
+     */
+    private static Integer spin() {
+        long end = System.nanoTime() + BACKGROUND_WORK_NANOS;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PriorityLatencyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.stream.StreamingChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 流式通道在多个订阅者下的吞吐量基准测试
+ * 每次操作发布一批消息并等待所有订阅者都收到，结果按单条消息计算。
+ * 订阅者按批次请求消息，每个订阅者的缓冲区容量固定，内存占用随订阅者数量线性增长而与消息总数无关；
+ * 发布方使用submit，不会丢弃消息，订阅者跟不上时由有界缓冲区反压发布方。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingChannelBenchmark {
+
+    // 每次操作发布的消息数
+    private static final int BATCH = 1_000;
+
+    @Param({"1", "16", "256"})
+    public int subscribers;
+
+    private StreamingChannel channel;
+
+    private List<CountingSubscriber> consumers;
+
+    // 已发布的消息总数
+    private long published;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        channel = new StreamingChannel(256);
+        consumers = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            CountingSubscriber consumer = new CountingSubscriber();
+            channel.subscribe(consumer);
+            consumers.add(consumer);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long publishToAllSubscribers() {
+        for (int i = 0; i < BATCH; i++) {
+            channel.submit("item");
+        }
+        published += BATCH;
+        for (CountingSubscriber consumer : consumers) {
+            while (consumer.received.get() < published) {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+        return published;
+    }
+
+    /**
+     * 每次请求64条消息、消耗过半时补充需求的订阅者
+     */
+    private static final class CountingSubscriber implements Flow.Subscriber<String> {
+
+        private static final int PREFETCH = 64;
+
+        private final AtomicLong received = new AtomicLong();
+
+        private Flow.Subscription subscription;
+
+        private long outstanding;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = PREFETCH;
+            subscription.request(PREFETCH);
+        }
+
+        @Override
+        public void onNext(String item) {
+            received.incrementAndGet();
+            if (--outstanding <= PREFETCH / 2) {
+                subscription.request(PREFETCH - outstanding);
+                outstanding = PREFETCH;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StreamingChannelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
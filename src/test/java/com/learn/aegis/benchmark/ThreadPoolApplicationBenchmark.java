@@ -0,0 +1,77 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.model.ThreadPoolMonitor;
+import com.learn.aegis.service.ThreadPoolLifecycleService;
+import com.learn.aegis.threadpool.ThreadPoolApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比ThreadPoolApplication两种执行模式的基准测试
+ * PER_CALL：每次调用新建线程池，提交任务后关闭并等待终止；
+ * POOLED：复用ThreadPoolLifecycleService中的共享线程池，提交后立即返回。
+ * Throughput模式给出每秒请求数，SampleTime模式给出包含p99在内的调用延迟分布。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(4)
+@Fork(1)
+public class ThreadPoolApplicationBenchmark {
+
+    // 执行模式
+    @Param({"PER_CALL", "POOLED"})
+    public String mode;
+
+    // 线程池类型，工作窃取线程池不是ThreadPoolExecutor，无法用于每次新建的模式
+    @Param({"FIXED", "CACHED", "SINGLE", "SCHEDULED"})
+    public ThreadPoolType type;
+
+    // 模拟任务的执行时间（毫秒）
+    @Param({"0"})
+    public long workMillis;
+
+    private ThreadPoolLifecycleService lifecycleService;
+
+    private ThreadPoolApplication application;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        lifecycleService = new ThreadPoolLifecycleService();
+        application = new ThreadPoolApplication(lifecycleService);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        // 共享模式下提交速度可能快于消费速度，每轮迭代结束后等待队列排空，避免积压影响下一轮
+        BenchmarkSupport.awaitIdle(lifecycleService.getExecutor(type), 30_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.destroy();
+        lifecycleService.destroy();
+    }
+
+    @Benchmark
+    public ThreadPoolMonitor executeTask() {
+        if ("PER_CALL".equals(mode)) {
+            return application.executeTaskWithDedicatedPool(type, workMillis);
+        }
+        return application.executeTask(type, workMillis);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThreadPoolApplicationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.service.ThreadPoolLifecycleService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThreadPoolLifecycleService中各类型线程池在不同任务负载下的基准测试
+ * 多个客户端线程并发提交任务并等待其完成，Throughput模式给出每秒完成的任务数，
+ * SampleTime模式给出单个任务从提交到完成的延迟分位数；配合 -prof gc 可得到每个任务的内存分配量。
+ * 负载类型：
+ * CPU：纯计算任务；
+ * IO：阻塞1毫秒的任务，模拟远程调用或磁盘读写；
+ * MIXED：80%计算任务与20%阻塞任务混合。
+ * 在Java 21上运行时可通过 -p type=VIRTUAL 加入虚拟线程执行器。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+public class ThreadPoolTypeBenchmark {
+
+    // 计算任务消耗的CPU令牌数
+    private static final long CPU_TOKENS = 2_000;
+
+    // 阻塞任务的阻塞时间（毫秒）
+    private static final long IO_MILLIS = 1;
+
+    // MIXED负载中阻塞任务所占的百分比
+    private static final int IO_PERCENT = 20;
+
+    @Param({"FIXED", "CACHED", "SINGLE", "SCHEDULED", "WORK_STEALING"})
+    public ThreadPoolType type;
+
+    @Param({"CPU", "IO", "MIXED"})
+    public String workload;
+
+    private ThreadPoolLifecycleService lifecycleService;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        lifecycleService = new ThreadPoolLifecycleService();
+        executor = lifecycleService.getExecutor(type);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lifecycleService.destroy();
+    }
+
+    @Benchmark
+    public Object submitAndAwait() throws Exception {
+        return executor.submit(this::runWorkload).get();
+    }
+
+    /**
+     * 按照负载类型执行一次任务
+     *
+     * @return 任务结果，防止计算被优化掉
+     */
+    private Boolean runWorkload() throws InterruptedException {
+        switch (workload) {
+            case "CPU":
+                Blackhole.consumeCPU(CPU_TOKENS);
+                return Boolean.TRUE;
+            case "IO":
+                Thread.sleep(IO_MILLIS);
+                return Boolean.TRUE;
+            default:
+                if (ThreadLocalRandom.current().nextInt(100) < IO_PERCENT) {
+                    Thread.sleep(IO_MILLIS);
+                } else {
+                    Blackhole.consumeCPU(CPU_TOKENS);
+                }
+                return Boolean.TRUE;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThreadPoolTypeBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
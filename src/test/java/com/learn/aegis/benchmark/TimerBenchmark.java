@@ -0,0 +1,110 @@
+package com.learn.aegis.benchmark;
+
+import com.learn.aegis.concurrent.HierarchicalTimingWheel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分层时间轮与ScheduledThreadPoolExecutor注册和取消大量定时器的基准测试
+ * 每次调用注册TIMERS个延迟在1秒到1小时之间的定时器，然后全部取消，结果为每个定时器的平均耗时。
+ * ScheduledThreadPoolExecutor开启removeOnCancel，取消时从堆中移除，与时间轮同样不保留已取消的任务。
+ * 时间轮的schedule和cancel只把请求放入队列，真正的放入槽位和移除由tick线程完成，
+ * 因此注册后先等tick线程把新任务全部放入槽位再取消，最后等它把取消的任务全部移除，两部分的耗时都计入结果；
+ * tick线程处理完一批后会休眠到下一个tick，结果中包含最多两个tick的等待。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerBenchmark {
+
+    // 每次调用注册的定时器数量
+    private static final int TIMERS = 1_000_000;
+
+    // 定时器任务，不会真正执行
+    private static final Runnable NOOP = () -> { };
+
+    private HierarchicalTimingWheel timingWheel;
+
+    private ExecutorService dispatcher;
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    private long[] delays;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        dispatcher = Executors.newSingleThreadExecutor();
+        timingWheel = new HierarchicalTimingWheel(10, TimeUnit.MILLISECONDS, 256, dispatcher, "benchmark-timer");
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        delays = new long[TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            delays[i] = ThreadLocalRandom.current().nextLong(1_000L, 3_600_000L);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timingWheel.stop();
+        dispatcher.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMERS)
+    public int timingWheel() {
+        // 上一次调用结束时已等待全部请求处理完毕，这里读取的是准确的基数
+        long drained = timingWheel.drainedOperations();
+        HierarchicalTimingWheel.Timeout[] timeouts = new HierarchicalTimingWheel.Timeout[TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            timeouts[i] = timingWheel.schedule(NOOP, delays[i], TimeUnit.MILLISECONDS);
+        }
+        awaitDrained(drained + TIMERS);
+        for (HierarchicalTimingWheel.Timeout timeout : timeouts) {
+            timeout.cancel();
+        }
+        awaitDrained(drained + 2L * TIMERS);
+        return timingWheel.pendingTimeouts();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMERS)
+    public int scheduledThreadPoolExecutor() {
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            futures[i] = scheduler.schedule(NOOP, delays[i], TimeUnit.MILLISECONDS);
+        }
+        for (ScheduledFuture<?> future : futures) {
+            future.cancel(false);
+        }
+        return scheduler.getQueue().size();
+    }
+
+    /**
+     * 等待tick线程处理完指定数量的新增和取消请求
+     */
+    private void awaitDrained(long target) {
+        while (timingWheel.drainedOperations() < target) {
+            Thread.yield();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
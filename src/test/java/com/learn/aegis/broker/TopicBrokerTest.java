@@ -0,0 +1,112 @@
+package com.learn.aegis.broker;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.model.ConsumerGroupStats;
+import com.learn.aegis.model.TopicRecord;
+import com.learn.aegis.model.TopicStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicBrokerTest {
+
+    @Test
+    void consumerGroupSplitsPartitionsAndKeepsPerKeyOrder() throws InterruptedException {
+        TopicBroker broker = new TopicBroker(4, 1024);
+        broker.createTopic("orders", 4);
+        // 两个成员先加入，分区分配在拉取消息前就确定
+        broker.poll("orders", "billing", "c1", 1, 0, TimeUnit.MILLISECONDS);
+        broker.poll("orders", "billing", "c2", 1, 0, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 100; i++) {
+            for (int key = 0; key < 10; key++) {
+                broker.publish("orders", "k" + key, Integer.toString(i));
+            }
+        }
+
+        Map<String, Integer> lastSeen = new HashMap<>();
+        Map<String, String> owner = new HashMap<>();
+        int consumed = 0;
+        while (consumed < 1_000) {
+            for (String consumer : List.of("c1", "c2")) {
+                for (TopicRecord record : broker.poll("orders", "billing", consumer, 64, 0, TimeUnit.MILLISECONDS)) {
+                    int value = Integer.parseInt(record.getValue());
+                    assertEquals(lastSeen.getOrDefault(record.getKey(), -1) + 1, value);
+                    lastSeen.put(record.getKey(), value);
+                    assertEquals(consumer, owner.computeIfAbsent(record.getKey(), key -> consumer));
+                    consumed++;
+                }
+            }
+        }
+
+        TopicStats stats = broker.stats("orders");
+        assertEquals(1_000, stats.getDepth());
+        ConsumerGroupStats group = stats.getGroups().get(0);
+        assertEquals(0, group.getLag());
+        assertEquals(List.of(0, 2), group.getAssignment().get("c1"));
+        assertEquals(List.of(1, 3), group.getAssignment().get("c2"));
+
+        // 成员离开后其分区分配给剩下的成员
+        broker.leave("orders", "billing", "c2");
+        assertEquals(List.of(0, 1, 2, 3), broker.stats("orders").getGroups().get(0).getAssignment().get("c1"));
+    }
+
+    @Test
+    void groupsTrackIndependentLagAndSkipEvictedRecords() throws InterruptedException {
+        TopicBroker broker = new TopicBroker(1, 4);
+        for (int i = 0; i < 6; i++) {
+            broker.publish("events", null, "e" + i);
+        }
+        assertEquals(1, broker.poll("events", "fast", "a", 1, 0, TimeUnit.MILLISECONDS).size());
+        List<TopicRecord> all = broker.poll("events", "audit", "b", 10, 0, TimeUnit.MILLISECONDS);
+        // 最早的两条已被淘汰，新的消费组从保留的最早一条开始
+        assertEquals(2, all.get(0).getOffset());
+        assertEquals(4, all.size());
+
+        TopicStats stats = broker.stats("events");
+        assertEquals(4, stats.getDepth());
+        assertEquals(2, stats.getPartitions().get(0).getEvicted());
+        assertEquals(0, stats.getGroups().get(0).getLag());
+        assertEquals(3, stats.getGroups().get(1).getLag());
+    }
+
+    @Test
+    void pollNeverCreatesTopicsAndIdleGroupsExpire() throws InterruptedException {
+        TopicBroker broker = new TopicBroker(1, 4, 50);
+        assertThrows(IllegalArgumentException.class, () -> broker.createTopic("wide", TopicBroker.MAX_PARTITIONS + 1));
+        assertNull(broker.poll("missing", "group", "a", 10, 0, TimeUnit.MILLISECONDS));
+        assertEquals(List.of(), broker.topicNames());
+
+        broker.publish("events", null, "e0");
+        assertEquals(1, broker.poll("events", "idle", "a", 10, 0, TimeUnit.MILLISECONDS).size());
+        Thread.sleep(100);
+        // 超过保留时长没有拉取的消费组在下一次拉取时被移除
+        assertEquals(1, broker.poll("events", "active", "b", 10, 0, TimeUnit.MILLISECONDS).size());
+        List<ConsumerGroupStats> groups = broker.stats("events").getGroups();
+        assertEquals(1, groups.size());
+        assertEquals("active", groups.get(0).getGroup());
+        // 被移除的消费组再次拉取时作为新的消费组从保留的最早一条消息开始
+        assertEquals(1, broker.poll("events", "idle", "a", 10, 0, TimeUnit.MILLISECONDS).size());
+    }
+
+    @Test
+    void topicsBeyondTheLimitAreRejectedAsSaturation() {
+        TopicBroker broker = new TopicBroker(1, 4, 50, 2);
+        broker.publish("a", null, "a0");
+        broker.createTopic("b", 1);
+        SaturationRejectedException rejected = assertThrows(SaturationRejectedException.class,
+                () -> broker.publish("c", null, "c0"));
+        assertTrue(SaturationRejectedException.isSaturation(rejected));
+        assertThrows(SaturationRejectedException.class, () -> broker.createTopic("c", 1));
+        // 已存在的主题不受上限影响
+        assertEquals(1, broker.publish("a", null, "a1").getOffset());
+        assertEquals(List.of("a", "b"), broker.topicNames());
+    }
+}
@@ -0,0 +1,105 @@
+package com.learn.aegis.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void timersFireInDeadlineOrderAcrossLevels() throws InterruptedException {
+        // 每层4个槽位，300毫秒的延迟会跨越多层并触发级联
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, TimeUnit.MILLISECONDS, 4, Runnable::run, "test-timer");
+        List<Long> delays = new ArrayList<>();
+        for (long delay = 0; delay <= 300; delay += 7) {
+            delays.add(delay);
+        }
+        Collections.shuffle(delays);
+        ConcurrentLinkedQueue<Long> fired = new ConcurrentLinkedQueue<>();
+        Map<Long, Long> submittedAt = new ConcurrentHashMap<>();
+        Map<Long, Long> firedAt = new ConcurrentHashMap<>();
+        Map<Long, HierarchicalTimingWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(delays.size());
+        // 先创建好所有任务，提交时不再包含创建lambda的开销
+        Map<Long, Runnable> tasks = new HashMap<>();
+        for (long delay : delays) {
+            tasks.put(delay, () -> {
+                firedAt.put(delay, System.nanoTime());
+                fired.add(delay);
+                latch.countDown();
+            });
+        }
+        for (long delay : delays) {
+            Runnable task = tasks.get(delay);
+            submittedAt.put(delay, System.nanoTime());
+            timeouts.put(delay, wheel.schedule(task, delay, TimeUnit.MILLISECONDS));
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        List<Long> expected = new ArrayList<>(delays);
+        Collections.sort(expected);
+        List<Long> actual = new ArrayList<>(fired);
+        assertEquals(expected, actual.stream().sorted().collect(Collectors.toList()));
+        for (long delay : delays) {
+            // 不会早于指定的延迟执行
+            assertTrue(firedAt.get(delay) - submittedAt.get(delay) >= TimeUnit.MILLISECONDS.toNanos(delay),
+                    delay + " ms timer fired early");
+        }
+        // 到期时间从各自的提交时刻算起，按时间轮记录的到期tick比较先后，同一个tick内的顺序不确定
+        for (int i = 1; i < actual.size(); i++) {
+            assertTrue(timeouts.get(actual.get(i - 1)).deadlineTick() <= timeouts.get(actual.get(i)).deadlineTick(),
+                    actual.get(i - 1) + " fired before " + actual.get(i));
+        }
+        assertEquals(0, wheel.pendingTimeouts());
+        wheel.stop();
+    }
+
+    @Test
+    void cancelledTimersNeverFire() throws InterruptedException {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, TimeUnit.MILLISECONDS, 8, Runnable::run, "test-timer");
+        CountDownLatch fired = new CountDownLatch(1);
+        HierarchicalTimingWheel.Timeout cancelled = wheel.schedule(fired::countDown, 50, TimeUnit.MILLISECONDS);
+        HierarchicalTimingWheel.Timeout kept = wheel.schedule(() -> { }, 100, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.pendingTimeouts());
+        assertFalse(fired.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel());
+        wheel.stop();
+    }
+
+    @Test
+    void hugeDelaysDoNotOverflowAndErrorsDoNotStopTheTickThread() throws InterruptedException {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, TimeUnit.MILLISECONDS, 8, Runnable::run, "test-timer");
+        CountDownLatch farFired = new CountDownLatch(1);
+        HierarchicalTimingWheel.Timeout far = wheel.schedule(farFired::countDown, Long.MAX_VALUE, TimeUnit.DAYS);
+        HierarchicalTimingWheel.Timeout farNanos = wheel.schedule(farFired::countDown, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        assertTrue(far.deadlineTick() > 0);
+        assertTrue(farNanos.deadlineTick() > 0);
+        // 直接执行的任务抛出Error时tick线程继续工作
+        wheel.schedule(() -> {
+            throw new AssertionError("dispatch failure");
+        }, 0, TimeUnit.MILLISECONDS);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 20, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertFalse(farFired.await(50, TimeUnit.MILLISECONDS));
+        assertFalse(far.isExpired());
+        assertEquals(2, wheel.pendingTimeouts());
+        wheel.stop();
+    }
+}
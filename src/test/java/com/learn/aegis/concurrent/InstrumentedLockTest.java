@@ -0,0 +1,93 @@
+package com.learn.aegis.concurrent;
+
+import com.learn.aegis.constant.LockType;
+import com.learn.aegis.model.LockContentionStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedLockTest {
+
+    private int counter;
+
+    @ParameterizedTest
+    @EnumSource(LockType.class)
+    void everyTypeProvidesMutualExclusionAndCountsAcquisitions(LockType type) throws Exception {
+        int threads = 4;
+        int iterations = 10_000;
+        InstrumentedLock lock = InstrumentedLock.create("counter", type);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    lock.executeAsInt(() -> ++counter);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        LockContentionStats stats = lock.stats();
+        assertEquals(threads * iterations, counter);
+        assertEquals(type, stats.getType());
+        assertEquals(threads * iterations, stats.getAcquisitions());
+        assertTrue(stats.getContended() <= stats.getAcquisitions());
+        assertTrue(stats.getHoldMaxNanos() >= stats.getHoldP50Nanos());
+    }
+
+    @ParameterizedTest
+    @EnumSource(LockType.class)
+    void waitingForAHeldLockIsRecordedAsContention(LockType type) throws Exception {
+        InstrumentedLock lock = InstrumentedLock.create("held", type);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> holder = executor.submit(() -> lock.execute(() -> {
+            holding.countDown();
+            awaitQuietly(release);
+            return "holder";
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        Future<String> waiter = executor.submit(() -> lock.execute(() -> "waiter"));
+        Thread.sleep(50);
+        release.countDown();
+        assertEquals("holder", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("waiter", waiter.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        LockContentionStats stats = lock.stats();
+        assertEquals(2, stats.getAcquisitions());
+        assertEquals(1, stats.getContended());
+        assertEquals(0.5, stats.getContentionRatio());
+        // 等待者至少等待了持有者睡眠的时长，持有者的持有时间也不短于此
+        assertTrue(stats.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(stats.getMaxWaitNanos(), stats.getTotalWaitNanos());
+        assertTrue(stats.getHoldMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void statsAreEmptyBeforeFirstAcquisition() {
+        LockContentionStats stats = InstrumentedLock.create("idle", LockType.STAMPED).stats();
+        assertEquals("idle", stats.getName());
+        assertEquals(0, stats.getAcquisitions());
+        assertEquals(0.0, stats.getContentionRatio());
+        assertEquals(0, stats.getHoldP99Nanos());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
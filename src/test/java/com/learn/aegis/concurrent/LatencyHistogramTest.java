@@ -0,0 +1,38 @@
+package com.learn.aegis.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 1_000_000; v++) {
+            histogram.record(v * 1_000);
+        }
+        assertEquals(1_000_000, histogram.getTotalCount());
+        assertEquals(1_000_000_000L, histogram.getMaxValue());
+        assertWithin(500_000_000L, histogram.getValueAtPercentile(50.0));
+        assertWithin(990_000_000L, histogram.getValueAtPercentile(99.0));
+        assertWithin(999_000_000L, histogram.getValueAtPercentile(99.9));
+        assertEquals(1_000_000_000L, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 0; v < 100; v++) {
+            histogram.record(v);
+        }
+        assertEquals(49, histogram.getValueAtPercentile(50.0));
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99.0));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        double error = Math.abs(actual - expected) / (double) expected;
+        assertTrue(error < 0.02, "expected ~" + expected + " but was " + actual);
+    }
+}
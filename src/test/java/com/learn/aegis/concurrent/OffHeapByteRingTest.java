@@ -0,0 +1,103 @@
+package com.learn.aegis.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapByteRingTest {
+
+    @Test
+    void recordsWrapAroundWithPadding() {
+        OffHeapByteRing ring = new OffHeapByteRing(64);
+        byte[] record = new byte[21];
+        // 每条记录占28字节，第三条放不下末尾的8字节，需要先写入填充记录
+        for (int round = 0; round < 100; round++) {
+            record[0] = (byte) round;
+            assertTrue(ring.offer(ByteBuffer.wrap(record)));
+            assertTrue(ring.offer(ByteBuffer.wrap(record)));
+            assertFalse(ring.offer(ByteBuffer.wrap(record)));
+            assertEquals(2, ring.size());
+            assertEquals(round & 0xff, ring.poll()[0] & 0xff);
+            assertEquals(21, ring.poll(ByteBuffer.allocate(32)));
+            assertNull(ring.poll());
+            assertEquals(64, ring.remainingBytes());
+        }
+    }
+
+    @Test
+    void rejectsPayloadLargerThanHalfTheRing() {
+        OffHeapByteRing ring = new OffHeapByteRing(64);
+        assertEquals(28, ring.maxPayloadLength());
+        assertThrows(IllegalArgumentException.class, () -> ring.offer(ByteBuffer.allocate(29)));
+        assertTrue(ring.offer(ByteBuffer.allocate(28)));
+        assertArrayEquals(new byte[28], ring.peek());
+        assertEquals(28, ring.poll().length);
+    }
+
+    @Test
+    void maximumRecordWrapsFromAnyOffset() {
+        OffHeapByteRing ring = new OffHeapByteRing(64);
+        byte[] largest = new byte[ring.maxPayloadLength()];
+        // 先用不同长度的记录把写位置推到各个偏移量，再写入最长的记录，必要时先写填充
+        for (int shift = 0; shift <= 28; shift++) {
+            assertTrue(ring.offer(ByteBuffer.allocate(shift)));
+            assertEquals(shift, ring.poll().length);
+            largest[0] = (byte) shift;
+            assertTrue(ring.offer(ByteBuffer.wrap(largest)), "offset after " + shift + " byte record");
+            assertEquals(shift, ring.poll()[0]);
+            assertEquals(64, ring.remainingBytes());
+        }
+    }
+
+    @Test
+    void concurrentProducersNeitherLoseNorCorruptRecords() throws Exception {
+        int producers = 4;
+        int recordsPerProducer = 20_000;
+        OffHeapBlockingQueue queue = new OffHeapBlockingQueue(4096);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < recordsPerProducer; i++) {
+                    // 长度不同的记录让填充记录出现在不同位置
+                    queue.put(producer + ":" + i + ":" + "x".repeat(i % 37));
+                }
+                return null;
+            }));
+        }
+        int[] next = new int[producers];
+        for (int received = 0; received < producers * recordsPerProducer; received++) {
+            String item = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(item);
+            String[] parts = item.split(":");
+            int producer = Integer.parseInt(parts[0]);
+            int sequence = Integer.parseInt(parts[1]);
+            // 同一个生产者的记录按写入顺序出队
+            assertEquals(next[producer]++, sequence);
+            assertEquals(sequence % 37, parts.length > 2 ? parts[2].length() : 0);
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void queueRoundTripsUtf8AndRawBytes() throws InterruptedException {
+        OffHeapBlockingQueue queue = new OffHeapBlockingQueue(1024);
+        queue.put("消息");
+        assertTrue(queue.offerBytes(ByteBuffer.wrap("raw".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(List.of("消息", "raw"), new ArrayList<>(queue));
+        assertEquals("消息", new String(queue.pollBytes(0, TimeUnit.MILLISECONDS), StandardCharsets.UTF_8));
+        assertEquals("raw", queue.take());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+}
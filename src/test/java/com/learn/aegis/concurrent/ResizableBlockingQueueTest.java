@@ -0,0 +1,98 @@
+package com.learn.aegis.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResizableBlockingQueueTest {
+
+    @Test
+    void capacityChangesTakeEffectImmediately() throws InterruptedException {
+        ResizableBlockingQueue<Integer> queue = new ResizableBlockingQueue<>(2);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+
+        queue.setCapacity(3);
+        assertTrue(queue.offer(3));
+        assertEquals(0, queue.remainingCapacity());
+
+        // 缩容不会丢弃已有元素，只是拒绝新的入队
+        queue.setCapacity(1);
+        assertEquals(3, queue.size());
+        assertFalse(queue.offer(4));
+        assertEquals(1, queue.take());
+        assertEquals(2, queue.take());
+        assertFalse(queue.offer(4));
+        assertEquals(3, queue.take());
+        assertTrue(queue.offer(4));
+    }
+
+    @Test
+    void growingWakesBlockedProducers() throws Exception {
+        ResizableBlockingQueue<Integer> queue = new ResizableBlockingQueue<>(1);
+        queue.put(1);
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            try {
+                queue.put(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(producer.isDone());
+        queue.setCapacity(2);
+        producer.get(5, TimeUnit.SECONDS);
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void noTaskIsLostWhileResizingUnderLoad() throws Exception {
+        int producers = 4;
+        int tasksPerProducer = 20_000;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(16), new ThreadPoolExecutor.CallerRunsPolicy());
+        LongAdder executed = new LongAdder();
+        AtomicBoolean resizing = new AtomicBoolean(true);
+
+        // 持续在小容量和大容量之间切换，同时调整线程数
+        Thread resizer = new Thread(() -> {
+            ResizableBlockingQueue<Runnable> queue = (ResizableBlockingQueue<Runnable>) executor.getQueue();
+            int round = 0;
+            while (resizing.get()) {
+                queue.setCapacity(round % 2 == 0 ? 1 : 256);
+                if (round % 2 == 0) {
+                    executor.setMaximumPoolSize(8);
+                    executor.setCorePoolSize(6);
+                } else {
+                    executor.setCorePoolSize(1);
+                    executor.setMaximumPoolSize(2);
+                }
+                round++;
+                Thread.yield();
+            }
+        });
+        resizer.start();
+
+        ExecutorService submitters = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            submitters.execute(() -> {
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    executor.execute(executed::increment);
+                }
+            });
+        }
+        submitters.shutdown();
+        assertTrue(submitters.awaitTermination(60, TimeUnit.SECONDS));
+        resizing.set(false);
+        resizer.join();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        assertEquals((long) producers * tasksPerProducer, executed.sum());
+    }
+}
@@ -0,0 +1,44 @@
+package com.learn.aegis.forkjoin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForkJoinTasksTest {
+
+    private static final int SIZE = 100_003;
+
+    private static final int BOUND = 1_000;
+
+    private final int[] values = new SplittableRandom(7).ints(SIZE, 0, BOUND).toArray();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Test
+    void parallelResultsMatchSequentialOnes() {
+        LongAdder forkedTasks = new LongAdder();
+        assertEquals(Arrays.stream(values).asLongStream().sum(),
+                pool.invoke(new ParallelSumTask(values, 0, SIZE, 100, forkedTasks)));
+        assertTrue(forkedTasks.sum() > 0);
+
+        long[] expected = new long[7];
+        for (int value : values) {
+            expected[value * 7 / BOUND]++;
+        }
+        assertArrayEquals(expected, pool.invoke(new ParallelHistogramTask(values, 0, SIZE, BOUND, 7, 100, forkedTasks)));
+
+        int[] sorted = values.clone();
+        pool.invoke(new ParallelMergeSortTask(sorted, new int[SIZE], 0, SIZE, 1, forkedTasks));
+        int[] expectedSorted = values.clone();
+        Arrays.sort(expectedSorted);
+        assertArrayEquals(expectedSorted, sorted);
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+package com.learn.aegis.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unfinishedEntriesAreRecoveredAfterReopen() throws IOException {
+        TaskJournal journal = TaskJournal.open(directory, 4096, 0);
+        long first = journal.append("task", "100");
+        long second = journal.append("channel", "hello");
+        journal.append("task", "200");
+        journal.commit(first);
+        journal.commit(second);
+        // 模拟进程退出：不标记剩余条目完成，直接关闭
+        journal.close();
+
+        TaskJournal reopened = TaskJournal.open(directory, 4096, 0);
+        List<TaskJournal.Entry> tasks = reopened.takeRecovered("task");
+        assertEquals(1, tasks.size());
+        assertEquals("200", tasks.get(0).payload());
+        assertTrue(reopened.takeRecovered("channel").isEmpty());
+        // 恢复的条目完成后不会再次恢复，新条目编号不与旧条目重复
+        reopened.commit(tasks.get(0).id());
+        assertTrue(reopened.append("task", "300") > tasks.get(0).id());
+        reopened.close();
+        TaskJournal third = TaskJournal.open(directory, 4096, 0);
+        assertEquals(List.of("300"), third.takeRecovered("task").stream().map(TaskJournal.Entry::payload).toList());
+        third.close();
+    }
+
+    @Test
+    void drainedSegmentsAreDeletedAfterRolling() throws IOException {
+        TaskJournal journal = TaskJournal.open(directory, 1024, 10);
+        for (int i = 0; i < 500; i++) {
+            journal.commit(journal.append("task", "payload-" + i));
+        }
+        assertEquals(0, journal.getLiveEntryCount());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        journal.close();
+    }
+}
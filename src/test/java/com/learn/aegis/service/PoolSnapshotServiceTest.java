@@ -0,0 +1,72 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PoolSnapshotServiceTest {
+
+    @Test
+    void deltaContainsOnlyChangedFields() throws InterruptedException {
+        ExecutorMetricsRegistry registry = new ExecutorMetricsRegistry(new SimpleMeterRegistry());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10));
+        registry.bindGauges("test", () -> pool);
+        ThreadPoolLifecycleService lifecycleService = new ThreadPoolLifecycleService();
+        PoolSnapshotService service = new PoolSnapshotService(registry, lifecycleService, 60_000);
+        try {
+            String first = service.sampleDelta();
+            assertTrue(first.contains("\"test\":{\"status\":\"RUNNING\",\"corePoolSize\":2,\"maximumPoolSize\":2"));
+            assertTrue(first.contains("\"queueType\":\"ArrayBlockingQueue\""));
+            assertNull(service.sampleDelta());
+
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            String delta = service.sampleDelta();
+            assertTrue(delta.contains("\"pools\":{\"test\":{\"activeThreads\":1}}"));
+            assertFalse(delta.contains("corePoolSize"));
+
+            // 完整快照包含最近一次采样的全部字段
+            String full = service.encodeFull();
+            assertTrue(full.contains("\"activeThreads\":1"));
+            assertTrue(full.contains("\"corePoolSize\":2"));
+            release.countDown();
+        } finally {
+            service.destroy();
+            lifecycleService.destroy();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void snapshotCoversAllRegisteredPools() {
+        ExecutorMetricsRegistry registry = new ExecutorMetricsRegistry(new SimpleMeterRegistry());
+        ThreadPoolLifecycleService lifecycleService = new ThreadPoolLifecycleService(registry);
+        PoolSnapshotService service = new PoolSnapshotService(registry, lifecycleService, 60_000);
+        try {
+            assertEquals(registry.getBoundSources().size(), service.snapshot().size());
+            assertTrue(service.snapshot().stream().allMatch(monitor -> "RUNNING".equals(monitor.getStatus())));
+        } finally {
+            service.destroy();
+            lifecycleService.destroy();
+        }
+    }
+}
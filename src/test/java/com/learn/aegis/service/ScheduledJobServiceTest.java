@@ -0,0 +1,72 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.constant.ScheduleType;
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.model.ScheduledJobInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduledJobServiceTest {
+
+    @Test
+    void periodicJobRejectedByTheScheduledPoolIsMarkedFailed() throws InterruptedException {
+        ThreadPoolLifecycleService lifecycleService = new ThreadPoolLifecycleService();
+        ScheduledJobService service = new ScheduledJobService(lifecycleService);
+        lifecycleService.shutdownPool(ThreadPoolType.SCHEDULED);
+        ScheduledJobInfo job = service.schedule("heartbeat", ScheduleType.FIXED_RATE, 0, 50, 0);
+        assertEquals("SCHEDULED", job.getState());
+
+        // 时间轮到期后交给已关闭的线程池被拒绝，任务不再停留在SCHEDULED状态
+        ScheduledJobInfo failed = job;
+        for (int i = 0; i < 200 && !"FAILED".equals(failed.getState()); i++) {
+            Thread.sleep(10);
+            failed = service.listJobs().get(0);
+        }
+        assertEquals("FAILED", failed.getState());
+        assertNotNull(failed.getFailure());
+        assertEquals(0L, failed.getNextFireTime());
+        assertEquals(0, service.pendingTimers());
+        service.destroy();
+        lifecycleService.destroy();
+    }
+
+    @Test
+    void oversizedDelaysAndPeriodsAreRejected() {
+        ThreadPoolLifecycleService lifecycleService = new ThreadPoolLifecycleService();
+        ScheduledJobService service = new ScheduledJobService(lifecycleService);
+        assertThrows(IllegalArgumentException.class,
+                () -> service.schedule("late", ScheduleType.DELAYED, Long.MAX_VALUE, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.schedule("slow", ScheduleType.FIXED_RATE, 0, Long.MAX_VALUE, 0));
+        assertEquals(0, service.pendingTimers());
+        service.destroy();
+        lifecycleService.destroy();
+    }
+
+    @Test
+    void finishedJobsLeaveTheJobTableAndOnlyRecentOnesAreKept() throws InterruptedException {
+        ThreadPoolLifecycleService lifecycleService = new ThreadPoolLifecycleService();
+        ScheduledJobService service = new ScheduledJobService(lifecycleService, 2);
+        for (int i = 0; i < 5; i++) {
+            service.schedule("once-" + i, ScheduleType.DELAYED, 0, 0, 0);
+        }
+        List<ScheduledJobInfo> jobs = service.listJobs();
+        for (int i = 0; i < 200 && !(jobs.size() == 2 && jobs.stream().allMatch(job -> "COMPLETED".equals(job.getState()))); i++) {
+            Thread.sleep(10);
+            jobs = service.listJobs();
+        }
+        // 只保留最近完成的2个任务，已完成的任务不能再被取消
+        assertEquals(2, jobs.size());
+        assertTrue(jobs.stream().allMatch(job -> "COMPLETED".equals(job.getState())));
+        assertNull(service.cancel(jobs.get(0).getId()));
+        service.destroy();
+        lifecycleService.destroy();
+    }
+}
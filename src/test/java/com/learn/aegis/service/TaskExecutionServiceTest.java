@@ -0,0 +1,83 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.constant.StageStatus;
+import com.learn.aegis.constant.TaskPriority;
+import com.learn.aegis.metrics.ExecutorMetricsRegistry;
+import com.learn.aegis.model.TaskGraphResult;
+import com.learn.aegis.pipeline.TaskGraph;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskExecutionServiceTest {
+
+    @Test
+    void queuedTasksRunInEarliestEffectiveDeadlineOrder() throws Exception {
+        TaskExecutionService service = new TaskExecutionService(new ExecutorMetricsRegistry(new SimpleMeterRegistry()), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 占住唯一的工作线程，使后续任务全部进入优先级队列
+        service.submit(() -> {
+            release.await();
+            return null;
+        }, TaskPriority.NORMAL);
+        List<String> order = new CopyOnWriteArrayList<>();
+        service.submit(() -> order.add("low"), TaskPriority.LOW);
+        service.submit(() -> order.add("normal"), TaskPriority.NORMAL);
+        service.submit(() -> order.add("critical"), TaskPriority.CRITICAL);
+        // 截止时间早于CRITICAL的最长等待时间，低优先级也会排在最前
+        service.submit(() -> order.add("low-due"), TaskPriority.LOW, Instant.now().minusMillis(1));
+        CompletableFuture<Boolean> last = service.submit(() -> order.add("high"), TaskPriority.HIGH);
+        release.countDown();
+        last.get();
+        while (order.size() < 5) {
+            Thread.onSpinWait();
+        }
+        assertEquals(List.of("low-due", "critical", "high", "normal", "low"), order);
+        service.destroy();
+    }
+
+    @Test
+    void taskGraphRunsFanOutFanInAndReportsTimeouts() throws Exception {
+        ExecutorMetricsRegistry registry = new ExecutorMetricsRegistry(new SimpleMeterRegistry());
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        registry.bindGauges("fixed", () -> pool);
+        TaskExecutionService service = new TaskExecutionService(registry, 1);
+        TaskGraph graph = new TaskGraph()
+                .stage("load", "fixed", () -> 10)
+                .stage("left", "fixed", 0L, List.of("load"), inputs -> (Integer) inputs.get("load") + 1)
+                .stage("right", TaskExecutionService.PRIORITY_POOL_NAME, 0L, List.of("load"), inputs -> (Integer) inputs.get("load") * 2)
+                .stage("combine", "fixed", 0L, List.of("left", "right"),
+                        inputs -> (Integer) inputs.get("left") + (Integer) inputs.get("right"))
+                .stage("slow", "fixed", 50L, List.of("load"), inputs -> {
+                    Thread.sleep(2_000);
+                    return 0;
+                })
+                .stage("afterSlow", "fixed", 0L, List.of("slow"), inputs -> 0);
+
+        TaskGraphResult result = service.execute(graph).get(5, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertEquals(31, result.getResults().get("combine"));
+        Map<String, StageStatus> statuses = new HashMap<>();
+        result.getStages().forEach(stage -> statuses.put(stage.getStage(), stage.getStatus()));
+        assertEquals(StageStatus.COMPLETED, statuses.get("combine"));
+        assertEquals(StageStatus.TIMED_OUT, statuses.get("slow"));
+        assertEquals(StageStatus.SKIPPED, statuses.get("afterSlow"));
+        assertThrows(IllegalArgumentException.class, () -> service.execute(new TaskGraph().stage("x", "missing", () -> 0)));
+        service.destroy();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.model.ThreadStateCounts;
+import com.learn.aegis.model.TrackedThreadInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThreadLifecycleServiceTest {
+
+    @Test
+    void creationBeyondBurstIsRejected() {
+        ThreadLifecycleService service = new ThreadLifecycleService(0.1, 3, 10);
+        for (int i = 0; i < 3; i++) {
+            service.startThread(false, 0);
+        }
+        assertThrows(RejectedExecutionException.class, () -> service.startThread(false, 0));
+        ThreadStateCounts counts = service.getStateCounts();
+        assertEquals(3, counts.getCreated());
+        assertEquals(1, counts.getRejected());
+    }
+
+    @Test
+    void threadsAreNamedAndTrackedThroughEachState() throws InterruptedException {
+        ThreadLifecycleService service = new ThreadLifecycleService(1000, 10, 1);
+        TrackedThreadInfo sleeper = service.startThread(false, 5_000);
+        assertEquals("tracked-platform-1", sleeper.getName());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (service.getStateCounts().getTimedWaiting() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, service.getStateCounts().getTimedWaiting());
+        assertEquals(Thread.State.TIMED_WAITING, service.getRegistry().get(0).getState());
+
+        service.startThread(false, 0);
+        service.startThread(false, 0);
+        while (service.getStateCounts().getTerminated() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        ThreadStateCounts counts = service.getStateCounts();
+        assertEquals(2, counts.getTerminated());
+        assertEquals(0, counts.getNewThreads() + counts.getRunnable());
+        // 只保留最近结束的一个线程和仍在睡眠的线程
+        List<TrackedThreadInfo> registry = service.getRegistry();
+        assertEquals(2, registry.size());
+        assertTrue(registry.get(0).getTerminatedAt() == 0 && registry.get(1).getState() == Thread.State.TERMINATED);
+    }
+
+    @Test
+    void creationBeyondTheLiveThreadLimitIsRejectedUntilAThreadEnds() throws InterruptedException {
+        ThreadLifecycleService service = new ThreadLifecycleService(1000, 10, 10, 2);
+        service.startThread(false, 5_000);
+        service.startThread(false, 200);
+        assertThrows(SaturationRejectedException.class, () -> service.startThread(false, 0));
+        assertEquals(1, service.getStateCounts().getRejected());
+        // 较短的线程结束后名额被归还
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (service.getStateCounts().getTerminated() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("tracked-platform-3", service.startThread(false, 0).getName());
+    }
+}
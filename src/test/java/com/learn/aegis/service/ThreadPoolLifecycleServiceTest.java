@@ -0,0 +1,93 @@
+package com.learn.aegis.service;
+
+import com.learn.aegis.concurrent.VirtualThreads;
+import com.learn.aegis.constant.ThreadPoolType;
+import com.learn.aegis.model.ThreadPoolMonitor;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThreadPoolLifecycleServiceTest {
+
+    @ParameterizedTest
+    @EnumSource(value = ThreadPoolType.class, names = {"SINGLE", "SCHEDULED"})
+    void tasksDroppedByShutdownNowRunAfterRestart(ThreadPoolType type) throws InterruptedException {
+        ThreadPoolLifecycleService service = new ThreadPoolLifecycleService();
+        // 占满线程池的所有线程，后续任务留在队列中
+        int threads = type == ThreadPoolType.SINGLE ? 1 : 2;
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch queuedRan = new CountDownLatch(3);
+        for (int i = 0; i < threads; i++) {
+            service.execute(type, () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            service.execute(type, queuedRan::countDown);
+        }
+
+        ThreadPoolMonitor stopped = service.shutdownNowPool(type);
+        assertEquals(3, stopped.getParkedTasks());
+        assertTrue(stopped.getStatus().equals("STOP") || stopped.getStatus().equals("TIDYING")
+                || stopped.getStatus().equals("TERMINATED"));
+
+        ThreadPoolMonitor restarted = service.restartPool(type, 1_000);
+        assertEquals("RUNNING", restarted.getStatus());
+        // 暂存的任务在新线程池中真正执行，而不是被取消
+        assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getParkedTaskCount(type));
+        service.destroy();
+    }
+
+    @Test
+    void restartDrainsThePreviousPoolInTheBackground() throws InterruptedException {
+        ThreadPoolLifecycleService service = new ThreadPoolLifecycleService();
+        ExecutorService previous = service.getExecutor(ThreadPoolType.FIXED);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        service.execute(ThreadPoolType.FIXED, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+        service.restartPool(ThreadPoolType.FIXED, 10_000);
+        assertNotSame(previous, service.getExecutor(ThreadPoolType.FIXED));
+        assertEquals("SHUTDOWN", ThreadPoolLifecycleService.resolveStatus(previous, false).name());
+        // 旧线程池中已接受的任务在排空期限内正常完成
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(previous.awaitTermination(5, TimeUnit.SECONDS));
+        service.destroy();
+    }
+
+    @Test
+    void unsupportedPoolTypeIsRejectedByEveryLifecycleOperation() {
+        Assumptions.assumeFalse(VirtualThreads.isSupported());
+        ThreadPoolLifecycleService service = new ThreadPoolLifecycleService();
+        // 当前运行时没有VIRTUAL线程池，所有操作都抛出IllegalArgumentException而不是空指针异常
+        assertThrows(IllegalArgumentException.class, () -> service.snapshot(ThreadPoolType.VIRTUAL));
+        assertThrows(IllegalArgumentException.class, () -> service.shutdownPool(ThreadPoolType.VIRTUAL));
+        assertThrows(IllegalArgumentException.class, () -> service.shutdownNowPool(ThreadPoolType.VIRTUAL));
+        assertThrows(IllegalArgumentException.class, () -> service.restartPool(ThreadPoolType.VIRTUAL, 0));
+        service.destroy();
+    }
+}
@@ -0,0 +1,81 @@
+package com.learn.aegis.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommunicationServiceImplTest {
+
+    @Test
+    void producerHandsTheItemToAWaitingConsumer() throws Exception {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(4);
+        CommunicationServiceImpl service = new CommunicationServiceImpl(queue);
+        CompletableFuture<String> waiter = service.consumeAsync(5, TimeUnit.SECONDS);
+        assertFalse(waiter.isDone());
+
+        service.produceAsync().get();
+        // 消息直接交给等待者，不经过队列
+        assertEquals("item", waiter.get(0, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void timedOutConsumerLeavesNoWaiterBehind() throws Exception {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(4);
+        CommunicationServiceImpl service = new CommunicationServiceImpl(queue);
+        CompletableFuture<String> waiter = service.consumeAsync(20, TimeUnit.MILLISECONDS);
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timedOut.getCause());
+        // 超时的消费者已从等待队列移除，之后生产的消息进入队列
+        service.produceAsync().get();
+        assertEquals(List.of("item"), List.copyOf(queue));
+    }
+
+    @Test
+    void cancelledWaitersAreSkippedAndTheItemReturnsToTheQueue() throws Exception {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(4);
+        CommunicationServiceImpl service = new CommunicationServiceImpl(queue);
+        CompletableFuture<String> cancelled = service.consumeAsync(5, TimeUnit.SECONDS);
+        CompletableFuture<String> waiting = service.consumeAsync(5, TimeUnit.SECONDS);
+        cancelled.cancel(false);
+
+        // 跳过已取消的等待者，交给下一个
+        service.produceAsync().get();
+        assertEquals("item", waiting.get(0, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+
+        // 只剩已取消的等待者时消息放入队列
+        CompletableFuture<String> last = service.consumeAsync(5, TimeUnit.SECONDS);
+        last.cancel(false);
+        service.produceAsync().get();
+        assertEquals(List.of("item"), List.copyOf(queue));
+        assertEquals("item", service.consumeAsync(0, TimeUnit.MILLISECONDS).get(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void batchBeyondTheWaitingConsumersGoesToTheQueueInOrder() throws Exception {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(4);
+        CommunicationServiceImpl service = new CommunicationServiceImpl(queue);
+        CompletableFuture<String> first = service.consumeAsync(5, TimeUnit.SECONDS);
+        CompletableFuture<String> second = service.consumeAsync(5, TimeUnit.SECONDS);
+
+        assertEquals(4, service.produceBatch(List.of("a", "b", "c", "d")));
+        // 开头的消息按到达顺序交给等待者，其余的按顺序进入队列
+        assertEquals("a", first.get(0, TimeUnit.SECONDS));
+        assertEquals("b", second.get(0, TimeUnit.SECONDS));
+        assertEquals(List.of("c", "d"), List.copyOf(queue));
+    }
+}
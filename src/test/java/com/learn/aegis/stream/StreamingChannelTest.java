@@ -0,0 +1,127 @@
+package com.learn.aegis.stream;
+
+import com.learn.aegis.model.StreamStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingChannelTest {
+
+    @Test
+    void manySubscribersReceiveEveryItemInOrder() throws InterruptedException {
+        int subscribers = 256;
+        int items = 5_000;
+        StreamingChannel channel = new StreamingChannel(64);
+        List<CountingSubscriber> consumers = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            CountingSubscriber consumer = new CountingSubscriber(32, items);
+            channel.subscribe(consumer);
+            consumers.add(consumer);
+        }
+        // submit在缓冲区满时等待，不丢弃消息
+        for (int i = 0; i < items; i++) {
+            channel.submit(Integer.toString(i));
+        }
+        for (CountingSubscriber consumer : consumers) {
+            assertTrue(consumer.done.await(30, TimeUnit.SECONDS));
+            assertEquals(items, consumer.received.get());
+            assertEquals(0, consumer.outOfOrder.get());
+        }
+        StreamStats stats = channel.stats();
+        assertEquals(items, stats.getPublished());
+        assertEquals(0, stats.getDropped());
+        channel.close();
+    }
+
+    @Test
+    void stalledSubscriberIsBoundedAndDoesNotStallOthers() throws InterruptedException {
+        StreamingChannel channel = new StreamingChannel(8);
+        // 只请求一条消息之后不再请求，其余消息积压在缓冲区中，缓冲区满后被丢弃
+        CountingSubscriber stalled = new CountingSubscriber(1, 0);
+        CountingSubscriber fast = new CountingSubscriber(16, 50);
+        channel.subscribe(stalled);
+        channel.subscribe(fast);
+        long dropped = 0;
+        for (int i = 0; i < 50; i++) {
+            dropped += channel.publish(Integer.toString(i));
+            // 等快订阅者收到后再发布下一条，只有停止请求的订阅者的缓冲区会满
+            while (fast.received.get() <= i) {
+                Thread.yield();
+            }
+        }
+        assertTrue(fast.done.await(10, TimeUnit.SECONDS));
+        assertEquals(50, fast.received.get());
+        assertEquals(1, stalled.received.get());
+        StreamStats stats = channel.stats();
+        assertTrue(stats.getMaxLag() <= stats.getBufferCapacity());
+        assertEquals(dropped, stats.getDropped());
+        assertTrue(dropped >= 50 - 1 - stats.getBufferCapacity() - 1);
+        channel.close();
+    }
+
+    /**
+     * 按批次请求消息并计数的订阅者，已请求的消息消耗过半时补充需求，batch为1时只请求一次
+     */
+    private static final class CountingSubscriber implements Flow.Subscriber<String> {
+
+        private final int batch;
+
+        private final long expected;
+
+        private final AtomicLong received = new AtomicLong();
+
+        private final AtomicLong outOfOrder = new AtomicLong();
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Flow.Subscription subscription;
+
+        private long outstanding;
+
+        private CountingSubscriber(int batch, long expected) {
+            this.batch = batch;
+            this.expected = expected;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(String item) {
+            long count = received.getAndIncrement();
+            if (Long.parseLong(item) != count) {
+                outOfOrder.incrementAndGet();
+            }
+            outstanding--;
+            if (batch > 1 && outstanding <= batch / 2) {
+                subscription.request(batch - outstanding);
+                outstanding = batch;
+            }
+            if (count + 1 == expected) {
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
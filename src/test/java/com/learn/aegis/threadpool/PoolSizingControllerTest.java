@@ -0,0 +1,70 @@
+package com.learn.aegis.threadpool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用流体模型模拟线程池，验证控制器在阶跃负载下收敛且收敛后不再抖动
+ */
+class PoolSizingControllerTest {
+
+    // 每个任务的执行时间（秒）
+    private static final double SERVICE_SECONDS = 0.05;
+
+    // 余量比例
+    private static final double HEADROOM = 0.2;
+
+    // 每个负载阶段持续的采样周期数
+    private static final int TICKS_PER_PHASE = 40;
+
+    @Test
+    void convergesAfterEachStepChangeInLoad() {
+        PoolSizingController controller = new PoolSizingController(2, 64, HEADROOM, 5, 1, 3);
+        SimulatedPool pool = new SimulatedPool(10);
+
+        // 到达率（任务/秒）依次阶跃：100 -> 400 -> 40
+        for (double arrivalRate : new double[]{100, 400, 40}) {
+            List<PoolSizingController.Action> actions = new ArrayList<>();
+            for (int tick = 0; tick < TICKS_PER_PHASE; tick++) {
+                PoolSizingController.Decision decision = controller.decide(pool.advanceOneSecond(arrivalRate));
+                pool.corePoolSize = decision.corePoolSize();
+                actions.add(decision.action());
+            }
+
+            int expected = Math.max(2, (int) Math.ceil(arrivalRate * SERVICE_SECONDS * (1 + HEADROOM)));
+            int tolerance = Math.max(2, expected / 5);
+            assertTrue(Math.abs(pool.corePoolSize - expected) <= tolerance,
+                    "load " + arrivalRate + "/s: expected about " + expected + " threads but was " + pool.corePoolSize);
+            // 收敛后队列已被消化，最后一段时间内不再调整
+            assertTrue(pool.queue < 1.0, "backlog not drained at load " + arrivalRate + "/s");
+            actions.subList(TICKS_PER_PHASE - 10, TICKS_PER_PHASE)
+                    .forEach(action -> assertEquals(PoolSizingController.Action.HOLD, action));
+        }
+    }
+
+    /**
+     * 线程池的流体模型：每个线程每秒完成1/SERVICE_SECONDS个任务，处理不完的任务进入队列
+     */
+    private static final class SimulatedPool {
+        private int corePoolSize;
+        private double queue;
+
+        private SimulatedPool(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        private PoolSizingController.Sample advanceOneSecond(double arrivalRate) {
+            double capacity = corePoolSize / SERVICE_SECONDS;
+            double backlog = queue + arrivalRate;
+            double completed = Math.min(backlog, capacity);
+            queue = backlog - completed;
+            return new PoolSizingController.Sample(1_000_000_000L, Math.round(completed), (int) Math.round(queue),
+                    SERVICE_SECONDS * 1e9, corePoolSize);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.learn.aegis.threadpool;
+
+import com.learn.aegis.concurrent.SaturationRejectedException;
+import com.learn.aegis.constant.RejectionPolicyType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SwitchableRejectionHandlerTest {
+
+    @Test
+    void policiesCanBeSwitchedAndAreCountedPerOutcome() throws InterruptedException {
+        SwitchableRejectionHandler handler = new SwitchableRejectionHandler("test", new SimpleMeterRegistry(),
+                RejectionPolicyType.FAST_FAIL, 10, 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), handler);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(4);
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        };
+        // 占满唯一的线程和容量为1的队列
+        executor.execute(blocked);
+        executor.execute(blocked);
+        assertThrows(SaturationRejectedException.class, () -> executor.execute(finished::countDown));
+        handler.setPolicy(RejectionPolicyType.BOUNDED_WAIT_RETRY);
+        assertThrows(SaturationRejectedException.class, () -> executor.execute(finished::countDown));
+        handler.setPolicy(RejectionPolicyType.SPILL_QUEUE);
+        executor.execute(finished::countDown);
+        executor.execute(finished::countDown);
+        release.countDown();
+        // 溢出队列中的任务在主队列空出后被转移执行
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1L, handler.info().getHandled().get("FAST_FAIL:FAILED"));
+        assertEquals(1L, handler.info().getHandled().get("BOUNDED_WAIT_RETRY:FAILED"));
+        assertEquals(2L, handler.info().getHandled().get("SPILL_QUEUE:SPILLED"));
+        executor.shutdown();
+    }
+
+    @Test
+    void callerRunsExecutesOnTheSubmittingThread() throws InterruptedException {
+        SwitchableRejectionHandler handler = new SwitchableRejectionHandler("test", new SimpleMeterRegistry(),
+                RejectionPolicyType.CALLER_RUNS, 10, 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), handler);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(() -> awaitQuietly(release));
+        // 线程和队列都已占满，被拒绝的任务在提交线程中同步执行
+        Thread[] ranOn = new Thread[1];
+        executor.execute(() -> ranOn[0] = Thread.currentThread());
+        assertSame(Thread.currentThread(), ranOn[0]);
+        assertEquals(1L, handler.info().getHandled().get("CALLER_RUNS:CALLER_RAN"));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dropOldestCancelsTheQueuedFutureAndRunsTheNewTask() throws Exception {
+        SwitchableRejectionHandler handler = new SwitchableRejectionHandler("test", new SimpleMeterRegistry(),
+                RejectionPolicyType.DROP_OLDEST, 10, 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), handler);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        Future<?> oldest = executor.submit(() -> { });
+        // 队列中最早的任务被丢弃，等待它的调用方得到取消而不是永远阻塞
+        Future<String> newest = executor.submit(() -> "newest");
+        assertTrue(oldest.isCancelled());
+        release.countDown();
+        assertEquals("newest", newest.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, handler.info().getHandled().get("DROP_OLDEST:DROPPED_OLDEST"));
+        executor.shutdown();
+    }
+
+    @Test
+    void shutdownRejectionIsNotReportedAsSaturation() {
+        SwitchableRejectionHandler handler = new SwitchableRejectionHandler("test", new SimpleMeterRegistry(),
+                RejectionPolicyType.CALLER_RUNS, 10, 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), handler);
+        executor.shutdown();
+        // 线程池关闭后任何策略都不再执行任务，抛出的异常不属于饱和拒绝
+        RejectedExecutionException e = assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertFalse(SaturationRejectedException.isSaturation(e));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.learn.aegis.threadpool;
+
+import com.learn.aegis.model.BulkheadStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TenantBulkheadTest {
+
+    // 手动执行的线程池，测试中逐个运行任务以观察出队顺序
+    private final ArrayDeque<Runnable> submitted = new ArrayDeque<>();
+
+    private final List<String> executed = new ArrayList<>();
+
+    @Test
+    void tenantsAreServedInProportionToTheirWeight() {
+        TenantBulkhead bulkhead = new TenantBulkhead(submitted::add, () -> 1, 4, 100, 1, 10);
+        bulkhead.configure("heavy", 4, 100, 2);
+        for (int i = 0; i < 30; i++) {
+            bulkhead.submit("heavy", () -> executed.add("heavy"));
+            bulkhead.submit("light", () -> executed.add("light"));
+        }
+        while (!submitted.isEmpty()) {
+            submitted.poll().run();
+        }
+        List<String> window = executed.subList(0, 30);
+        assertEquals(20, Collections.frequency(window, "heavy"));
+        assertEquals(10, Collections.frequency(window, "light"));
+    }
+
+    @Test
+    void concurrencyLimitAndQueueQuotaAreEnforcedPerTenant() {
+        TenantBulkhead bulkhead = new TenantBulkhead(submitted::add, () -> 10, 2, 3, 1, 10);
+        for (int i = 0; i < 5; i++) {
+            bulkhead.submit("noisy", () -> { });
+        }
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.submit("noisy", () -> { }));
+        // 其他租户不受影响
+        bulkhead.submit("quiet", () -> { });
+        assertEquals(3, submitted.size());
+        BulkheadStats noisy = bulkhead.stats().get(0);
+        assertEquals("noisy", noisy.getTenant());
+        assertEquals(2, noisy.getRunning());
+        assertEquals(3, noisy.getQueued());
+        assertEquals(1, noisy.getRejected());
+        assertEquals(1.0, noisy.getQueueSaturation());
+    }
+
+    @Test
+    void tasksRejectedByTheExecutorAreRequeuedOrReportedToTheCaller() {
+        boolean[] saturated = {false};
+        TenantBulkhead bulkhead = new TenantBulkhead(task -> {
+            if (saturated[0]) {
+                throw new RejectedExecutionException("saturated");
+            }
+            submitted.add(task);
+        }, () -> 1, 4, 10, 1, 1);
+        bulkhead.submit("tenant", () -> executed.add("first"));
+        bulkhead.submit("tenant", () -> executed.add("second"));
+        saturated[0] = true;
+        // 第一个任务结束后交接第二个任务被拒绝，第二个任务放回队列而不是丢弃
+        submitted.poll().run();
+        assertEquals(1, bulkhead.stats().get(0).getQueued());
+        // 本次提交的交接被拒绝时撤回任务并抛给调用方
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.submit("tenant", () -> executed.add("third")));
+        BulkheadStats stats = bulkhead.stats().get(0);
+        assertEquals(1, stats.getQueued());
+        assertEquals(2, stats.getAccepted());
+        assertEquals(1, stats.getRejected());
+        saturated[0] = false;
+        bulkhead.submit("tenant", () -> executed.add("fourth"));
+        while (!submitted.isEmpty()) {
+            submitted.poll().run();
+        }
+        assertEquals(List.of("first", "second", "fourth"), executed);
+        // 配置接口同样受租户数量上限约束
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.configure("other", 1, 1, 1));
+    }
+
+    @Test
+    void callerRunsExecutorDoesNotGrowTheStack() {
+        TenantBulkhead bulkhead = new TenantBulkhead(Runnable::run, () -> 1, 1, 10, 1, 10);
+        int[] remaining = {100_000};
+        Runnable[] chain = new Runnable[1];
+        // 每个任务在执行中提交下一个任务，下一个任务要等当前任务结束释放额度后才能交接
+        chain[0] = () -> {
+            if (--remaining[0] > 0) {
+                bulkhead.submit("chain", chain[0]);
+            }
+        };
+        bulkhead.submit("chain", chain[0]);
+        assertEquals(0, remaining[0]);
+        assertEquals(100_000, bulkhead.stats().get(0).getCompleted());
+    }
+}